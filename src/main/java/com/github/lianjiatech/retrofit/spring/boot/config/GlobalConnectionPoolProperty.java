@@ -0,0 +1,29 @@
+package com.github.lianjiatech.retrofit.spring.boot.config;
+
+import lombok.Data;
+
+/**
+ * 全局连接池配置，只有在@RetrofitClient.sourceOkHttpClient为NO_SOURCE_OK_HTTP_CLIENT时才有效
+ *
+ * @author 陈添明
+ */
+@Data
+public class GlobalConnectionPoolProperty {
+
+    /**
+     * 是否启用共享连接池。启用后，所有接口按照目标host共享连接池，否则每个接口使用独立的连接池。
+     * <p>
+     * Whether to share connection pools among interfaces by target host.
+     */
+    private boolean enable = false;
+
+    /**
+     * 每个连接池最大空闲连接数
+     */
+    private int maxIdleConnections = 5;
+
+    /**
+     * 空闲连接存活时间
+     */
+    private long keepAliveDurationMs = 300_000;
+}
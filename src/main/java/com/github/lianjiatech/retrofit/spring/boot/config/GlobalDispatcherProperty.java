@@ -0,0 +1,29 @@
+package com.github.lianjiatech.retrofit.spring.boot.config;
+
+import lombok.Data;
+
+/**
+ * 全局调度器配置，只有在@RetrofitClient.sourceOkHttpClient为NO_SOURCE_OK_HTTP_CLIENT时才有效
+ *
+ * @author 陈添明
+ */
+@Data
+public class GlobalDispatcherProperty {
+
+    /**
+     * 是否启用共享调度器。启用后，所有接口共享同一个Dispatcher，否则每个接口使用独立的Dispatcher。
+     * <p>
+     * Whether to share one dispatcher among all interfaces.
+     */
+    private boolean enable = false;
+
+    /**
+     * 最大并发异步请求数
+     */
+    private int maxRequests = 64;
+
+    /**
+     * 每个host最大并发异步请求数
+     */
+    private int maxRequestsPerHost = 5;
+}
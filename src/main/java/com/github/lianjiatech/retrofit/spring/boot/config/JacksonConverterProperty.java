@@ -0,0 +1,54 @@
+package com.github.lianjiatech.retrofit.spring.boot.config;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * CachingJacksonConverterFactory配置
+ * <p>
+ * CachingJacksonConverterFactory config
+ *
+ * @author 陈添明
+ */
+@Data
+public class JacksonConverterProperty {
+
+    /**
+     * 注册的字节码生成模块，对应的依赖需要自行引入，不存在时打印告警并忽略
+     * <p>
+     * Bytecode generation module to register. Its dependency must be added by the application; when it is missing a
+     * warning is logged and the module is skipped
+     */
+    private BytecodeModule bytecodeModule = BytecodeModule.NONE;
+
+    /**
+     * 是否将请求体直接序列化到连接中，使用分块传输。默认先序列化到okio缓冲区，使用Content-Length发送
+     * <p>
+     * Whether to serialize request bodies straight into the connection with chunked transfer encoding. By default
+     * they are serialized into an okio buffer first and sent with Content-Length
+     */
+    private boolean chunkedRequestBody = false;
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum BytecodeModule {
+
+        /**
+         * 不注册
+         */
+        NONE(null),
+
+        /**
+         * jackson-module-blackbird，基于LambdaMetafactory，适用于Java 11及以上版本
+         */
+        BLACKBIRD("com.fasterxml.jackson.module.blackbird.BlackbirdModule"),
+
+        /**
+         * jackson-module-afterburner
+         */
+        AFTERBURNER("com.fasterxml.jackson.module.afterburner.AfterburnerModule");
+
+        private final String moduleClassName;
+    }
+}
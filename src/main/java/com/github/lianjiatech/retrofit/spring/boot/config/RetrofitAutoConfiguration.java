@@ -1,9 +1,21 @@
 package com.github.lianjiatech.retrofit.spring.boot.config;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.github.lianjiatech.retrofit.spring.boot.core.BasicTypeConverterFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -12,11 +24,18 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.lianjiatech.retrofit.spring.boot.core.AutoConfiguredRetrofitScannerRegistrar;
+import com.github.lianjiatech.retrofit.spring.boot.core.BlockingCallExecutor;
+import com.github.lianjiatech.retrofit.spring.boot.core.CachingJacksonConverterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.ConnectionPoolRegistry;
 import com.github.lianjiatech.retrofit.spring.boot.core.Constants;
 import com.github.lianjiatech.retrofit.spring.boot.core.ErrorDecoder;
 import com.github.lianjiatech.retrofit.spring.boot.core.PathMatchInterceptorBdfProcessor;
@@ -24,19 +43,33 @@ import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitFactoryBean;
 import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
 import com.github.lianjiatech.retrofit.spring.boot.core.SourceOkHttpClientRegistrar;
 import com.github.lianjiatech.retrofit.spring.boot.core.SourceOkHttpClientRegistry;
+import com.github.lianjiatech.retrofit.spring.boot.core.StreamingRequestBodyConverterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.CircuitBreakerConfigRegistrar;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.CircuitBreakerConfigRegistry;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.Resilience4jRetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.sentinel.SentinelRetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.GlobalHedgeProperty;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.GlobalInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.NetworkInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.CachingServiceInstanceListSupplier;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.DefaultLoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LoadBalancerProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.OutlierDetector;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstanceListSupplier;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ZonePreference;
 import com.github.lianjiatech.retrofit.spring.boot.log.LoggingInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudget;
 import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.util.VirtualThreads;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Dispatcher;
+import retrofit2.Converter;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
 /**
@@ -44,6 +77,7 @@ import retrofit2.converter.jackson.JacksonConverterFactory;
  */
 @AutoConfiguration
 @EnableConfigurationProperties(RetrofitProperties.class)
+@Slf4j
 public class RetrofitAutoConfiguration {
 
     private final RetrofitProperties retrofitProperties;
@@ -68,6 +102,11 @@ public class RetrofitAutoConfiguration {
         return BasicTypeConverterFactory.INSTANCE;
     }
 
+    @Bean
+    public StreamingRequestBodyConverterFactory streamingRequestBodyConverterFactory() {
+        return StreamingRequestBodyConverterFactory.INSTANCE;
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public SourceOkHttpClientRegistry sourceOkHttpClientRegistry(
@@ -75,6 +114,12 @@ public class RetrofitAutoConfiguration {
         return new SourceOkHttpClientRegistry(sourceOkHttpClientRegistrars);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ConnectionPoolRegistry retrofitConnectionPoolRegistry() {
+        return new ConnectionPoolRegistry(retrofitProperties.getGlobalConnectionPool());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public ErrorDecoder.DefaultErrorDecoder retrofitDefaultErrorDecoder() {
@@ -90,7 +135,7 @@ public class RetrofitAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public RetryInterceptor retrofitRetryInterceptor() {
-        return new RetryInterceptor(retrofitProperties.getGlobalRetry());
+        return new RetryInterceptor(retrofitProperties.getGlobalRetry(), retrofitProperties.getRetryBudget());
     }
 
     @Bean
@@ -101,24 +146,147 @@ public class RetrofitAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public ServiceInstanceChooser retrofitServiceInstanceChooser() {
-        return new ServiceInstanceChooser.NoValidServiceInstanceChooser();
+    public LoadBalancer retrofitLoadBalancer() {
+        return retrofitProperties.getLoadBalancer().getType().create(retrofitProperties.getLoadBalancer());
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public ServiceChooseInterceptor
-            retrofitServiceChooseInterceptor(@Autowired ServiceInstanceChooser serviceInstanceChooser) {
-        return new ServiceChooseInterceptor(serviceInstanceChooser);
+    public ServiceInstanceChooser retrofitServiceInstanceChooser(
+            ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplier, LoadBalancer loadBalancer) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplier.getIfAvailable();
+        if (supplier == null) {
+            return new ServiceInstanceChooser.NoValidServiceInstanceChooser();
+        }
+        if (retrofitProperties.getServiceInstanceCache().isEnable()) {
+            supplier = new CachingServiceInstanceListSupplier(supplier, retrofitProperties.getServiceInstanceCache());
+        }
+        return new DefaultLoadBalancedServiceInstanceChooser(supplier, loadBalancer, createZonePreference());
+    }
+
+    private ZonePreference createZonePreference() {
+        LoadBalancerProperty loadBalancerProperty = retrofitProperties.getLoadBalancer();
+        if (!loadBalancerProperty.isZoneAware()) {
+            return null;
+        }
+        String localZone = loadBalancerProperty.getLocalZone();
+        if (!StringUtils.hasText(localZone) && StringUtils.hasText(loadBalancerProperty.getLocalZoneEnv())) {
+            localZone = System.getenv(loadBalancerProperty.getLocalZoneEnv());
+        }
+        if (!StringUtils.hasText(localZone)) {
+            log.warn("Zone aware load balancing is enabled, but the local zone is unknown! Configure "
+                    + "retrofit.load-balancer.local-zone or the environment variable {}",
+                    loadBalancerProperty.getLocalZoneEnv());
+            return null;
+        }
+        return new ZonePreference(localZone, loadBalancerProperty.getMinLocalAvailableRatio());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "retrofit.outlier-detection", name = "enable", havingValue = "true")
+    public OutlierDetector retrofitOutlierDetector() {
+        return new OutlierDetector(retrofitProperties.getOutlierDetection());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ServiceChooseInterceptor retrofitServiceChooseInterceptor(
+            @Autowired ServiceInstanceChooser serviceInstanceChooser, ObjectProvider<OutlierDetector> outlierDetector) {
+        return new ServiceChooseInterceptor(serviceInstanceChooser, outlierDetector.getIfAvailable(),
+                retrofitProperties.getLoadBalancer().getRouteKeyHeader());
     }
 
     @Bean
     @ConditionalOnMissingBean
     public JacksonConverterFactory retrofitJacksonConverterFactory() {
-        ObjectMapper objectMapper = new ObjectMapper()
+        return JacksonConverterFactory.create(createObjectMapper());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CachingJacksonConverterFactory retrofitCachingJacksonConverterFactory() {
+        JacksonConverterProperty jackson = retrofitProperties.getJackson();
+        ObjectMapper objectMapper = createObjectMapper();
+        registerBytecodeModule(objectMapper, jackson.getBytecodeModule());
+        return CachingJacksonConverterFactory.create(objectMapper, jackson.isChunkedRequestBody());
+    }
+
+    /**
+     * 用户自定义了JacksonConverterFactory bean(例如使用自己的ObjectMapper)，但没有自定义CachingJacksonConverterFactory时，
+     * 全局转换器中的CachingJacksonConverterFactory替换为用户的JacksonConverterFactory，保证ObjectMapper配置仍然生效。
+     * 是否为用户自定义根据bean定义的来源判断，由当前配置类的@Bean方法创建的即为组件默认的bean。
+     */
+    @SuppressWarnings("unchecked")
+    private Class<? extends Converter.Factory>[] resolveGlobalConverterFactories(
+            ConfigurableListableBeanFactory beanFactory) {
+        Class<? extends Converter.Factory>[] converterFactories = retrofitProperties.getGlobalConverterFactories();
+        List<Class<? extends Converter.Factory>> classes = Arrays.asList(converterFactories);
+        if (!classes.contains(CachingJacksonConverterFactory.class)
+                || classes.contains(JacksonConverterFactory.class)) {
+            return converterFactories;
+        }
+        String[] jacksonBeanNames = beanFactory.getBeanNamesForType(JacksonConverterFactory.class, true, false);
+        if (jacksonBeanNames.length != 1 || isAutoConfigured(beanFactory, jacksonBeanNames[0])) {
+            return converterFactories;
+        }
+        String[] cachingBeanNames =
+                beanFactory.getBeanNamesForType(CachingJacksonConverterFactory.class, true, false);
+        if (cachingBeanNames.length != 1 || !isAutoConfigured(beanFactory, cachingBeanNames[0])) {
+            return converterFactories;
+        }
+        log.warn("A custom JacksonConverterFactory bean is defined, it is used instead of "
+                + "CachingJacksonConverterFactory. Define a CachingJacksonConverterFactory bean with the same "
+                + "ObjectMapper to use the caching converter.");
+        return classes.stream()
+                .map(clazz -> clazz == CachingJacksonConverterFactory.class ? JacksonConverterFactory.class : clazz)
+                .toArray(Class[]::new);
+    }
+
+    /**
+     * bean是否由当前配置类的@Bean方法定义
+     */
+    private static boolean isAutoConfigured(ConfigurableListableBeanFactory beanFactory, String beanName) {
+        if (!beanFactory.containsBeanDefinition(beanName)) {
+            return false;
+        }
+        BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+        if (!(beanDefinition instanceof AnnotatedBeanDefinition)) {
+            return false;
+        }
+        MethodMetadata factoryMethod = ((AnnotatedBeanDefinition)beanDefinition).getFactoryMethodMetadata();
+        return factoryMethod != null
+                && RetrofitAutoConfiguration.class.getName().equals(factoryMethod.getDeclaringClassName());
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        return new ObjectMapper()
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
                 .setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        return JacksonConverterFactory.create(objectMapper);
+    }
+
+    private static void registerBytecodeModule(ObjectMapper objectMapper,
+            JacksonConverterProperty.BytecodeModule bytecodeModule) {
+        String moduleClassName = bytecodeModule.getModuleClassName();
+        if (moduleClassName == null) {
+            return;
+        }
+        if (!ClassUtils.isPresent(moduleClassName, RetrofitAutoConfiguration.class.getClassLoader())) {
+            log.warn("Jackson bytecode module {} is not on the classpath, ignored", moduleClassName);
+            return;
+        }
+        try {
+            Class<?> moduleClass = ClassUtils.forName(moduleClassName, RetrofitAutoConfiguration.class.getClassLoader());
+            objectMapper.registerModule((Module)BeanUtils.instantiateClass(moduleClass));
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("Failed to register jackson bytecode module {}, ignored", moduleClassName, e);
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public BlockingCallExecutor retrofitBlockingCallExecutor() {
+        return new BlockingCallExecutor(retrofitProperties.getVirtualThreads().isEnable());
     }
 
     @Bean
@@ -128,7 +296,8 @@ public class RetrofitAutoConfiguration {
             @Autowired(required = false) List<NetworkInterceptor> networkInterceptors,
             ServiceChooseInterceptor serviceChooseInterceptor, RetryInterceptor retryInterceptor,
             LoggingInterceptor loggingInterceptor, ErrorDecoderInterceptor errorDecoderInterceptor,
-            SourceOkHttpClientRegistry sourceOkHttpClientRegistry) {
+            SourceOkHttpClientRegistry sourceOkHttpClientRegistry, ConnectionPoolRegistry connectionPoolRegistry,
+            BlockingCallExecutor retrofitBlockingCallExecutor, ConfigurableListableBeanFactory beanFactory) {
 
         RetrofitConfigBean retrofitConfigBean = new RetrofitConfigBean(retrofitProperties);
         retrofitConfigBean.setGlobalInterceptors(globalInterceptors);
@@ -139,11 +308,70 @@ public class RetrofitAutoConfiguration {
         retrofitConfigBean.setLoggingInterceptor(loggingInterceptor);
         retrofitConfigBean.setErrorDecoderInterceptor(errorDecoderInterceptor);
         retrofitConfigBean.setGlobalCallAdapterFactoryClasses(retrofitProperties.getGlobalCallAdapterFactories());
-        retrofitConfigBean.setGlobalConverterFactoryClasses(retrofitProperties.getGlobalConverterFactories());
+        retrofitConfigBean.setGlobalConverterFactoryClasses(
+                resolveGlobalConverterFactories(beanFactory));
         retrofitConfigBean.setSourceOkHttpClientRegistry(sourceOkHttpClientRegistry);
+        retrofitConfigBean.setConnectionPoolRegistry(connectionPoolRegistry);
+        retrofitConfigBean.setDispatcher(createSharedDispatcher());
+        retrofitConfigBean.setHedgeDispatcher(createHedgeDispatcher());
+        retrofitConfigBean.setHedgeScheduler(Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "retrofit-hedge-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        retrofitConfigBean.setBlockingCallExecutor(retrofitBlockingCallExecutor);
+        GlobalHedgeProperty globalHedge = retrofitProperties.getGlobalHedge();
+        retrofitConfigBean.setGlobalHedgeBudget(new RetryBudget(globalHedge.getWindowMs(),
+                globalHedge.getHedgeRatio(), globalHedge.getMinHedgesPerSecond(), null));
         return retrofitConfigBean;
     }
 
+    private Dispatcher createHedgeDispatcher() {
+        int maxConcurrentAttempts = retrofitProperties.getGlobalHedge().getMaxConcurrentAttempts();
+        ExecutorService executor = null;
+        if (retrofitProperties.getVirtualThreads().isEnable()) {
+            executor = VirtualThreads.newVirtualThreadPerTaskExecutor("retrofit-hedge-");
+        }
+        if (executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            // 无界队列不会拒绝任务，并发数由Dispatcher限制
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxConcurrentAttempts,
+                    maxConcurrentAttempts, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "retrofit-hedge-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            executor = threadPoolExecutor;
+        }
+        Dispatcher dispatcher = new Dispatcher(executor);
+        dispatcher.setMaxRequests(maxConcurrentAttempts);
+        dispatcher.setMaxRequestsPerHost(maxConcurrentAttempts);
+        return dispatcher;
+    }
+
+    private Dispatcher createSharedDispatcher() {
+        VirtualThreadProperty virtualThreads = retrofitProperties.getVirtualThreads();
+        if (virtualThreads.isEnable()) {
+            ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor("retrofit-dispatcher-");
+            if (executor != null) {
+                Dispatcher dispatcher = new Dispatcher(executor);
+                dispatcher.setMaxRequests(virtualThreads.getMaxRequests());
+                dispatcher.setMaxRequestsPerHost(virtualThreads.getMaxRequestsPerHost());
+                return dispatcher;
+            }
+            log.warn("Virtual threads require Java 21 or later, the dispatcher falls back to platform threads");
+        }
+        GlobalDispatcherProperty globalDispatcher = retrofitProperties.getGlobalDispatcher();
+        if (!globalDispatcher.isEnable()) {
+            return null;
+        }
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(globalDispatcher.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(globalDispatcher.getMaxRequestsPerHost());
+        return dispatcher;
+    }
+
     @Configuration
     @Import({AutoConfiguredRetrofitScannerRegistrar.class})
     @ConditionalOnMissingBean(RetrofitFactoryBean.class)
@@ -2,7 +2,12 @@ package com.github.lianjiatech.retrofit.spring.boot.config;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
+import org.springframework.beans.factory.DisposableBean;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.BlockingCallExecutor;
+import com.github.lianjiatech.retrofit.spring.boot.core.ConnectionPoolRegistry;
 import com.github.lianjiatech.retrofit.spring.boot.core.SourceOkHttpClientRegistry;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
@@ -10,9 +15,11 @@ import com.github.lianjiatech.retrofit.spring.boot.interceptor.GlobalInterceptor
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.NetworkInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.log.LoggingInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudget;
 import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
 
 import lombok.Data;
+import okhttp3.Dispatcher;
 import retrofit2.CallAdapter;
 import retrofit2.Converter;
 
@@ -20,7 +27,7 @@ import retrofit2.Converter;
  * @author 陈添明
  */
 @Data
-public class RetrofitConfigBean {
+public class RetrofitConfigBean implements DisposableBean {
 
     private final RetrofitProperties retrofitProperties;
 
@@ -44,6 +51,33 @@ public class RetrofitConfigBean {
 
     private SourceOkHttpClientRegistry sourceOkHttpClientRegistry;
 
+    private ConnectionPoolRegistry connectionPoolRegistry;
+
+    /**
+     * 共享调度器，未启用全局共享调度器时为null
+     */
+    private Dispatcher dispatcher;
+
+    /**
+     * 对冲请求的调度器，所有接口共享，并发数有上限
+     */
+    private Dispatcher hedgeDispatcher;
+
+    /**
+     * 触发对冲请求的定时器，所有接口共享
+     */
+    private ScheduledExecutorService hedgeScheduler;
+
+    /**
+     * 全局对冲预算
+     */
+    private RetryBudget globalHedgeBudget;
+
+    /**
+     * 执行同步调用的线程池，分段并行下载使用
+     */
+    private BlockingCallExecutor blockingCallExecutor;
+
     public RetrofitConfigBean(RetrofitProperties retrofitProperties) {
         this.retrofitProperties = retrofitProperties;
     }
@@ -61,4 +95,23 @@ public class RetrofitConfigBean {
         }
         return networkInterceptors;
     }
+
+    @Override
+    public void destroy() {
+        shutdown(dispatcher);
+        shutdown(hedgeDispatcher);
+        if (hedgeScheduler != null) {
+            hedgeScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 取消调度器中的所有请求并关闭其线程池(包括虚拟线程线程池)
+     */
+    private static void shutdown(Dispatcher dispatcher) {
+        if (dispatcher != null) {
+            dispatcher.cancelAll();
+            dispatcher.executorService().shutdown();
+        }
+    }
 }
@@ -1,18 +1,27 @@
 package com.github.lianjiatech.retrofit.spring.boot.config;
 
 import com.github.lianjiatech.retrofit.spring.boot.core.BasicTypeConverterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.CachingJacksonConverterFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
 import com.github.lianjiatech.retrofit.spring.boot.core.Constants;
+import com.github.lianjiatech.retrofit.spring.boot.core.StreamingRequestBodyConverterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineProperty;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.DegradeProperty;
+import com.github.lianjiatech.retrofit.spring.boot.download.RangedDownloadProperty;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.GlobalHedgeProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LoadBalancerProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.OutlierDetectionProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstanceCacheProperty;
 import com.github.lianjiatech.retrofit.spring.boot.log.GlobalLogProperty;
 import com.github.lianjiatech.retrofit.spring.boot.retry.GlobalRetryProperty;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudgetProperty;
+import com.github.lianjiatech.retrofit.spring.boot.sse.SseProperty;
 
 import lombok.Data;
 import retrofit2.CallAdapter;
 import retrofit2.Converter;
-import retrofit2.converter.jackson.JacksonConverterFactory;
 
 /**
  * @author 陈添明
@@ -34,6 +43,78 @@ public class RetrofitProperties {
     @NestedConfigurationProperty
     private GlobalRetryProperty globalRetry = new GlobalRetryProperty();
 
+    /**
+     * 重试预算配置
+     * <p>
+     * retry budget config
+     */
+    @NestedConfigurationProperty
+    private RetryBudgetProperty retryBudget = new RetryBudgetProperty();
+
+    /**
+     * 全局对冲预算配置
+     * <p>
+     * hedge budget config
+     */
+    @NestedConfigurationProperty
+    private GlobalHedgeProperty globalHedge = new GlobalHedgeProperty();
+
+    /**
+     * 负载均衡配置
+     * <p>
+     * load balancer config
+     */
+    @NestedConfigurationProperty
+    private LoadBalancerProperty loadBalancer = new LoadBalancerProperty();
+
+    /**
+     * 服务实例列表缓存配置
+     * <p>
+     * service instance list cache config
+     */
+    @NestedConfigurationProperty
+    private ServiceInstanceCacheProperty serviceInstanceCache = new ServiceInstanceCacheProperty();
+
+    /**
+     * 异常实例摘除配置
+     * <p>
+     * outlier detection config
+     */
+    @NestedConfigurationProperty
+    private OutlierDetectionProperty outlierDetection = new OutlierDetectionProperty();
+
+    /**
+     * 截止时间传递配置
+     * <p>
+     * deadline propagation config
+     */
+    @NestedConfigurationProperty
+    private DeadlineProperty deadline = new DeadlineProperty();
+
+    /**
+     * Server-Sent Events配置
+     * <p>
+     * Server-Sent Events config
+     */
+    @NestedConfigurationProperty
+    private SseProperty sse = new SseProperty();
+
+    /**
+     * 分段并行下载配置
+     * <p>
+     * ranged download config
+     */
+    @NestedConfigurationProperty
+    private RangedDownloadProperty rangedDownload = new RangedDownloadProperty();
+
+    /**
+     * Jackson转换器配置
+     * <p>
+     * jackson converter config
+     */
+    @NestedConfigurationProperty
+    private JacksonConverterProperty jackson = new JacksonConverterProperty();
+
     /**
      * 熔断降级配置
      * <p>
@@ -56,6 +137,26 @@ public class RetrofitProperties {
     @NestedConfigurationProperty
     private GlobalTimeoutProperty globalTimeout = new GlobalTimeoutProperty();
 
+    /**
+     * 全局共享连接池配置
+     */
+    @NestedConfigurationProperty
+    private GlobalConnectionPoolProperty globalConnectionPool = new GlobalConnectionPoolProperty();
+
+    /**
+     * 全局共享调度器配置
+     */
+    @NestedConfigurationProperty
+    private GlobalDispatcherProperty globalDispatcher = new GlobalDispatcherProperty();
+
+    /**
+     * 虚拟线程配置
+     * <p>
+     * virtual thread config
+     */
+    @NestedConfigurationProperty
+    private VirtualThreadProperty virtualThreads = new VirtualThreadProperty();
+
     /**
      * 全局转换器工厂，转换器实例优先从Spring容器获取，如果没有获取到，则反射创建。
      * <p>
@@ -64,7 +165,7 @@ public class RetrofitProperties {
     @SuppressWarnings("unchecked")
     private Class<? extends Converter.Factory>[] globalConverterFactories =
             (Class<? extends Converter.Factory>[])new Class[] {BasicTypeConverterFactory.class,
-                JacksonConverterFactory.class};
+                StreamingRequestBodyConverterFactory.class, CachingJacksonConverterFactory.class};
 
     /**
      * 全局调用适配器工厂，适配器实例优先从Spring容器获取，如果没有获取到，则反射创建。
@@ -0,0 +1,34 @@
+package com.github.lianjiatech.retrofit.spring.boot.config;
+
+import lombok.Data;
+
+/**
+ * 虚拟线程配置，需要运行在Java 21及以上版本，低版本时自动回退为平台线程。
+ * 启用后，所有接口共享一个使用虚拟线程执行异步请求的Dispatcher，优先于global-dispatcher配置。
+ * <p>
+ * Virtual thread config. Requires Java 21 or later and falls back to platform threads otherwise. When enabled, all
+ * interfaces share one Dispatcher that runs asynchronous calls on virtual threads, taking precedence over
+ * global-dispatcher.
+ *
+ * @author 陈添明
+ */
+@Data
+public class VirtualThreadProperty {
+
+    /**
+     * 是否启用虚拟线程
+     * <p>
+     * Whether to run asynchronous and fan-out calls on virtual threads
+     */
+    private boolean enable = false;
+
+    /**
+     * 最大并发异步请求数。虚拟线程足够廉价，该值主要用于保护下游
+     */
+    private int maxRequests = 1024;
+
+    /**
+     * 每个host最大并发异步请求数
+     */
+    private int maxRequestsPerHost = 256;
+}
@@ -6,12 +6,24 @@ import java.lang.reflect.Type;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import okhttp3.MediaType;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
 import retrofit2.Converter;
 import retrofit2.Retrofit;
 
 /**
+ * 基础类型转换器，支持String以及Integer/Long/Boolean/Float/Double和对应的原始类型。按照Class直接匹配；整数和布尔值直接从响应体的字节流中解析，
+ * 不创建中间的String。数字和布尔类型的请求体以application/json发送，内容与JSON序列化的结果完全相同；String请求体仍然交给后续的转换器处理。
+ * <p>
+ * Converter for String, Integer/Long/Boolean/Float/Double and their primitive types, matched on Class identity.
+ * Integers and booleans are parsed straight from the bytes of the response body without an intermediate String.
+ * Number and boolean request bodies are sent as application/json with exactly the bytes a JSON serializer would
+ * write; String request bodies are left to the next converter.
+ *
  * @author 陈添明
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -19,73 +31,183 @@ public final class BasicTypeConverterFactory extends Converter.Factory {
 
     public static final BasicTypeConverterFactory INSTANCE = new BasicTypeConverterFactory();
 
+    private static final MediaType APPLICATION_JSON = MediaType.get("application/json; charset=UTF-8");
+
     @Override
     public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations,
             Annotation[] methodAnnotations, Retrofit retrofit) {
+        if (type == Integer.class || type == int.class || type == Long.class || type == long.class) {
+            return (Number value) -> new DecimalRequestBody(value.longValue());
+        }
+        if (type == Boolean.class || type == boolean.class || type == Float.class || type == float.class
+                || type == Double.class || type == double.class) {
+            return value -> RequestBody.create(APPLICATION_JSON, String.valueOf(value));
+        }
         return null;
     }
 
     @Override
     public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
-        if (String.class.getTypeName().equals(type.getTypeName())) {
-            return new StringResponseConverter();
-        } else if (Integer.class.getTypeName().equals(type.getTypeName())) {
-            return new IntegerResponseConverter();
-        } else if (Long.class.getTypeName().equals(type.getTypeName())) {
-            return new LongResponseConverter();
-        } else if (Boolean.class.getTypeName().equals(type.getTypeName())) {
-            return new BooleanResponseConverter();
-        } else if (Float.class.getTypeName().equals(type.getTypeName())) {
-            return new FloatResponseConverter();
-        } else if (Double.class.getTypeName().equals(type.getTypeName())) {
-            return new DoubleResponseConverter();
-        } else {
-            return null;
+        if (type == String.class) {
+            return StringResponseConverter.INSTANCE;
+        }
+        if (type == Long.class || type == long.class) {
+            return LongResponseConverter.INSTANCE;
+        }
+        if (type == Integer.class || type == int.class) {
+            return IntegerResponseConverter.INSTANCE;
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return BooleanResponseConverter.INSTANCE;
         }
+        if (type == Double.class || type == double.class) {
+            return DoubleResponseConverter.INSTANCE;
+        }
+        if (type == Float.class || type == float.class) {
+            return FloatResponseConverter.INSTANCE;
+        }
+        return null;
+    }
 
+    /**
+     * 从响应体中解析十进制整数，允许首尾空白，其它多余字符抛出NumberFormatException
+     */
+    private static long readDecimalLong(ResponseBody value) throws IOException {
+        try (ResponseBody body = value) {
+            BufferedSource source = body.source();
+            skipWhitespace(source);
+            if (source.exhausted()) {
+                throw new NumberFormatException("Empty response body");
+            }
+            long result = source.readDecimalLong();
+            skipWhitespace(source);
+            if (!source.exhausted()) {
+                throw new NumberFormatException("Unexpected trailing characters after " + result);
+            }
+            return result;
+        }
+    }
+
+    private static void skipWhitespace(BufferedSource source) throws IOException {
+        while (source.request(1) && isWhitespace(source.getBuffer().getByte(0))) {
+            source.skip(1);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
     }
 
     private static final class StringResponseConverter implements Converter<ResponseBody, String> {
 
+        static final StringResponseConverter INSTANCE = new StringResponseConverter();
+
         @Override
         public String convert(ResponseBody value) throws IOException {
             return value.string();
         }
     }
 
-    private static class IntegerResponseConverter implements Converter<ResponseBody, Integer> {
+    private static final class IntegerResponseConverter implements Converter<ResponseBody, Integer> {
+
+        static final IntegerResponseConverter INSTANCE = new IntegerResponseConverter();
 
         @Override
         public Integer convert(ResponseBody value) throws IOException {
-            return Integer.valueOf(value.string());
+            long result = readDecimalLong(value);
+            if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Value out of int range: " + result);
+            }
+            return (int)result;
         }
     }
 
-    private static class LongResponseConverter implements Converter<ResponseBody, Long> {
+    private static final class LongResponseConverter implements Converter<ResponseBody, Long> {
+
+        static final LongResponseConverter INSTANCE = new LongResponseConverter();
+
         @Override
         public Long convert(ResponseBody value) throws IOException {
-            return Long.valueOf(value.string());
+            return readDecimalLong(value);
         }
     }
 
-    private static class BooleanResponseConverter implements Converter<ResponseBody, Boolean> {
+    /**
+     * 与Boolean.valueOf保持一致：忽略大小写等于true时为true，否则为false
+     */
+    private static final class BooleanResponseConverter implements Converter<ResponseBody, Boolean> {
+
+        static final BooleanResponseConverter INSTANCE = new BooleanResponseConverter();
+
+        private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
         @Override
         public Boolean convert(ResponseBody value) throws IOException {
-            return Boolean.valueOf(value.string());
+            try (ResponseBody body = value) {
+                BufferedSource source = body.source();
+                if (!source.request(TRUE.length)) {
+                    return false;
+                }
+                Buffer buffer = source.getBuffer();
+                for (int i = 0; i < TRUE.length; i++) {
+                    if ((buffer.getByte(i) | 0x20) != TRUE[i]) {
+                        return false;
+                    }
+                }
+                source.skip(TRUE.length);
+                return source.exhausted();
+            }
         }
     }
 
-    private static class FloatResponseConverter implements Converter<ResponseBody, Float> {
+    private static final class FloatResponseConverter implements Converter<ResponseBody, Float> {
+
+        static final FloatResponseConverter INSTANCE = new FloatResponseConverter();
+
         @Override
         public Float convert(ResponseBody value) throws IOException {
             return Float.valueOf(value.string());
         }
     }
 
-    private static class DoubleResponseConverter implements Converter<ResponseBody, Double> {
+    private static final class DoubleResponseConverter implements Converter<ResponseBody, Double> {
+
+        static final DoubleResponseConverter INSTANCE = new DoubleResponseConverter();
+
         @Override
         public Double convert(ResponseBody value) throws IOException {
             return Double.valueOf(value.string());
         }
     }
+
+    /**
+     * 直接将十进制数字写入连接
+     */
+    private static final class DecimalRequestBody extends RequestBody {
+
+        private final long value;
+
+        DecimalRequestBody(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return APPLICATION_JSON;
+        }
+
+        @Override
+        public long contentLength() {
+            long length = value < 0 ? 2 : 1;
+            for (long remaining = Math.abs(value / 10); remaining > 0; remaining /= 10) {
+                length++;
+            }
+            return length;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.writeDecimalLong(value);
+        }
+    }
 }
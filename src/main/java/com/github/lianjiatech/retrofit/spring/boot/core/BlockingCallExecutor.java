@@ -0,0 +1,122 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.VirtualThreads;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 并发执行多个同步的Retrofit调用。启用虚拟线程时每个调用运行在一个虚拟线程上，阻塞等待响应不占用平台线程；否则使用平台线程池。
+ * <p>
+ * Runs blocking Retrofit calls concurrently for fan-out. With virtual threads enabled each call runs on its own
+ * virtual thread, so waiting for a response does not pin a platform thread; otherwise a platform thread pool is used.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class BlockingCallExecutor implements DisposableBean {
+
+    private final ExecutorService executor;
+
+    private final boolean virtual;
+
+    public BlockingCallExecutor(boolean virtualThreads) {
+        ExecutorService virtualExecutor =
+                virtualThreads ? VirtualThreads.newVirtualThreadPerTaskExecutor("retrofit-call-") : null;
+        if (virtualThreads && virtualExecutor == null) {
+            log.warn("Virtual threads require Java 21 or later, fall back to platform threads");
+        }
+        this.virtual = virtualExecutor != null;
+        this.executor = virtualExecutor != null ? virtualExecutor : newPlatformExecutor();
+    }
+
+    private static ExecutorService newPlatformExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "retrofit-call-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 异步执行一个同步调用
+     *
+     * @param call 同步调用
+     * @param <T> 返回值类型
+     * @return 调用结果
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 并发执行所有调用，按顺序返回结果。任意一个调用失败时，取消其它调用并抛出该异常
+     * <p>
+     * Runs all calls concurrently and returns the results in order. If any call fails, the others are cancelled and
+     * its exception is rethrown.
+     *
+     * @param calls 同步调用
+     * @param <T> 返回值类型
+     * @return 调用结果
+     */
+    public <T> List<T> invokeAll(Collection<? extends Callable<T>> calls) {
+        List<Future<T>> futures = new ArrayList<>(calls.size());
+        for (Callable<T> call : calls) {
+            futures.add(executor.submit(call));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new CompletionException(cause);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 是否使用虚拟线程执行
+     *
+     * @return 是否虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
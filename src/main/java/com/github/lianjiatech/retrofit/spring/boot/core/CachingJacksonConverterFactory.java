@@ -0,0 +1,158 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Jackson转换器，按照Type缓存ObjectReader和ObjectWriter，所有接口共享。响应体直接从字节流中解析，不经过字符解码；
+ * 请求体直接序列化到okio缓冲区(使用Content-Length发送)，或者直接序列化到连接中(使用分块传输)，不创建中间的byte[]。
+ * <p>
+ * Jackson converter that caches an ObjectReader and ObjectWriter per Type, shared by all interfaces. Response bodies
+ * are parsed straight from the byte stream without decoding characters first. Request bodies are serialized into an
+ * okio buffer and sent with Content-Length, or straight into the connection with chunked transfer encoding, without
+ * an intermediate byte[].
+ *
+ * @author 陈添明
+ */
+public final class CachingJacksonConverterFactory extends Converter.Factory {
+
+    private static final MediaType APPLICATION_JSON = MediaType.get("application/json; charset=UTF-8");
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean chunkedRequestBody;
+
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final Map<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private CachingJacksonConverterFactory(ObjectMapper objectMapper, boolean chunkedRequestBody) {
+        this.objectMapper = objectMapper;
+        this.chunkedRequestBody = chunkedRequestBody;
+    }
+
+    public static CachingJacksonConverterFactory create() {
+        return create(new ObjectMapper());
+    }
+
+    public static CachingJacksonConverterFactory create(ObjectMapper objectMapper) {
+        return create(objectMapper, false);
+    }
+
+    public static CachingJacksonConverterFactory create(ObjectMapper objectMapper, boolean chunkedRequestBody) {
+        if (objectMapper == null) {
+            throw new NullPointerException("objectMapper == null");
+        }
+        return new CachingJacksonConverterFactory(objectMapper, chunkedRequestBody);
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        ObjectReader reader = readers.computeIfAbsent(type,
+                key -> objectMapper.readerFor(objectMapper.getTypeFactory().constructType(key)));
+        return value -> {
+            try (ResponseBody body = value) {
+                // Jackson能够自动识别UTF-8/16/32编码，其它字符集需要先解码
+                Charset charset = body.contentType() == null ? null : body.contentType().charset();
+                if (charset == null || isUnicode(charset)) {
+                    return reader.readValue(body.byteStream());
+                }
+                return reader.readValue(body.charStream());
+            }
+        };
+    }
+
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations,
+            Annotation[] methodAnnotations, Retrofit retrofit) {
+        // 输出流由OkHttp管理，序列化完成之后不能关闭
+        ObjectWriter writer = writers.computeIfAbsent(type,
+                key -> objectMapper.writerFor(objectMapper.getTypeFactory().constructType(key))
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+        if (chunkedRequestBody) {
+            return value -> new ChunkedJsonRequestBody(writer, value);
+        }
+        return value -> {
+            Buffer buffer = new Buffer();
+            writer.writeValue(buffer.outputStream(), value);
+            return new BufferedJsonRequestBody(buffer);
+        };
+    }
+
+    private static boolean isUnicode(Charset charset) {
+        return charset == StandardCharsets.UTF_8 || charset == StandardCharsets.UTF_16
+                || charset == StandardCharsets.UTF_16BE || charset == StandardCharsets.UTF_16LE
+                || "UTF-32".equals(charset.name());
+    }
+
+    /**
+     * 已经序列化到okio缓冲区的请求体，写入时共享缓冲区的Segment，可以重复发送
+     */
+    private static final class BufferedJsonRequestBody extends RequestBody {
+
+        private final Buffer buffer;
+
+        BufferedJsonRequestBody(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return APPLICATION_JSON;
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Buffer copy = buffer.clone();
+            sink.write(copy, copy.size());
+        }
+    }
+
+    /**
+     * 每次写入时直接序列化到连接中
+     */
+    private static final class ChunkedJsonRequestBody extends RequestBody {
+
+        private final ObjectWriter writer;
+
+        private final Object value;
+
+        ChunkedJsonRequestBody(ObjectWriter writer, Object value) {
+            this.writer = writer;
+            this.value = value;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return APPLICATION_JSON;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            writer.writeValue(sink.outputStream(), value);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 调用开始的时间，创建Call时作为请求的tag记录。Retrofit在execute/enqueue时才创建Call，因此包含了异步调用的排队时间。
+ * <p>
+ * Start time of a call, recorded as a request tag when the call is created. Retrofit creates the call on
+ * execute/enqueue, so the time an asynchronous call spends queued is included.
+ *
+ * @author 陈添明
+ */
+@Getter
+@AllArgsConstructor
+public final class CallStartTime {
+
+    /**
+     * System.nanoTime()表示的开始时间
+     */
+    private final long nanoTime;
+}
@@ -0,0 +1,41 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.config.GlobalConnectionPoolProperty;
+
+import okhttp3.ConnectionPool;
+
+/**
+ * 共享连接池注册中心，按照目标host维护连接池
+ *
+ * @author 陈添明
+ */
+public class ConnectionPoolRegistry {
+
+    private final Map<String, ConnectionPool> connectionPoolMap = new ConcurrentHashMap<>(16);
+
+    private final GlobalConnectionPoolProperty globalConnectionPoolProperty;
+
+    public ConnectionPoolRegistry(GlobalConnectionPoolProperty globalConnectionPoolProperty) {
+        this.globalConnectionPoolProperty = globalConnectionPoolProperty;
+    }
+
+    /**
+     * 获取指定host对应的连接池，不存在则创建
+     *
+     * @param host 目标host，格式为host:port
+     * @return 连接池
+     */
+    public ConnectionPool get(String host) {
+        return connectionPoolMap.computeIfAbsent(host,
+                key -> new ConnectionPool(globalConnectionPoolProperty.getMaxIdleConnections(),
+                        globalConnectionPoolProperty.getKeepAliveDurationMs(), TimeUnit.MILLISECONDS));
+    }
+
+    public Map<String, ConnectionPool> getAll() {
+        return connectionPoolMap;
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.lang.reflect.Method;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.sentinel.SentinelDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.Hedge;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.LatencyHistogram;
+import com.github.lianjiatech.retrofit.spring.boot.log.Logging;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudget;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryStrategy;
+
+import lombok.Data;
+
+/**
+ * 接口方法的调用元数据，在创建Retrofit接口实例时预先解析，避免每次请求都重新解析注解。
+ * <p>
+ * Invocation metadata of an interface method, resolved when the retrofit client is created.
+ *
+ * @author 陈添明
+ */
+@Data
+public class MethodMetadata {
+
+    /**
+     * 接口方法
+     */
+    private Method method;
+
+    /**
+     * Retrofit接口
+     */
+    private Class<?> service;
+
+    /**
+     * 接口上的@RetrofitClient注解
+     */
+    private RetrofitClient retrofitClient;
+
+    /**
+     * 是否是异步返回值类型（Mono、Single、Completable、CompletableFuture），异步调用的重试不阻塞线程
+     */
+    private boolean async;
+
+    /**
+     * 是否是@RangedDownload分段下载方法，非2xx响应由分段下载器决定是否重新下载之后再解码
+     */
+    private boolean rangedDownload;
+
+    /**
+     * 响应体是否以流的方式读取(事件流、Flux、Path、InputStream等)，这种方法的日志不打印响应体
+     */
+    private boolean streamingResponse;
+
+    /**
+     * 方法或接口上的@Retry注解，不存在时为null
+     */
+    private Retry retry;
+
+    /**
+     * 重试策略，同一个方法的所有调用共享
+     */
+    private RetryStrategy retryStrategy;
+
+    /**
+     * 重试预算，同一个接口的所有方法共享，未启用时为null
+     */
+    private RetryBudget retryBudget;
+
+    /**
+     * 方法或接口上启用的@Hedge注解，不存在或者未启用时为null
+     */
+    private Hedge hedge;
+
+    /**
+     * 方法耗时直方图，仅在@Hedge配置了delayPercentile时存在
+     */
+    private LatencyHistogram latencyHistogram;
+
+    /**
+     * 带有@RouteKey注解的参数下标，不存在时为-1
+     */
+    private int routeKeyIndex = -1;
+
+    /**
+     * 方法或接口上的@Logging注解，不存在时为null
+     */
+    private Logging logging;
+
+    /**
+     * 方法或接口上的@SentinelDegrade注解，不存在时为null
+     */
+    private SentinelDegrade sentinelDegrade;
+
+    /**
+     * 熔断降级资源名称，未启用熔断降级时为null
+     */
+    private String resourceName;
+
+    /**
+     * 当前接口使用的错误解码器
+     */
+    private ErrorDecoder errorDecoder;
+
+    /**
+     * 超时时间，方法上配置了@Timeout时以其为准
+     */
+    private int connectTimeoutMs;
+
+    private int readTimeoutMs;
+
+    private int writeTimeoutMs;
+
+    private int callTimeoutMs;
+}
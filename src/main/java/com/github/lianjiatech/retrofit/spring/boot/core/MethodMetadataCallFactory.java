@@ -0,0 +1,80 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceInstanceSelection;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+/**
+ * 将方法元数据作为请求的tag，拦截器通过{@code request.tag(MethodMetadata.class)}直接获取。
+ * 元数据由每个接口实例自己持有，不同的ApplicationContext之间互不影响。
+ * <p>
+ * 注意：{@link Invocation#method()}与{@link Class#getMethods()}返回的并不是同一个Method对象，因此这里按照equals而非identity查找。
+ * <p>
+ * Tags every request with its method metadata so interceptors can read it through
+ * {@code request.tag(MethodMetadata.class)}. Each interface instance owns its metadata, so application contexts do not
+ * interfere with each other.
+ *
+ * @author 陈添明
+ */
+public final class MethodMetadataCallFactory implements Call.Factory {
+
+    /**
+     * 当前线程上创建的请求需要携带的服务实例选择记录
+     */
+    private static final ThreadLocal<ServiceInstanceSelection> SELECTION = new ThreadLocal<>();
+
+    private final OkHttpClient delegate;
+
+    private final Map<Method, MethodMetadata> methodMetadataMap;
+
+    public MethodMetadataCallFactory(OkHttpClient delegate, Map<Method, MethodMetadata> methodMetadataMap) {
+        this.delegate = delegate;
+        this.methodMetadataMap = methodMetadataMap;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        if (request.tag(MethodMetadata.class) != null) {
+            return delegate.newCall(request);
+        }
+        Invocation invocation = request.tag(Invocation.class);
+        MethodMetadata methodMetadata = invocation == null ? null : methodMetadataMap.get(invocation.method());
+        if (methodMetadata == null) {
+            return delegate.newCall(request);
+        }
+        Request.Builder builder = request.newBuilder()
+                .tag(MethodMetadata.class, methodMetadata)
+                .tag(CallStartTime.class, new CallStartTime(System.nanoTime()));
+        ServiceInstanceSelection selection = SELECTION.get();
+        if (selection != null) {
+            builder.tag(ServiceInstanceSelection.class, selection);
+        }
+        return delegate.newCall(builder.build());
+    }
+
+    /**
+     * 创建Call的请求，并携带指定的服务实例选择记录。Retrofit的Call.clone()会重新构建请求，之前请求的tag都会丢失，
+     * 异步重试通过这种方式让同一次调用的所有请求共享选择记录，避开已经尝试过的实例。
+     * 请求已经创建过时不会再携带选择记录；创建失败时忽略，执行Call时会再次报告异常。
+     *
+     * @param call Retrofit Call
+     * @param selection 服务实例选择记录
+     * @return 请求，创建失败时为null
+     */
+    public static Request createRequest(retrofit2.Call<?> call, ServiceInstanceSelection selection) {
+        SELECTION.set(selection);
+        try {
+            return call.request();
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            SELECTION.remove();
+        }
+    }
+}
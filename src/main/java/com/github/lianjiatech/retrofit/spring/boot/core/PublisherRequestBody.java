@@ -0,0 +1,149 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * 以Publisher&lt;ByteBuffer&gt;或者Publisher&lt;DataBuffer&gt;作为请求体，写入时每次只请求一个元素，写入连接之后再请求下一个，
+ * 内存占用与请求体大小无关。单独成类，避免没有reactive-streams依赖时加载失败。
+ * <p>
+ * Request body backed by a Publisher&lt;ByteBuffer&gt; or Publisher&lt;DataBuffer&gt;. Only one element is requested at
+ * a time and the next one is requested after it has been written, so memory use does not depend on the body size. It
+ * is a separate class so that nothing fails to load when reactive-streams is absent.
+ *
+ * @author 陈添明
+ */
+final class PublisherRequestBody extends RequestBody {
+
+    private static final Object COMPLETE = new Object();
+
+    private final Publisher<?> publisher;
+
+    private PublisherRequestBody(Publisher<?> publisher) {
+        this.publisher = publisher;
+    }
+
+    static boolean isSupported(Class<?> rawType, Class<?> elementRawType) {
+        return Publisher.class.isAssignableFrom(rawType) && (ByteBuffer.class.isAssignableFrom(elementRawType)
+                || DataBuffer.class.isAssignableFrom(elementRawType));
+    }
+
+    static RequestBody create(Object publisher) {
+        return new PublisherRequestBody((Publisher<?>)publisher);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return StreamingRequestBodyConverterFactory.OCTET_STREAM;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        BlockingSubscriber subscriber = new BlockingSubscriber();
+        publisher.subscribe(subscriber);
+        boolean completed = false;
+        try {
+            while (true) {
+                Object signal = subscriber.signals.take();
+                if (signal == COMPLETE) {
+                    completed = true;
+                    return;
+                }
+                if (signal instanceof Throwable) {
+                    completed = true;
+                    throw new IOException("Request body publisher failed", (Throwable)signal);
+                }
+                write(signal, sink);
+                subscriber.subscription.request(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the request body publisher");
+        } finally {
+            if (!completed) {
+                subscriber.cancel();
+            }
+        }
+    }
+
+    private static void write(Object element, BufferedSink sink) throws IOException {
+        if (element instanceof ByteBuffer) {
+            ByteBuffer byteBuffer = (ByteBuffer)element;
+            while (byteBuffer.hasRemaining()) {
+                sink.write(byteBuffer);
+            }
+            return;
+        }
+        DataBuffer dataBuffer = (DataBuffer)element;
+        try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer byteBuffer = iterator.next();
+                while (byteBuffer.hasRemaining()) {
+                    sink.write(byteBuffer);
+                }
+            }
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+
+    private static final class BlockingSubscriber implements Subscriber<Object> {
+
+        private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+
+        private volatile Subscription subscription;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Object element) {
+            signals.add(element);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            signals.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add(COMPLETE);
+        }
+
+        void cancel() {
+            Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            // 丢弃已经收到但没有写入的元素
+            Object signal;
+            while ((signal = signals.poll()) != null) {
+                if (signal instanceof DataBuffer) {
+                    DataBufferUtils.release((DataBuffer)signal);
+                }
+            }
+        }
+    }
+}
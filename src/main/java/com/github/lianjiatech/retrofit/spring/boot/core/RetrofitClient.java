@@ -156,4 +156,14 @@ public @interface RetrofitClient {
      */
     int callTimeoutMs() default Constants.INVALID_TIMEOUT_VALUE;
 
+    /**
+     * 是否使用独立的连接池和调度器。默认情况下，如果启用了全局共享连接池(retrofit.global-connection-pool)或者全局共享调度器(retrofit.global-dispatcher)，
+     * 当前接口会使用共享的连接池和调度器；配置为true时，当前接口使用独立的连接池和调度器。
+     * <p>
+     * Whether to use an isolated connection pool and dispatcher instead of the shared ones.
+     *
+     * @return isolatedConnectionPool
+     */
+    boolean isolatedConnectionPool() default false;
+
 }
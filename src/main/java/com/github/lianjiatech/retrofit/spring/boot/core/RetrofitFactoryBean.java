@@ -1,8 +1,15 @@
 package com.github.lianjiatech.retrofit.spring.boot.core;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,21 +29,52 @@ import org.springframework.util.StringUtils;
 
 import com.github.lianjiatech.retrofit.spring.boot.config.GlobalTimeoutProperty;
 import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitProperties;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.FluxCallAdapterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.MonoCallAdapterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava2CompletableCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava2FlowableCallAdapterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava2SingleCallAdapterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava3CompletableCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava3FlowableCallAdapterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava3SingleCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.ServerSentEventCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineProperty;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.DegradeProxy;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.ResourceNameParser;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.sentinel.SentinelDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.download.DownloadProgressInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.download.RangedDownload;
+import com.github.lianjiatech.retrofit.spring.boot.download.RangedDownloadCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.GlobalHedgeProperty;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.Hedge;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.HedgeInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.LatencyHistogram;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.PrimaryAttempt;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.BasePathMatchInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.Intercept;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.InterceptMark;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.Intercepts;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.RouteKey;
+import com.github.lianjiatech.retrofit.spring.boot.log.Logging;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudget;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.sse.ServerSentEvent;
+import com.github.lianjiatech.retrofit.spring.boot.timeout.Timeout;
+import com.github.lianjiatech.retrofit.spring.boot.timeout.TimeoutCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.timeout.TimeoutInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
 import com.github.lianjiatech.retrofit.spring.boot.util.AppContextUtils;
 import com.github.lianjiatech.retrofit.spring.boot.util.BeanExtendUtils;
 import com.github.lianjiatech.retrofit.spring.boot.util.RetrofitUtils;
 
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import retrofit2.CallAdapter;
@@ -48,6 +86,11 @@ import retrofit2.Retrofit;
  */
 public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware, ApplicationContextAware {
 
+    /**
+     * 对冲请求耗时统计窗口
+     */
+    private static final long LATENCY_WINDOW_MS = 60000;
+
     private final Class<T> retrofitInterface;
 
     private Environment environment;
@@ -56,12 +99,24 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
 
     private ApplicationContext applicationContext;
 
+    /**
+     * 是否有方法启用了对冲请求
+     */
+    private boolean hedgeEnabled;
+
+    /**
+     * 接口下所有方法的元数据
+     */
+    private Map<Method, MethodMetadata> methodMetadataMap;
+
     public RetrofitFactoryBean(Class<T> retrofitInterface) {
         this.retrofitInterface = retrofitInterface;
     }
 
     @Override
     public T getObject() {
+        registerMethodMetadata();
+        prefetchServiceInstances();
         T source = createRetrofit().create(retrofitInterface);
         if (!isEnableDegrade(retrofitInterface)) {
             return source;
@@ -70,6 +125,23 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
         return DegradeProxy.create(source, retrofitInterface, applicationContext);
     }
 
+    /**
+     * 通过serviceId调用时，提前加载服务实例列表，避免第一次请求等待注册中心
+     */
+    private void prefetchServiceInstances() {
+        RetrofitClient retrofitClient =
+                AnnotatedElementUtils.findMergedAnnotation(retrofitInterface, RetrofitClient.class);
+        if (retrofitClient == null || StringUtils.hasText(retrofitClient.baseUrl())
+                || !StringUtils.hasText(retrofitClient.serviceId())) {
+            return;
+        }
+        ServiceInstanceChooser serviceInstanceChooser =
+                retrofitConfigBean.getServiceChooseInterceptor().getServiceInstanceChooser();
+        if (serviceInstanceChooser instanceof LoadBalancedServiceInstanceChooser) {
+            ((LoadBalancedServiceInstanceChooser)serviceInstanceChooser).prefetch(retrofitClient.serviceId());
+        }
+    }
+
     public boolean isEnableDegrade(Class<?> retrofitInterface) {
         RetrofitDegrade retrofitDegrade = retrofitConfigBean.getRetrofitDegrade();
         if (retrofitDegrade == null) {
@@ -78,6 +150,13 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
         return retrofitDegrade.isEnableDegrade(retrofitInterface);
     }
 
+    /**
+     * 接口下所有方法的元数据，{@link #getObject()}之后可用
+     */
+    public Map<Method, MethodMetadata> getMethodMetadataMap() {
+        return methodMetadataMap;
+    }
+
     @Override
     public Class<T> getObjectType() {
         return this.retrofitInterface;
@@ -88,7 +167,7 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
         return true;
     }
 
-    private OkHttpClient createOkHttpClient() {
+    private OkHttpClient createOkHttpClient(String baseUrl) {
         RetrofitClient retrofitClient =
                 AnnotatedElementUtils.findMergedAnnotation(retrofitInterface, RetrofitClient.class);
 
@@ -97,41 +176,212 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
             // 使用默认超时时间创建OkHttpClient
             GlobalTimeoutProperty globalTimeout = retrofitConfigBean.getRetrofitProperties().getGlobalTimeout();
 
-            int connectTimeoutMs = retrofitClient.connectTimeoutMs() == Constants.INVALID_TIMEOUT_VALUE
-                    ? globalTimeout.getConnectTimeoutMs() : retrofitClient.connectTimeoutMs();
-            int readTimeoutMs = retrofitClient.readTimeoutMs() == Constants.INVALID_TIMEOUT_VALUE
-                    ? globalTimeout.getReadTimeoutMs() : retrofitClient.readTimeoutMs();
-            int writeTimeoutMs = retrofitClient.writeTimeoutMs() == Constants.INVALID_TIMEOUT_VALUE
-                    ? globalTimeout.getWriteTimeoutMs() : retrofitClient.writeTimeoutMs();
-            int callTimeoutMs = retrofitClient.callTimeoutMs() == Constants.INVALID_TIMEOUT_VALUE
-                    ? globalTimeout.getCallTimeoutMs() : retrofitClient.callTimeoutMs();
+            int connectTimeoutMs =
+                    resolveTimeout(retrofitClient.connectTimeoutMs(), globalTimeout.getConnectTimeoutMs());
+            int readTimeoutMs = resolveTimeout(retrofitClient.readTimeoutMs(), globalTimeout.getReadTimeoutMs());
+            int writeTimeoutMs = resolveTimeout(retrofitClient.writeTimeoutMs(), globalTimeout.getWriteTimeoutMs());
+            int callTimeoutMs = resolveTimeout(retrofitClient.callTimeoutMs(), globalTimeout.getCallTimeoutMs());
 
             okHttpClientBuilder = new OkHttpClient.Builder()
                     .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
                     .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
                     .writeTimeout(writeTimeoutMs, TimeUnit.MILLISECONDS)
                     .callTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!retrofitClient.isolatedConnectionPool()) {
+                configureSharedResource(okHttpClientBuilder, baseUrl);
+            }
         } else {
             OkHttpClient sourceOkHttpClient = retrofitConfigBean.getSourceOkHttpClientRegistry()
                     .get(retrofitClient.sourceOkHttpClient());
             okHttpClientBuilder = sourceOkHttpClient.newBuilder();
         }
 
+        List<Interceptor> interceptors = new ArrayList<>();
+        interceptors.add(TimeoutInterceptor.INSTANCE);
+        interceptors.add(DownloadProgressInterceptor.INSTANCE);
+        boolean serviceIdClient = StringUtils.hasText(retrofitClient.serviceId());
+        if (serviceIdClient) {
+            // 自定义拦截器看到的是已经选择的实例地址
+            interceptors.add(retrofitConfigBean.getServiceChooseInterceptor().getUrlResolvingInterceptor());
+        }
+        interceptors.add(retrofitConfigBean.getErrorDecoderInterceptor());
+        interceptors.addAll(findInterceptorByAnnotation());
+        interceptors.addAll(retrofitConfigBean.getGlobalInterceptors());
+        interceptors.add(retrofitConfigBean.getRetryInterceptor());
+        DeadlineProperty deadline = retrofitConfigBean.getRetrofitProperties().getDeadline();
+        if (deadline.isEnable()) {
+            interceptors.add(new DeadlineInterceptor(deadline.getHeader()));
+        }
+        // 服务实例选择位于重试之后，每次重试都重新选择实例
+        if (serviceIdClient) {
+            interceptors.add(retrofitConfigBean.getServiceChooseInterceptor());
+        }
+        interceptors.add(retrofitConfigBean.getLoggingInterceptor());
+        interceptors.addAll(retrofitConfigBean.getNetworkInterceptors());
+
+        // 对冲请求通过共享的有界调度器异步发送，不经过重试拦截器
+        HedgeInterceptor hedgeInterceptor = null;
+        if (hedgeEnabled) {
+            OkHttpClient.Builder hedgeClientBuilder = okHttpClientBuilder.build().newBuilder()
+                    .dispatcher(retrofitConfigBean.getHedgeDispatcher());
+            interceptors.stream()
+                    .filter(interceptor -> interceptor != retrofitConfigBean.getRetryInterceptor())
+                    .forEach(hedgeClientBuilder::addInterceptor);
+            GlobalHedgeProperty globalHedge = retrofitConfigBean.getRetrofitProperties().getGlobalHedge();
+            RetryBudget hedgeBudget = new RetryBudget(globalHedge.getWindowMs(), globalHedge.getHedgeRatio(),
+                    globalHedge.getMinHedgesPerSecond(), retrofitConfigBean.getGlobalHedgeBudget());
+            hedgeInterceptor = new HedgeInterceptor(hedgeClientBuilder.build(),
+                    retrofitConfigBean.getHedgeScheduler(), hedgeBudget);
+        }
+
         if (isEnableDegrade(retrofitInterface)) {
             okHttpClientBuilder.addInterceptor(retrofitConfigBean.getRetrofitDegrade());
         }
-        if (StringUtils.hasText(retrofitClient.serviceId())) {
-            okHttpClientBuilder.addInterceptor(retrofitConfigBean.getServiceChooseInterceptor());
+        if (hedgeInterceptor != null) {
+            okHttpClientBuilder.addInterceptor(hedgeInterceptor);
+            // 对冲请求胜出时中止第一个请求
+            okHttpClientBuilder.addNetworkInterceptor(PrimaryAttempt.NETWORK_INTERCEPTOR);
         }
-        okHttpClientBuilder.addInterceptor(retrofitConfigBean.getErrorDecoderInterceptor());
-        findInterceptorByAnnotation().forEach(okHttpClientBuilder::addInterceptor);
-        retrofitConfigBean.getGlobalInterceptors().forEach(okHttpClientBuilder::addInterceptor);
-        okHttpClientBuilder.addInterceptor(retrofitConfigBean.getRetryInterceptor());
-        okHttpClientBuilder.addInterceptor(retrofitConfigBean.getLoggingInterceptor());
-        retrofitConfigBean.getNetworkInterceptors().forEach(okHttpClientBuilder::addInterceptor);
+        okHttpClientBuilder.interceptors().addAll(interceptors);
         return okHttpClientBuilder.build();
     }
 
+    private int resolveTimeout(int timeoutMs, int globalTimeoutMs) {
+        return timeoutMs == Constants.INVALID_TIMEOUT_VALUE ? globalTimeoutMs : timeoutMs;
+    }
+
+    /**
+     * 解析当前接口的超时时间，依次为connect、read、write、call。
+     */
+    private int[] resolveTimeouts(RetrofitClient retrofitClient) {
+        if (Constants.NO_SOURCE_OK_HTTP_CLIENT.equals(retrofitClient.sourceOkHttpClient())) {
+            GlobalTimeoutProperty globalTimeout = retrofitConfigBean.getRetrofitProperties().getGlobalTimeout();
+            return new int[] {resolveTimeout(retrofitClient.connectTimeoutMs(), globalTimeout.getConnectTimeoutMs()),
+                resolveTimeout(retrofitClient.readTimeoutMs(), globalTimeout.getReadTimeoutMs()),
+                resolveTimeout(retrofitClient.writeTimeoutMs(), globalTimeout.getWriteTimeoutMs()),
+                resolveTimeout(retrofitClient.callTimeoutMs(), globalTimeout.getCallTimeoutMs())};
+        }
+        OkHttpClient sourceOkHttpClient =
+                retrofitConfigBean.getSourceOkHttpClientRegistry().get(retrofitClient.sourceOkHttpClient());
+        return new int[] {sourceOkHttpClient.connectTimeoutMillis(), sourceOkHttpClient.readTimeoutMillis(),
+            sourceOkHttpClient.writeTimeoutMillis(), sourceOkHttpClient.callTimeoutMillis()};
+    }
+
+    /**
+     * 预先解析接口下所有方法的元数据，供拦截器直接查找使用。
+     */
+    private void registerMethodMetadata() {
+        RetrofitClient retrofitClient =
+                AnnotatedElementUtils.findMergedAnnotation(retrofitInterface, RetrofitClient.class);
+        int[] timeouts = resolveTimeouts(Objects.requireNonNull(retrofitClient));
+        ErrorDecoder errorDecoder =
+                retrofitConfigBean.getErrorDecoderInterceptor().resolveErrorDecoder(retrofitClient.errorDecoder());
+        RetrofitDegrade retrofitDegrade = retrofitConfigBean.getRetrofitDegrade();
+        boolean parseResourceName = retrofitDegrade instanceof ResourceNameParser && isEnableDegrade(retrofitInterface);
+
+        RetryBudget retryBudget = retrofitConfigBean.getRetryInterceptor().resolveRetryBudget(retrofitInterface);
+
+        Map<Method, MethodMetadata> methodMetadataMap = new HashMap<>(16);
+        for (Method method : retrofitInterface.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            MethodMetadata methodMetadata = new MethodMetadata();
+            methodMetadata.setMethod(method);
+            methodMetadata.setService(retrofitInterface);
+            methodMetadata.setRetrofitClient(retrofitClient);
+            methodMetadata.setAsync(RetryCallAdapterFactory.isAsyncReturnType(method.getReturnType()));
+            Retry retry = AnnotationExtendUtils.findMergedAnnotation(method, retrofitInterface, Retry.class);
+            methodMetadata.setRetry(retry);
+            methodMetadata.setRetryStrategy(retrofitConfigBean.getRetryInterceptor().resolveRetryStrategy(retry));
+            methodMetadata.setRetryBudget(retryBudget);
+            Hedge hedge = AnnotationExtendUtils.findMergedAnnotation(method, retrofitInterface, Hedge.class);
+            if (hedge != null && hedge.enable()) {
+                methodMetadata.setHedge(hedge);
+                if (hedge.delayPercentile() > 0) {
+                    methodMetadata.setLatencyHistogram(new LatencyHistogram(LATENCY_WINDOW_MS));
+                }
+                hedgeEnabled = true;
+            }
+            methodMetadata.setRouteKeyIndex(findRouteKeyIndex(method));
+            methodMetadata.setLogging(
+                    AnnotationExtendUtils.findMergedAnnotation(method, retrofitInterface, Logging.class));
+            methodMetadata.setSentinelDegrade(
+                    AnnotationExtendUtils.findMergedAnnotation(method, retrofitInterface, SentinelDegrade.class));
+            if (parseResourceName) {
+                methodMetadata.setResourceName(
+                        ((ResourceNameParser)retrofitDegrade).parseResourceName(method, retrofitInterface));
+            }
+            methodMetadata.setErrorDecoder(errorDecoder);
+            Timeout timeout = AnnotatedElementUtils.findMergedAnnotation(method, Timeout.class);
+            int[] methodTimeouts = timeout == null ? timeouts
+                    : new int[] {resolveTimeout(timeout.connectTimeoutMs(), timeouts[0]),
+                        resolveTimeout(timeout.readTimeoutMs(), timeouts[1]),
+                        resolveTimeout(timeout.writeTimeoutMs(), timeouts[2]),
+                        resolveTimeout(timeout.callTimeoutMs(), timeouts[3])};
+            methodMetadata.setConnectTimeoutMs(methodTimeouts[0]);
+            methodMetadata.setReadTimeoutMs(methodTimeouts[1]);
+            methodMetadata.setWriteTimeoutMs(methodTimeouts[2]);
+            methodMetadata.setCallTimeoutMs(methodTimeouts[3]);
+            methodMetadata.setStreamingResponse(StreamingConverterFactory.isStreamingResponse(method));
+            methodMetadata.setRangedDownload(method.getReturnType() == Path.class
+                    && AnnotatedElementUtils.findMergedAnnotation(method, RangedDownload.class) != null);
+            if (isServerSentEventMethod(method)
+                    && (timeout == null || timeout.readTimeoutMs() == Constants.INVALID_TIMEOUT_VALUE)) {
+                // 事件流可能长时间空闲，不使用接口的读超时
+                methodMetadata.setReadTimeoutMs(retrofitConfigBean.getRetrofitProperties().getSse().getReadTimeoutMs());
+            }
+            methodMetadataMap.put(method, methodMetadata);
+        }
+        this.methodMetadataMap = Collections.unmodifiableMap(methodMetadataMap);
+    }
+
+    /**
+     * 返回类型是否为Flux&lt;ServerSentEvent&lt;T&gt;&gt;，只检查类型参数，不依赖reactor
+     */
+    private static boolean isServerSentEventMethod(Method method) {
+        Type returnType = method.getGenericReturnType();
+        if (!(returnType instanceof ParameterizedType)) {
+            return false;
+        }
+        Type eventType = ((ParameterizedType)returnType).getActualTypeArguments()[0];
+        if (eventType instanceof WildcardType) {
+            eventType = ((WildcardType)eventType).getUpperBounds()[0];
+        }
+        if (eventType instanceof ParameterizedType) {
+            eventType = ((ParameterizedType)eventType).getRawType();
+        }
+        return eventType == ServerSentEvent.class;
+    }
+
+    private int findRouteKeyIndex(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof RouteKey) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 使用共享的连接池和调度器。连接池按照目标host共享，serviceId接口的目标host即为serviceId。
+     */
+    private void configureSharedResource(OkHttpClient.Builder okHttpClientBuilder, String baseUrl) {
+        RetrofitProperties retrofitProperties = retrofitConfigBean.getRetrofitProperties();
+        if (retrofitProperties.getGlobalConnectionPool().isEnable()) {
+            HttpUrl url = HttpUrl.get(baseUrl);
+            okHttpClientBuilder.connectionPool(
+                    retrofitConfigBean.getConnectionPoolRegistry().get(url.host() + ":" + url.port()));
+        }
+        Dispatcher dispatcher = retrofitConfigBean.getDispatcher();
+        if (dispatcher != null) {
+            okHttpClientBuilder.dispatcher(dispatcher);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private List<Interceptor> findInterceptorByAnnotation() {
         Annotation[] classAnnotations = AnnotationUtils.getAnnotations(retrofitInterface);
@@ -186,11 +436,20 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
         String baseUrl = RetrofitUtils.convertBaseUrl(retrofitClient, Objects.requireNonNull(retrofitClient).baseUrl(),
                 environment);
 
-        OkHttpClient client = createOkHttpClient();
+        OkHttpClient client = createOkHttpClient(baseUrl);
         Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
                 .baseUrl(baseUrl)
                 .validateEagerly(retrofitClient.validateEagerly())
-                .client(client);
+                .callFactory(new MethodMetadataCallFactory(client, methodMetadataMap));
+
+        // 截止时间和方法级别的调用超时，需要在重试之前添加
+        if (retrofitConfigBean.getRetrofitProperties().getDeadline().isEnable()) {
+            retrofitBuilder.addCallAdapterFactory(DeadlineCallAdapterFactory.INSTANCE);
+        }
+        retrofitBuilder.addCallAdapterFactory(TimeoutCallAdapterFactory.INSTANCE);
+        // 异步调用的非阻塞重试，需要在其它CallAdapterFactory之前添加
+        retrofitBuilder.addCallAdapterFactory(new RetryCallAdapterFactory(retrofitConfigBean.getRetryInterceptor(),
+                retrofitConfigBean.getErrorDecoderInterceptor()));
 
         // 添加配置或者指定的CallAdapterFactory
         List<Class<? extends CallAdapter.Factory>> callAdapterFactories = new ArrayList<>(2);
@@ -202,10 +461,16 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
                 .forEach(adapterFactoryClass -> retrofitBuilder
                         .addCallAdapterFactory(AppContextUtils.getBeanOrNew(applicationContext, adapterFactoryClass)));
 
+        // 分段并行下载返回Path，需要在BodyCallAdapterFactory之前添加
+        retrofitBuilder.addCallAdapterFactory(new RangedDownloadCallAdapterFactory(
+                retrofitConfigBean.getRetrofitProperties().getRangedDownload(),
+                retrofitConfigBean.getBlockingCallExecutor(), retrofitConfigBean.getErrorDecoderInterceptor()));
         addReactiveCallAdapterFactory(retrofitBuilder);
         retrofitBuilder.addCallAdapterFactory(ResponseCallAdapterFactory.INSTANCE);
         retrofitBuilder.addCallAdapterFactory(BodyCallAdapterFactory.INSTANCE);
 
+        // 流式响应转换器，需要在其它ConverterFactory之前添加
+        retrofitBuilder.addConverterFactory(StreamingConverterFactory.INSTANCE);
         // 添加配置或者指定的ConverterFactory
         List<Class<? extends Converter.Factory>> converterFactories = new ArrayList<>(4);
         converterFactories.addAll(Arrays.asList(retrofitClient.converterFactories()));
@@ -219,14 +484,19 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
     private void addReactiveCallAdapterFactory(Retrofit.Builder retrofitBuilder) {
         if (reactor3ClassExist()) {
             retrofitBuilder.addCallAdapterFactory(MonoCallAdapterFactory.INSTANCE);
+            retrofitBuilder.addCallAdapterFactory(
+                    new ServerSentEventCallAdapterFactory(retrofitConfigBean.getRetrofitProperties().getSse()));
+            retrofitBuilder.addCallAdapterFactory(FluxCallAdapterFactory.INSTANCE);
         }
         if (rxjava2ClassExist()) {
             retrofitBuilder.addCallAdapterFactory(Rxjava2SingleCallAdapterFactory.INSTANCE);
             retrofitBuilder.addCallAdapterFactory(Rxjava2CompletableCallAdapterFactory.INSTANCE);
+            retrofitBuilder.addCallAdapterFactory(Rxjava2FlowableCallAdapterFactory.INSTANCE);
         }
         if (rxjava3ClassExist()) {
             retrofitBuilder.addCallAdapterFactory(Rxjava3SingleCallAdapterFactory.INSTANCE);
             retrofitBuilder.addCallAdapterFactory(Rxjava3CompletableCallAdapterFactory.INSTANCE);
+            retrofitBuilder.addCallAdapterFactory(Rxjava3FlowableCallAdapterFactory.INSTANCE);
         }
     }
 
@@ -1,6 +1,7 @@
 package com.github.lianjiatech.retrofit.spring.boot.core;
 
 import java.net.URI;
+import java.util.Set;
 
 import com.github.lianjiatech.retrofit.spring.boot.exception.ServiceInstanceChooseException;
 
@@ -10,6 +11,11 @@ import com.github.lianjiatech.retrofit.spring.boot.exception.ServiceInstanceChoo
 @FunctionalInterface
 public interface ServiceInstanceChooser {
 
+    /**
+     * 避开已尝试实例时最多重新选择的次数
+     */
+    int MAX_CHOOSE_TIMES = 3;
+
     /**
      * Chooses a ServiceInstance URI from the LoadBalancer for the specified service.
      *
@@ -18,6 +24,23 @@ public interface ServiceInstanceChooser {
      */
     URI choose(String serviceId);
 
+    /**
+     * 选择一个服务实例，尽量避开已经尝试过的实例。默认实现多次调用{@link #choose(String)}，都命中已尝试实例时返回最后一次的结果。
+     * <p>
+     * Chooses a ServiceInstance URI, avoiding the excluded ones when possible.
+     *
+     * @param serviceId The service ID to look up the LoadBalancer.
+     * @param excluded uri of instances already tried
+     * @return Return the uri of ServiceInstance
+     */
+    default URI choose(String serviceId, Set<URI> excluded) {
+        URI uri = choose(serviceId);
+        for (int i = 0; i < MAX_CHOOSE_TIMES && excluded.contains(uri); i++) {
+            uri = choose(serviceId);
+        }
+        return uri;
+    }
+
     class NoValidServiceInstanceChooser implements ServiceInstanceChooser {
 
         @Override
@@ -0,0 +1,131 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.DownloadUtils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.http.Streaming;
+
+/**
+ * 流式响应转换器，优先于其它ConverterFactory添加。
+ * <ul>
+ * <li>BufferedSource/InputStream/ReadableByteChannel：直接返回未缓冲的响应体，连接在调用方关闭之前一直保持</li>
+ * <li>Path：将响应体通过FileChannel写入@Download指定的文件，不经过完整的堆内存缓冲</li>
+ * </ul>
+ * <p>
+ * Streaming response converter, added before any other converter factory.
+ * <ul>
+ * <li>BufferedSource/InputStream/ReadableByteChannel: hands the unbuffered response body to the caller, and the
+ * connection stays open until the caller closes it</li>
+ * <li>Path: writes the response body through a FileChannel to the file given by @Download, without buffering it on
+ * the heap</li>
+ * </ul>
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StreamingConverterFactory extends Converter.Factory {
+
+    public static final StreamingConverterFactory INSTANCE = new StreamingConverterFactory();
+
+    /**
+     * 单次transferFrom的最大字节数
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * 流式读取响应体的类型
+     */
+    private static final Set<Class<?>> STREAMING_BODY_TYPES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList(BufferedSource.class, InputStream.class, ReadableByteChannel.class, Path.class)));
+
+    /**
+     * 逐个元素读取响应体的返回值类型
+     */
+    private static final Set<String> STREAMING_RETURN_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "reactor.core.publisher.Flux",
+            "io.reactivex.Flowable",
+            "io.reactivex.rxjava3.core.Flowable")));
+
+    /**
+     * 方法的响应体是否以流的方式读取：返回Flux、Flowable，标注了@Streaming，或者响应体类型(包括Call、Response、
+     * CompletableFuture等包装的类型)为BufferedSource、InputStream、ReadableByteChannel、Path
+     *
+     * @param method 接口方法
+     * @return 是否流式读取
+     */
+    public static boolean isStreamingResponse(Method method) {
+        if (method.isAnnotationPresent(Streaming.class)) {
+            return true;
+        }
+        Type returnType = method.getGenericReturnType();
+        Class<?> rawType = getRawType(returnType);
+        if (STREAMING_RETURN_TYPES.contains(rawType.getName()) || STREAMING_BODY_TYPES.contains(rawType)) {
+            return true;
+        }
+        if (!(returnType instanceof ParameterizedType)) {
+            return false;
+        }
+        Type bodyType = getParameterUpperBound(0, (ParameterizedType)returnType);
+        if (bodyType instanceof ParameterizedType && getRawType(bodyType) == retrofit2.Response.class) {
+            bodyType = getParameterUpperBound(0, (ParameterizedType)bodyType);
+        }
+        return STREAMING_BODY_TYPES.contains(getRawType(bodyType));
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type == BufferedSource.class) {
+            return ResponseBody::source;
+        }
+        if (type == InputStream.class) {
+            return ResponseBody::byteStream;
+        }
+        if (type == ReadableByteChannel.class) {
+            return ResponseBody::source;
+        }
+        if (type == Path.class) {
+            String target = DownloadUtils.findTarget(annotations);
+            return body -> download(body, target);
+        }
+        return null;
+    }
+
+    private static Path download(ResponseBody body, String target) throws IOException {
+        try (ResponseBody responseBody = body) {
+            Path path = DownloadUtils.createTarget(target);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                BufferedSource source = responseBody.source();
+                long position = 0;
+                while (!source.exhausted()) {
+                    position += channel.transferFrom(source, position, TRANSFER_CHUNK_SIZE);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(path);
+                throw e;
+            }
+            return path;
+        }
+    }
+}
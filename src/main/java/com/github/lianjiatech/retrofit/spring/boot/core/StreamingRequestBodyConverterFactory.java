@@ -0,0 +1,145 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * 流式请求体转换器，@Body或者@Part参数的数据直接写入连接，不在堆内存中缓冲完整的请求体。
+ * <ul>
+ * <li>Path/File：使用文件长度作为Content-Length，通过FileChannel.transferTo写入，可以重复发送</li>
+ * <li>InputStream：使用分块传输，只能发送一次，写入完成后关闭</li>
+ * <li>Publisher&lt;ByteBuffer&gt;/Publisher&lt;DataBuffer&gt;(包括Flux、Flowable)：使用分块传输，只能发送一次，逐个请求并写入元素</li>
+ * </ul>
+ * 默认的Content-Type为application/octet-stream，可以通过@Headers覆盖。
+ * <p>
+ * Streaming request body converter. Data of @Body or @Part parameters is written straight to the connection instead
+ * of being buffered on the heap.
+ * <ul>
+ * <li>Path/File: sent with the file size as Content-Length through FileChannel.transferTo, and can be sent again</li>
+ * <li>InputStream: sent with chunked transfer encoding, one shot only, and closed once written</li>
+ * <li>Publisher&lt;ByteBuffer&gt;/Publisher&lt;DataBuffer&gt; (including Flux and Flowable): sent with chunked transfer
+ * encoding, one shot only, requesting and writing one element at a time</li>
+ * </ul>
+ * The default Content-Type is application/octet-stream and can be overridden with @Headers.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StreamingRequestBodyConverterFactory extends Converter.Factory {
+
+    public static final StreamingRequestBodyConverterFactory INSTANCE = new StreamingRequestBodyConverterFactory();
+
+    static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private static final boolean REACTIVE_STREAMS_PRESENT = reactiveStreamsPresent();
+
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations,
+            Annotation[] methodAnnotations, Retrofit retrofit) {
+        Class<?> rawType = getRawType(type);
+        if (rawType == Path.class) {
+            return (Path path) -> new PathRequestBody(path);
+        }
+        if (rawType == File.class) {
+            return (File file) -> new PathRequestBody(file.toPath());
+        }
+        if (InputStream.class.isAssignableFrom(rawType)) {
+            return (InputStream inputStream) -> new InputStreamRequestBody(inputStream);
+        }
+        if (REACTIVE_STREAMS_PRESENT && type instanceof ParameterizedType
+                && PublisherRequestBody.isSupported(rawType,
+                        getRawType(getParameterUpperBound(0, (ParameterizedType)type)))) {
+            return PublisherRequestBody::create;
+        }
+        return null;
+    }
+
+    private static boolean reactiveStreamsPresent() {
+        try {
+            Class.forName("org.reactivestreams.Publisher");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static final class PathRequestBody extends RequestBody {
+
+        private final Path path;
+
+        PathRequestBody(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return OCTET_STREAM;
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return Files.size(path);
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    long transferred = channel.transferTo(position, size - position, sink);
+                    if (transferred <= 0) {
+                        // 发送过程中文件被截断
+                        throw new EOFException("Unexpected end of " + path + " at " + position + ", expected " + size);
+                    }
+                    position += transferred;
+                }
+            }
+        }
+    }
+
+    private static final class InputStreamRequestBody extends RequestBody {
+
+        private final InputStream inputStream;
+
+        InputStreamRequestBody(InputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return OCTET_STREAM;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            try (Source source = Okio.source(inputStream)) {
+                sink.writeAll(source);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.lianjiatech.retrofit.spring.boot.core.reactive;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * 流式返回Flux&lt;T&gt;，响应体为NDJSON或者顶层JSON数组。按照订阅者的请求数量从连接中读取数据，取消订阅时关闭响应。
+ * 读取是阻塞的，在boundedElastic调度器上执行。
+ * <p>
+ * Streams the elements of an NDJSON or top-level JSON array response as Flux&lt;T&gt;. Data is read from the
+ * connection only as the subscriber requests it, and the response is closed on cancel. Reads are blocking and run on
+ * the boundedElastic scheduler.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FluxCallAdapterFactory extends CallAdapter.Factory implements InternalCallAdapterFactory {
+
+    public static final FluxCallAdapterFactory INSTANCE = new FluxCallAdapterFactory();
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Flux.class) {
+            return null;
+        }
+        if (!(returnType instanceof ParameterizedType)) {
+            throw new IllegalStateException("Flux return type must be parameterized as Flux<Foo> or Flux<? extends Foo>");
+        }
+        Type elementType = getParameterUpperBound(0, (ParameterizedType)returnType);
+        Converter<ResponseBody, Object> converter = retrofit.responseBodyConverter(elementType, annotations);
+        return new StreamCallAdapter<>(converter, getRawType(elementType));
+    }
+
+    private static final class StreamCallAdapter<T> implements CallAdapter<BufferedSource, Flux<T>> {
+
+        private final Converter<ResponseBody, T> converter;
+
+        private final Class<?> elementRawType;
+
+        StreamCallAdapter(Converter<ResponseBody, T> converter, Class<?> elementRawType) {
+            this.converter = converter;
+            this.elementRawType = elementRawType;
+        }
+
+        @Override
+        public Type responseType() {
+            return BufferedSource.class;
+        }
+
+        @Override
+        public Flux<T> adapt(Call<BufferedSource> call) {
+            Deadline deadline = DeadlineContext.current();
+            return Flux.defer(() -> {
+                JsonStreamReader<T> streamReader =
+                        new JsonStreamReader<>(call.clone(), converter, elementRawType, deadline);
+                // generate只在两次生成之间清理状态，阻塞读取时需要通过doOnCancel立即取消调用
+                return Flux.<T, JsonStreamReader<T>>generate(() -> streamReader, (reader, sink) -> {
+                    try {
+                        T element = reader.next();
+                        if (element == null) {
+                            sink.complete();
+                        } else {
+                            sink.next(element);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        sink.error(e);
+                    }
+                    return reader;
+                }, JsonStreamReader::close).doOnCancel(streamReader::cancel);
+            }).subscribeOn(Schedulers.boundedElastic());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.lianjiatech.retrofit.spring.boot.core.reactive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Call;
+import retrofit2.Converter;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * 按需从响应体中逐个读取JSON元素，支持NDJSON(以空白分隔的多个JSON值)和顶层JSON数组。
+ * 使用Jackson流式解析器切分元素，每个元素再交给接口配置的ConverterFactory转换，内存占用与元素个数无关。
+ * <p>
+ * Reads JSON elements one at a time from the response body, supporting NDJSON (whitespace separated values) and a
+ * top-level JSON array. Elements are delimited with Jackson's streaming parser and each one is converted by the
+ * converter factories configured for the interface, so memory does not grow with the number of elements.
+ *
+ * @author 陈添明
+ */
+final class JsonStreamReader<T> implements Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final MediaType APPLICATION_JSON = MediaType.get("application/json; charset=UTF-8");
+
+    private final Call<BufferedSource> call;
+
+    private final Converter<ResponseBody, T> converter;
+
+    private final boolean stringElement;
+
+    private final boolean unwrapArray;
+
+    private final Deadline deadline;
+
+    private final ByteArrayOutputStream elementBuffer = new ByteArrayOutputStream(256);
+
+    private BufferedSource source;
+
+    private JsonParser parser;
+
+    private boolean inArray;
+
+    private boolean finished;
+
+    /**
+     * @param call 调用
+     * @param converter 元素转换器
+     * @param elementRawType 元素原始类型，元素本身是数组或者集合时不展开顶层JSON数组
+     * @param deadline 调用方的截止时间，可以为null
+     */
+    JsonStreamReader(Call<BufferedSource> call, Converter<ResponseBody, T> converter, Class<?> elementRawType,
+            Deadline deadline) {
+        this.call = call;
+        this.converter = converter;
+        this.stringElement = elementRawType == String.class;
+        this.unwrapArray = !elementRawType.isArray() && !Collection.class.isAssignableFrom(elementRawType);
+        this.deadline = deadline;
+    }
+
+    /**
+     * 读取下一个元素，没有更多元素时返回null
+     *
+     * @return 下一个元素
+     * @throws IOException 读取失败
+     */
+    T next() throws IOException {
+        while (!finished) {
+            if (parser == null) {
+                start();
+                continue;
+            }
+            JsonToken token = parser.currentToken();
+            if (token == null || (inArray && token == JsonToken.END_ARRAY)) {
+                finished = true;
+                break;
+            }
+            T element = readElement(token);
+            parser.nextToken();
+            if (element != null) {
+                return element;
+            }
+        }
+        close();
+        return null;
+    }
+
+    private void start() throws IOException {
+        Response<BufferedSource> response = deadline == null ? call.execute() : executeWithDeadline();
+        if (!response.isSuccessful()) {
+            throw new HttpException(response);
+        }
+        source = response.body();
+        if (source == null) {
+            finished = true;
+            return;
+        }
+        parser = JSON_FACTORY.createParser(source.inputStream());
+        JsonToken first = parser.nextToken();
+        if (first == JsonToken.START_ARRAY && unwrapArray) {
+            inArray = true;
+            parser.nextToken();
+        }
+    }
+
+    private Response<BufferedSource> executeWithDeadline() throws IOException {
+        Deadline previous = DeadlineContext.current();
+        DeadlineContext.set(deadline);
+        try {
+            return call.execute();
+        } finally {
+            DeadlineContext.set(previous);
+        }
+    }
+
+    private T readElement(JsonToken token) throws IOException {
+        if (stringElement && token == JsonToken.VALUE_STRING) {
+            @SuppressWarnings("unchecked")
+            T text = (T)parser.getText();
+            return text;
+        }
+        elementBuffer.reset();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(elementBuffer)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return converter.convert(ResponseBody.create(APPLICATION_JSON, elementBuffer.toByteArray()));
+    }
+
+    /**
+     * 取消订阅，可以在读取线程之外调用，立即中断阻塞的读取
+     */
+    void cancel() {
+        finished = true;
+        call.cancel();
+    }
+
+    /**
+     * 流结束时在读取线程上取消调用并关闭响应体
+     */
+    @Override
+    public void close() {
+        cancel();
+        BufferedSource source = this.source;
+        if (source != null) {
+            try {
+                source.close();
+            } catch (IOException | RuntimeException ignored) {
+                // 连接已经取消，忽略关闭异常
+            }
+        }
+    }
+}
@@ -5,6 +5,9 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
 import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import reactor.core.publisher.Mono;
@@ -51,6 +54,32 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
         return new ResponseCallAdapter<>(responseType);
     }
 
+    /**
+     * 每次订阅clone一个Call发起调用，取消订阅时取消该Call，立即释放连接和调度器名额。
+     * Reactor Context中有截止时间时，在该截止时间下发起调用
+     */
+    private static <R> void enqueue(MonoSink<?> monoSink, Call<R> call, CancelableCallback<R> callback) {
+        Call<R> subscriptionCall = call.clone();
+        monoSink.onCancel(() -> {
+            callback.canceled = true;
+            subscriptionCall.cancel();
+        });
+        Deadline deadline = monoSink.currentContext().getOrDefault(DeadlineContext.REACTOR_CONTEXT_KEY, null);
+        if (deadline == null) {
+            subscriptionCall.enqueue(callback);
+        } else {
+            DeadlineContext.runWith(deadline, () -> subscriptionCall.enqueue(callback));
+        }
+    }
+
+    /**
+     * 订阅取消之后，Call因为被取消而失败，不再传递给已经取消的订阅者
+     */
+    private abstract static class CancelableCallback<R> implements Callback<R> {
+
+        volatile boolean canceled;
+    }
+
     private static class BodyCallAdapter<R> implements CallAdapter<R, Mono<R>> {
 
         private final Type responseType;
@@ -66,10 +95,10 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
 
         @Override
         public Mono<R> adapt(Call<R> call) {
-            return Mono.create(monoSink -> call.enqueue(new BodyCallback(monoSink)));
+            return Mono.create(monoSink -> enqueue(monoSink, call, new BodyCallback(monoSink)));
         }
 
-        private class BodyCallback implements Callback<R> {
+        private class BodyCallback extends CancelableCallback<R> {
 
             private final MonoSink<R> monoSink;
 
@@ -88,7 +117,9 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
 
             @Override
             public void onFailure(Call<R> call, Throwable t) {
-                monoSink.error(t);
+                if (!canceled) {
+                    monoSink.error(t);
+                }
             }
         }
 
@@ -109,10 +140,10 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
 
         @Override
         public Mono<Response<R>> adapt(Call<R> call) {
-            return Mono.create(monoSink -> call.enqueue(new ResponseCallback(monoSink)));
+            return Mono.create(monoSink -> enqueue(monoSink, call, new ResponseCallback(monoSink)));
         }
 
-        private class ResponseCallback implements Callback<R> {
+        private class ResponseCallback extends CancelableCallback<R> {
 
             private final MonoSink<Response<R>> monoSink;
 
@@ -127,7 +158,9 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
 
             @Override
             public void onFailure(Call<R> call, Throwable t) {
-                monoSink.error(t);
+                if (!canceled) {
+                    monoSink.error(t);
+                }
             }
         }
     }
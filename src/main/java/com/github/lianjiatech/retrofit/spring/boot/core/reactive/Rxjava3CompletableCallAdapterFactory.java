@@ -42,7 +42,12 @@ public class Rxjava3CompletableCallAdapterFactory extends CallAdapter.Factory im
 
         @Override
         public Completable adapt(Call<R> call) {
-            return Completable.create(emitter -> call.enqueue(new NonBodyCallBack(emitter)));
+            return Completable.create(emitter -> {
+                // 每次订阅clone一个Call，取消订阅时取消该Call，立即释放连接和调度器名额
+                Call<R> subscriptionCall = call.clone();
+                emitter.setCancellable(subscriptionCall::cancel);
+                subscriptionCall.enqueue(new NonBodyCallBack(emitter));
+            });
         }
 
         private class NonBodyCallBack implements Callback<R> {
@@ -58,13 +63,13 @@ public class Rxjava3CompletableCallAdapterFactory extends CallAdapter.Factory im
                 if (response.isSuccessful()) {
                     emitter.onComplete();
                 } else {
-                    emitter.onError(new HttpException(response));
+                    emitter.tryOnError(new HttpException(response));
                 }
             }
 
             @Override
             public void onFailure(Call<R> call, Throwable t) {
-                emitter.onError(t);
+                emitter.tryOnError(t);
             }
         }
     }
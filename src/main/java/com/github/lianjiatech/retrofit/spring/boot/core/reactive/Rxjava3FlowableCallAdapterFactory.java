@@ -0,0 +1,92 @@
+package com.github.lianjiatech.retrofit.spring.boot.core.reactive;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * 流式返回Flowable&lt;T&gt;，响应体为NDJSON或者顶层JSON数组。按照订阅者的请求数量从连接中读取数据，取消订阅时关闭响应。
+ * 读取是阻塞的，在io调度器上执行。
+ * <p>
+ * Streams the elements of an NDJSON or top-level JSON array response as Flowable&lt;T&gt;. Data is read from the
+ * connection only as the subscriber requests it, and the response is closed on cancel. Reads are blocking and run on
+ * the io scheduler.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Rxjava3FlowableCallAdapterFactory extends CallAdapter.Factory
+        implements InternalCallAdapterFactory {
+
+    public static final Rxjava3FlowableCallAdapterFactory INSTANCE = new Rxjava3FlowableCallAdapterFactory();
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Flowable.class) {
+            return null;
+        }
+        if (!(returnType instanceof ParameterizedType)) {
+            throw new IllegalStateException(
+                    "Flowable return type must be parameterized as Flowable<Foo> or Flowable<? extends Foo>");
+        }
+        Type elementType = getParameterUpperBound(0, (ParameterizedType)returnType);
+        Converter<ResponseBody, Object> converter = retrofit.responseBodyConverter(elementType, annotations);
+        return new StreamCallAdapter<>(converter, getRawType(elementType));
+    }
+
+    private static final class StreamCallAdapter<T> implements CallAdapter<BufferedSource, Flowable<T>> {
+
+        private final Converter<ResponseBody, T> converter;
+
+        private final Class<?> elementRawType;
+
+        StreamCallAdapter(Converter<ResponseBody, T> converter, Class<?> elementRawType) {
+            this.converter = converter;
+            this.elementRawType = elementRawType;
+        }
+
+        @Override
+        public Type responseType() {
+            return BufferedSource.class;
+        }
+
+        @Override
+        public Flowable<T> adapt(Call<BufferedSource> call) {
+            Deadline deadline = DeadlineContext.current();
+            return Flowable.defer(() -> {
+                JsonStreamReader<T> streamReader =
+                        new JsonStreamReader<>(call.clone(), converter, elementRawType, deadline);
+                // generate只在两次生成之间清理状态，阻塞读取时需要通过doOnCancel立即取消调用
+                return Flowable.<T, JsonStreamReader<T>>generate(() -> streamReader, (reader, emitter) -> {
+                    try {
+                        T element = reader.next();
+                        if (element == null) {
+                            emitter.onComplete();
+                        } else {
+                            emitter.onNext(element);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        emitter.onError(e);
+                    }
+                    return reader;
+                }, JsonStreamReader::close).doOnCancel(streamReader::cancel);
+            }).subscribeOn(Schedulers.io());
+        }
+    }
+}
@@ -67,8 +67,12 @@ public class Rxjava3SingleCallAdapterFactory extends CallAdapter.Factory impleme
 
         @Override
         public Single<R> adapt(Call<R> call) {
-
-            return Single.create(emitter -> call.enqueue(new BodyCallBack(emitter)));
+            return Single.create(emitter -> {
+                // 每次订阅clone一个Call，取消订阅时取消该Call，立即释放连接和调度器名额
+                Call<R> subscriptionCall = call.clone();
+                emitter.setCancellable(subscriptionCall::cancel);
+                subscriptionCall.enqueue(new BodyCallBack(emitter));
+            });
         }
 
         private class BodyCallBack implements Callback<R> {
@@ -84,13 +88,13 @@ public class Rxjava3SingleCallAdapterFactory extends CallAdapter.Factory impleme
                 if (response.isSuccessful()) {
                     emitter.onSuccess(response.body());
                 } else {
-                    emitter.onError(new HttpException(response));
+                    emitter.tryOnError(new HttpException(response));
                 }
             }
 
             @Override
             public void onFailure(Call<R> call, Throwable t) {
-                emitter.onError(t);
+                emitter.tryOnError(t);
             }
         }
     }
@@ -110,7 +114,12 @@ public class Rxjava3SingleCallAdapterFactory extends CallAdapter.Factory impleme
 
         @Override
         public Single<Response<R>> adapt(Call<R> call) {
-            return Single.create(emitter -> call.enqueue(new ResponseCallBack(emitter)));
+            return Single.create(emitter -> {
+                // 每次订阅clone一个Call，取消订阅时取消该Call，立即释放连接和调度器名额
+                Call<R> subscriptionCall = call.clone();
+                emitter.setCancellable(subscriptionCall::cancel);
+                subscriptionCall.enqueue(new ResponseCallBack(emitter));
+            });
         }
 
         private class ResponseCallBack implements Callback<R> {
@@ -128,7 +137,7 @@ public class Rxjava3SingleCallAdapterFactory extends CallAdapter.Factory impleme
 
             @Override
             public void onFailure(Call<R> call, Throwable t) {
-                emitter.onError(t);
+                emitter.tryOnError(t);
             }
         }
     }
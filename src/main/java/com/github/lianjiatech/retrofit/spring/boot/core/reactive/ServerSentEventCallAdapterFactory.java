@@ -0,0 +1,103 @@
+package com.github.lianjiatech.retrofit.spring.boot.core.reactive;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.sse.ServerSentEvent;
+import com.github.lianjiatech.retrofit.spring.boot.sse.SseProperty;
+
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * 返回Flux&lt;ServerSentEvent&lt;T&gt;&gt;，按照text/event-stream协议增量解析事件，连接断开时自动携带Last-Event-ID重连。
+ * 必须注册在{@link FluxCallAdapterFactory}之前。
+ * <p>
+ * Returns Flux&lt;ServerSentEvent&lt;T&gt;&gt;, parsing text/event-stream incrementally and reconnecting with
+ * Last-Event-ID when the connection drops. Must be registered before {@link FluxCallAdapterFactory}.
+ *
+ * @author 陈添明
+ */
+public final class ServerSentEventCallAdapterFactory extends CallAdapter.Factory implements InternalCallAdapterFactory {
+
+    private final SseProperty sseProperty;
+
+    public ServerSentEventCallAdapterFactory(SseProperty sseProperty) {
+        this.sseProperty = sseProperty;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Flux.class || !(returnType instanceof ParameterizedType)) {
+            return null;
+        }
+        Type eventType = getParameterUpperBound(0, (ParameterizedType)returnType);
+        if (getRawType(eventType) != ServerSentEvent.class) {
+            return null;
+        }
+        if (!(eventType instanceof ParameterizedType)) {
+            throw new IllegalStateException(
+                    "ServerSentEvent must be parameterized as ServerSentEvent<Foo> or ServerSentEvent<? extends Foo>");
+        }
+        Type dataType = getParameterUpperBound(0, (ParameterizedType)eventType);
+        Converter<ResponseBody, Object> converter = retrofit.responseBodyConverter(dataType, annotations);
+        return new ServerSentEventCallAdapter<>(retrofit.callFactory(), converter, getRawType(dataType), sseProperty);
+    }
+
+    private static final class ServerSentEventCallAdapter<T>
+            implements CallAdapter<BufferedSource, Flux<ServerSentEvent<T>>> {
+
+        private final okhttp3.Call.Factory callFactory;
+
+        private final Converter<ResponseBody, T> converter;
+
+        private final Class<?> dataRawType;
+
+        private final SseProperty sseProperty;
+
+        ServerSentEventCallAdapter(okhttp3.Call.Factory callFactory, Converter<ResponseBody, T> converter,
+                Class<?> dataRawType, SseProperty sseProperty) {
+            this.callFactory = callFactory;
+            this.converter = converter;
+            this.dataRawType = dataRawType;
+            this.sseProperty = sseProperty;
+        }
+
+        @Override
+        public Type responseType() {
+            return BufferedSource.class;
+        }
+
+        @Override
+        public Flux<ServerSentEvent<T>> adapt(Call<BufferedSource> call) {
+            return Flux.defer(() -> {
+                // 每次连接都需要重新发起请求，直接使用OkHttp调用
+                ServerSentEventReader<T> eventReader =
+                        new ServerSentEventReader<>(callFactory, call.request(), converter, dataRawType, sseProperty);
+                return Flux.<ServerSentEvent<T>, ServerSentEventReader<T>>generate(() -> eventReader,
+                        (reader, sink) -> {
+                            try {
+                                ServerSentEvent<T> event = reader.next();
+                                if (event == null) {
+                                    sink.complete();
+                                } else {
+                                    sink.next(event);
+                                }
+                            } catch (IOException | RuntimeException e) {
+                                sink.error(e);
+                            }
+                            return reader;
+                        }, ServerSentEventReader::close).doOnCancel(eventReader::cancel);
+            }).subscribeOn(Schedulers.boundedElastic());
+        }
+    }
+}
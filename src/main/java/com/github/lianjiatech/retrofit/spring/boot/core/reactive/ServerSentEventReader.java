@@ -0,0 +1,239 @@
+package com.github.lianjiatech.retrofit.spring.boot.core.reactive;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.sse.ServerSentEvent;
+import com.github.lianjiatech.retrofit.spring.boot.sse.SseProperty;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Converter;
+
+/**
+ * 增量解析text/event-stream。连接断开或者读取失败时，等待重连时间之后携带Last-Event-ID重新发起请求；非2xx响应不重连，204表示服务端要求结束。
+ * 重连请求直接通过OkHttpClient发送，仍然经过所有拦截器。
+ * <p>
+ * Parses text/event-stream incrementally. When the connection ends or a read fails, the request is sent again with
+ * Last-Event-ID after the reconnection delay. A non-2xx response is not retried, and 204 means the server asks the
+ * client to stop. Reconnects go through the OkHttpClient directly, so every interceptor still applies.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+final class ServerSentEventReader<T> {
+
+    private static final MediaType APPLICATION_JSON = MediaType.get("application/json; charset=UTF-8");
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final okhttp3.Call.Factory callFactory;
+
+    private final Request request;
+
+    private final Converter<ResponseBody, T> converter;
+
+    private final boolean stringData;
+
+    private final int maxReconnectAttempts;
+
+    private long reconnectDelayMs;
+
+    private String lastEventId;
+
+    private int reconnectAttempts;
+
+    private volatile okhttp3.Call call;
+
+    private volatile boolean canceled;
+
+    private BufferedSource source;
+
+    ServerSentEventReader(okhttp3.Call.Factory callFactory, Request request, Converter<ResponseBody, T> converter,
+            Class<?> dataRawType, SseProperty sseProperty) {
+        this.callFactory = callFactory;
+        this.request = request.newBuilder().header("Accept", "text/event-stream").build();
+        this.converter = converter;
+        this.stringData = dataRawType == String.class;
+        this.maxReconnectAttempts = sseProperty.getMaxReconnectAttempts();
+        this.reconnectDelayMs = sseProperty.getReconnectDelayMs();
+    }
+
+    /**
+     * 读取下一个事件，流结束时返回null
+     *
+     * @return 下一个事件
+     * @throws IOException 无法继续重连
+     */
+    ServerSentEvent<T> next() throws IOException {
+        while (!canceled) {
+            try {
+                if (source == null && !connect()) {
+                    return null;
+                }
+                ServerSentEvent<T> event = readEvent();
+                if (event != null) {
+                    reconnectAttempts = 0;
+                    return event;
+                }
+                log.info("Server-Sent Events stream ended, reconnecting. request={}", request.url());
+            } catch (IOException e) {
+                if (canceled) {
+                    break;
+                }
+                if (maxReconnectAttempts >= 0 && reconnectAttempts >= maxReconnectAttempts) {
+                    throw e;
+                }
+                log.warn("Server-Sent Events stream failed, reconnecting. request={}", request.url(), e);
+            }
+            closeSource();
+            if (maxReconnectAttempts >= 0 && reconnectAttempts >= maxReconnectAttempts) {
+                return null;
+            }
+            reconnectAttempts++;
+            awaitReconnect();
+        }
+        return null;
+    }
+
+    private boolean connect() throws IOException {
+        Request.Builder builder = request.newBuilder();
+        if (lastEventId != null) {
+            builder.header(LAST_EVENT_ID, lastEventId);
+        }
+        Request connectRequest = builder.build();
+        okhttp3.Call call = callFactory.newCall(connectRequest);
+        this.call = call;
+        if (canceled) {
+            call.cancel();
+        }
+        Response response = call.execute();
+        if (response.code() == 204) {
+            response.close();
+            return false;
+        }
+        if (!response.isSuccessful()) {
+            try {
+                throw RetrofitException.errorStatus(connectRequest, response);
+            } finally {
+                response.close();
+            }
+        }
+        source = response.body().source();
+        return true;
+    }
+
+    /**
+     * 读取一个事件，连接正常结束时返回null
+     */
+    private ServerSentEvent<T> readEvent() throws IOException {
+        StringBuilder data = null;
+        String event = null;
+        Long retry = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (data == null) {
+                    // 没有data字段的事件不分发
+                    event = null;
+                    retry = null;
+                    continue;
+                }
+                return new ServerSentEvent<>(lastEventId, event, convert(data.toString()), retry);
+            }
+            if (line.charAt(0) == ':') {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "data":
+                    data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+                    break;
+                case "event":
+                    event = value;
+                    break;
+                case "id":
+                    if (value.indexOf('\u0000') < 0) {
+                        lastEventId = value;
+                    }
+                    break;
+                case "retry":
+                    try {
+                        retry = Long.parseLong(value);
+                        reconnectDelayMs = retry;
+                    } catch (NumberFormatException ignored) {
+                        // 规范要求忽略非数字的retry
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T convert(String data) throws IOException {
+        if (stringData) {
+            return (T)data;
+        }
+        return converter.convert(ResponseBody.create(APPLICATION_JSON, data));
+    }
+
+    private synchronized void awaitReconnect() throws InterruptedIOException {
+        long deadline = System.currentTimeMillis() + reconnectDelayMs;
+        long remaining;
+        while (!canceled && (remaining = deadline - System.currentTimeMillis()) > 0) {
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to reconnect");
+            }
+        }
+    }
+
+    private void closeSource() {
+        BufferedSource source = this.source;
+        this.source = null;
+        if (source != null) {
+            try {
+                source.close();
+            } catch (IOException | RuntimeException ignored) {
+                // 忽略关闭异常
+            }
+        }
+    }
+
+    /**
+     * 取消订阅，可以在读取线程之外调用，立即中断阻塞的读取和重连等待
+     */
+    void cancel() {
+        canceled = true;
+        okhttp3.Call call = this.call;
+        if (call != null) {
+            call.cancel();
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * 流结束时在读取线程上关闭响应
+     */
+    void close() {
+        cancel();
+        closeSource();
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端的截止时间，基于System.nanoTime()，不受机器时钟偏差影响。跨服务传递时使用剩余毫秒数。
+ * <p>
+ * End-to-end deadline based on System.nanoTime(), so it is immune to clock skew between machines. It is propagated
+ * between services as the remaining milliseconds.
+ *
+ * @author 陈添明
+ */
+public final class Deadline {
+
+    private final long nanoTime;
+
+    private Deadline(long nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * 从现在开始，经过指定毫秒数之后的截止时间
+     *
+     * @param timeoutMs 剩余毫秒数
+     * @return 截止时间
+     */
+    public static Deadline after(long timeoutMs) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMs, 0)));
+    }
+
+    /**
+     * 解析上游传递的剩余毫秒数请求头，请求头不存在或者不合法时返回null
+     * <p>
+     * Parses the remaining milliseconds header sent by the caller, null if it is absent or invalid
+     *
+     * @param headerValue 请求头的值
+     * @return 截止时间
+     */
+    public static Deadline fromHeaderValue(String headerValue) {
+        if (headerValue == null || headerValue.isEmpty()) {
+            return null;
+        }
+        try {
+            return after(Long.parseLong(headerValue.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 截止时间对应的System.nanoTime()
+     *
+     * @return nanoTime
+     */
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * 剩余毫秒数，已过期时返回0
+     *
+     * @return 剩余毫秒数
+     */
+    public long remainingMillis() {
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(nanoTime - System.nanoTime()), 0);
+    }
+
+    /**
+     * 是否已经过期
+     *
+     * @return 是否已经过期
+     */
+    public boolean isExpired() {
+        return nanoTime - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 返回两个截止时间中较早的一个
+     *
+     * @param other 另一个截止时间，可以为null
+     * @return 较早的截止时间
+     */
+    public Deadline minimum(Deadline other) {
+        return other == null || nanoTime - other.nanoTime <= 0 ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remainingMs=" + remainingMillis() + "}";
+    }
+}
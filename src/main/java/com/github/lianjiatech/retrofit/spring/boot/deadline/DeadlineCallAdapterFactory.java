@@ -0,0 +1,142 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.exception.DeadlineExceededException;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * 在调用线程上获取{@link DeadlineContext}中的截止时间，设置到Call.timeout()上，调用超时取配置值和剩余时间中较小的一个。
+ * 截止时间已过的调用直接失败，不会发起网络请求。需要在重试之前添加，异步重试clone出的Call沿用第一次获取的截止时间。
+ * <p>
+ * Captures the deadline of {@link DeadlineContext} on the calling thread and sets it on Call.timeout(), so the
+ * effective call timeout is the smaller of the configured one and the remaining time. Calls whose deadline has passed
+ * fail without touching the network. It is added before the retry factory so that asynchronous retries, which run on
+ * cloned calls, keep the deadline captured by the first attempt.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class DeadlineCallAdapterFactory extends CallAdapter.Factory implements InternalCallAdapterFactory {
+
+    public static final DeadlineCallAdapterFactory INSTANCE = new DeadlineCallAdapterFactory();
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        CallAdapter<?, ?> delegate = retrofit.nextCallAdapter(this, returnType, annotations);
+        return new DeadlineCallAdapter<>(delegate);
+    }
+
+    private static final class DeadlineCallAdapter<R, T> implements CallAdapter<R, T> {
+
+        private final CallAdapter<R, T> delegate;
+
+        @SuppressWarnings("unchecked")
+        DeadlineCallAdapter(CallAdapter<?, ?> delegate) {
+            this.delegate = (CallAdapter<R, T>)delegate;
+        }
+
+        @Override
+        public Type responseType() {
+            return delegate.responseType();
+        }
+
+        @Override
+        public T adapt(Call<R> call) {
+            return delegate.adapt(new DeadlineCall<>(call, null));
+        }
+    }
+
+    static final class DeadlineCall<T> implements Call<T> {
+
+        private final Call<T> delegate;
+
+        private volatile Deadline deadline;
+
+        DeadlineCall(Call<T> delegate, Deadline deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            Deadline deadline = captureDeadline();
+            if (deadline != null && deadline.isExpired()) {
+                throw new DeadlineExceededException("Deadline exceeded before executing");
+            }
+            applyDeadline(deadline);
+            return delegate.execute();
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            Deadline deadline = captureDeadline();
+            if (deadline != null && deadline.isExpired()) {
+                callback.onFailure(this, new DeadlineExceededException("Deadline exceeded before enqueuing"));
+                return;
+            }
+            applyDeadline(deadline);
+            delegate.enqueue(callback);
+        }
+
+        private Deadline captureDeadline() {
+            if (deadline == null) {
+                deadline = DeadlineContext.current();
+            }
+            return deadline;
+        }
+
+        private void applyDeadline(Deadline deadline) {
+            if (deadline == null) {
+                return;
+            }
+            try {
+                delegate.timeout().deadlineNanoTime(deadline.nanoTime());
+            } catch (RuntimeException e) {
+                // 请求创建失败，交由原始Call抛出异常或者回调onFailure
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new DeadlineCall<>(delegate.clone(), deadline);
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的截止时间。通常在处理入站请求的Filter中根据请求头设置，请求结束后清除。
+ * 响应式调用也可以通过Reactor Context传递：{@code mono.subscriberContext(Context.of(DeadlineContext.REACTOR_CONTEXT_KEY, deadline))}。
+ * <p>
+ * Deadline of the current thread, usually set from the incoming request header in a filter and cleared afterwards.
+ * Reactive calls can carry it in the Reactor context under {@link #REACTOR_CONTEXT_KEY} instead.
+ *
+ * @author 陈添明
+ */
+public final class DeadlineContext {
+
+    /**
+     * Reactor Context中截止时间的key
+     */
+    public static final Class<Deadline> REACTOR_CONTEXT_KEY = Deadline.class;
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private DeadlineContext() {}
+
+    /**
+     * 当前线程的截止时间，未设置时返回null
+     *
+     * @return 截止时间
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public static void set(Deadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 在指定截止时间下执行，执行结束后恢复之前的截止时间
+     * <p>
+     * Runs the supplier under the given deadline and restores the previous one afterwards
+     *
+     * @param deadline 截止时间
+     * @param supplier 执行逻辑
+     * @param <T> 返回值类型
+     * @return 执行结果
+     */
+    public static <T> T callWith(Deadline deadline, Supplier<T> supplier) {
+        Deadline previous = CURRENT.get();
+        set(deadline);
+        try {
+            return supplier.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void runWith(Deadline deadline, Runnable runnable) {
+        callWith(deadline, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+}
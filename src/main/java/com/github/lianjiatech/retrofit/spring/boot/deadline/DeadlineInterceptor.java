@@ -0,0 +1,42 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.io.IOException;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.DeadlineExceededException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * 把调用的截止时间以剩余毫秒数的形式转发给下游，截止时间已过则直接失败。位于重试之后，每次尝试都使用最新的剩余时间。
+ * <p>
+ * Forwards the deadline of the call downstream as the remaining milliseconds and fails fast once it has passed.
+ * It sits after the retry interceptor so that every attempt sends the up-to-date remaining time.
+ *
+ * @author 陈添明
+ */
+public class DeadlineInterceptor implements Interceptor {
+
+    private final String header;
+
+    public DeadlineInterceptor(String header) {
+        this.header = header;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Timeout timeout = chain.call().timeout();
+        if (!timeout.hasDeadline()) {
+            return chain.proceed(request);
+        }
+        long remainingNanos = timeout.deadlineNanoTime() - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new DeadlineExceededException("Deadline exceeded before sending " + request.url());
+        }
+        long remainingMs = Math.max(remainingNanos / 1_000_000, 1);
+        return chain.proceed(request.newBuilder().header(header, String.valueOf(remainingMs)).build());
+    }
+}
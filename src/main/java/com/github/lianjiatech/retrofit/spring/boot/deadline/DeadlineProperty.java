@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import lombok.Data;
+
+/**
+ * 截止时间传递配置
+ * <p>
+ * Deadline propagation config
+ *
+ * @author 陈添明
+ */
+@Data
+public class DeadlineProperty {
+
+    /**
+     * 是否启用截止时间传递
+     * Whether to enable deadline propagation
+     */
+    private boolean enable = false;
+
+    /**
+     * 传递剩余毫秒数的请求头
+     * Header carrying the remaining milliseconds
+     */
+    private String header = "X-Deadline-Remaining-Ms";
+}
@@ -1,5 +1,6 @@
 package com.github.lianjiatech.retrofit.spring.boot.degrade;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
 import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
 import com.github.lianjiatech.retrofit.spring.boot.util.RetrofitUtils;
 import org.springframework.context.EnvironmentAware;
@@ -38,6 +39,20 @@ public abstract class BaseRetrofitDegrade implements RetrofitDegrade, ResourceNa
         return resourceName;
     }
 
+    /**
+     * 优先使用预先解析的资源名称
+     *
+     * @param methodMetadata 方法元数据
+     * @return 资源名称
+     */
+    protected String getResourceName(MethodMetadata methodMetadata) {
+        String resourceName = methodMetadata.getResourceName();
+        if (resourceName != null) {
+            return resourceName;
+        }
+        return parseResourceName(methodMetadata.getMethod(), methodMetadata.getService());
+    }
+
     protected String formatResourceName(String baseUrl, HttpMethodPath httpMethodPath) {
         return String.format("%s:%s:%s", HTTP_OUT, httpMethodPath.getMethod(), baseUrl + httpMethodPath.getPath());
     }
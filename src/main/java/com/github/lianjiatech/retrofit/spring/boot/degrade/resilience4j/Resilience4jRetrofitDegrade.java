@@ -1,5 +1,6 @@
 package com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.BaseRetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
 import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
@@ -10,7 +11,6 @@ import io.github.resilience4j.core.StopWatch;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.springframework.core.annotation.AnnotatedElementUtils;
-import retrofit2.Invocation;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
@@ -82,12 +82,11 @@ public class Resilience4jRetrofitDegrade extends BaseRetrofitDegrade {
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Invocation invocation = request.tag(Invocation.class);
-        if (invocation == null) {
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        if (methodMetadata == null) {
             return chain.proceed(request);
         }
-        CircuitBreaker circuitBreaker =
-                circuitBreakerRegistry.find(parseResourceName(invocation.method(), invocation.service())).orElse(null);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.find(getResourceName(methodMetadata)).orElse(null);
         if (Objects.isNull(circuitBreaker)) {
             // 断路器为空则直接调用返回
             return chain.proceed(request);
@@ -4,13 +4,13 @@ import com.alibaba.csp.sentinel.*;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.BaseRetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
 import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.springframework.core.annotation.AnnotatedElementUtils;
-import retrofit2.Invocation;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
@@ -83,18 +83,15 @@ public class SentinelRetrofitDegrade extends BaseRetrofitDegrade {
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Invocation invocation = request.tag(Invocation.class);
-        if (invocation == null) {
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        if (methodMetadata == null) {
             return chain.proceed(request);
         }
-        Method method = invocation.method();
-        Class<?> service = invocation.service();
-        SentinelDegrade sentinelDegrade = AnnotationExtendUtils.findMergedAnnotation(method, service,
-                SentinelDegrade.class);
+        SentinelDegrade sentinelDegrade = methodMetadata.getSentinelDegrade();
         if (!needDegrade(sentinelDegrade)) {
             return chain.proceed(request);
         }
-        String resourceName = parseResourceName(method, service);
+        String resourceName = getResourceName(methodMetadata);
         Entry entry = null;
         try {
             entry = SphU.entry(resourceName, ResourceTypeConstants.COMMON_WEB, EntryType.OUT);
@@ -0,0 +1,31 @@
+package com.github.lianjiatech.retrofit.spring.boot.download;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 下载目标，接口方法返回Path时使用。响应体直接写入目标文件，内存占用与文件大小无关；下载失败时删除未写完的文件。
+ * <p>
+ * Download target for interface methods returning Path. The response body is written straight to the target file,
+ * so memory use does not depend on the file size. A partially written file is deleted when the download fails.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Documented
+public @interface Download {
+
+    /**
+     * 目标文件路径，已存在时会被覆盖，不存在的父目录会被创建。为空或者指向一个已存在的目录时，在该目录(默认系统临时目录)下创建临时文件
+     * <p>
+     * Target file, overwritten if it exists; missing parent directories are created. When empty or pointing to an
+     * existing directory, a temporary file is created in that directory (the system temp directory by default)
+     *
+     * @return 目标文件路径
+     */
+    String target() default "";
+}
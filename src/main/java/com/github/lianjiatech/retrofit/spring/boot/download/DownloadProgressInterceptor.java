@@ -0,0 +1,90 @@
+package com.github.lianjiatech.retrofit.spring.boot.download;
+
+import java.io.IOException;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * 请求携带{@link DownloadProgressListener}标签时包装响应体，在读取时回调下载进度。不携带标签的请求没有额外开销。
+ * <p>
+ * Wraps the response body of requests tagged with a {@link DownloadProgressListener} so that progress is reported as
+ * the body is read. Requests without the tag pay nothing.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class DownloadProgressInterceptor implements Interceptor {
+
+    public static final DownloadProgressInterceptor INSTANCE = new DownloadProgressInterceptor();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        DownloadProgressListener listener = request.tag(DownloadProgressListener.class);
+        Response response = chain.proceed(request);
+        if (listener == null || response.body() == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new ProgressResponseBody(response.body(), listener))
+                .build();
+    }
+
+    private static final class ProgressResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+
+        private final BufferedSource source;
+
+        ProgressResponseBody(ResponseBody delegate, DownloadProgressListener listener) {
+            this.delegate = delegate;
+            long contentLength = delegate.contentLength();
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+
+                private long bytesRead;
+
+                private boolean done;
+
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        if (!done) {
+                            done = true;
+                            listener.onProgress(bytesRead, contentLength, true);
+                        }
+                    } else {
+                        bytesRead += read;
+                        listener.onProgress(bytesRead, contentLength, false);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.download;
+
+/**
+ * 下载进度监听器，通过@Tag参数传入，例如：{@code Path download(@Tag DownloadProgressListener listener)}。
+ * 在读取响应体的线程上回调，返回Path时为调用线程，返回InputStream时为读取流的线程。
+ * <p>
+ * Download progress listener passed as a @Tag parameter, e.g.
+ * {@code Path download(@Tag DownloadProgressListener listener)}. It is called on the thread reading the body: the
+ * calling thread for Path, and whichever thread reads the stream for InputStream.
+ *
+ * @author 陈添明
+ */
+@FunctionalInterface
+public interface DownloadProgressListener {
+
+    /**
+     * 读取到新的数据或者读取结束时回调
+     * <p>
+     * Called when data has been read and once more when the body is exhausted
+     *
+     * @param bytesRead 已读取的字节数
+     * @param contentLength 响应体长度，未知时为-1
+     * @param done 是否读取完毕
+     */
+    void onProgress(long bytesRead, long contentLength, boolean done);
+}
@@ -0,0 +1,52 @@
+package com.github.lianjiatech.retrofit.spring.boot.download;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 分段并行下载，接口方法返回Path时使用，目标文件由@Download指定。通过同一个OkHttpClient并行发送Range请求，
+ * 拦截器、重试和日志对每个分段请求同样生效；分段写入预分配文件的对应位置，失败时只重新下载失败的分段。
+ * 服务端不支持Range时回退为单连接下载。
+ * <p>
+ * Parallel ranged download for interface methods returning Path, with the target given by @Download. Range requests
+ * are sent in parallel through the same OkHttpClient, so interceptors, retries and logging apply to every range.
+ * Ranges are written at their offsets into a preallocated file, and only failed ranges are downloaded again. Falls
+ * back to a single connection when the server does not support Range.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Documented
+public @interface RangedDownload {
+
+    /**
+     * 分段大小，-1表示使用全局配置
+     * <p>
+     * Range size in bytes, -1 means the global value is used
+     *
+     * @return 分段大小
+     */
+    long chunkSizeBytes() default -1;
+
+    /**
+     * 并行下载的分段数，-1表示使用全局配置
+     * <p>
+     * Number of ranges downloaded in parallel, -1 means the global value is used
+     *
+     * @return 并行度
+     */
+    int parallelism() default -1;
+
+    /**
+     * 失败分段的最大重新下载轮数，-1表示使用全局配置
+     * <p>
+     * Maximum rounds of downloading failed ranges again, -1 means the global value is used
+     *
+     * @return 最大重新下载轮数
+     */
+    int maxResumeAttempts() default -1;
+}
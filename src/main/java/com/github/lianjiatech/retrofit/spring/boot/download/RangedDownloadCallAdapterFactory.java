@@ -0,0 +1,114 @@
+package com.github.lianjiatech.retrofit.spring.boot.download;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.Objects;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.BlockingCallExecutor;
+import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.util.DownloadUtils;
+
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+
+/**
+ * 处理标注了@RangedDownload且返回Path的方法。分段请求基于接口方法构建的请求，直接通过Retrofit的OkHttpClient发送。
+ * <p>
+ * Handles methods annotated with @RangedDownload that return Path. Range requests are built from the request of the
+ * interface method and sent straight through the OkHttpClient of the Retrofit instance.
+ *
+ * @author 陈添明
+ */
+public final class RangedDownloadCallAdapterFactory extends CallAdapter.Factory
+        implements InternalCallAdapterFactory {
+
+    private final RangedDownloadProperty rangedDownloadProperty;
+
+    private final BlockingCallExecutor executor;
+
+    private final ErrorDecoderInterceptor errorDecoderInterceptor;
+
+    public RangedDownloadCallAdapterFactory(RangedDownloadProperty rangedDownloadProperty,
+            BlockingCallExecutor executor, ErrorDecoderInterceptor errorDecoderInterceptor) {
+        this.rangedDownloadProperty = rangedDownloadProperty;
+        this.executor = executor;
+        this.errorDecoderInterceptor = errorDecoderInterceptor;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (returnType != Path.class) {
+            return null;
+        }
+        RangedDownload rangedDownload = findRangedDownload(annotations);
+        if (rangedDownload == null) {
+            return null;
+        }
+        long chunkSizeBytes = rangedDownload.chunkSizeBytes() > 0 ? rangedDownload.chunkSizeBytes()
+                : rangedDownloadProperty.getChunkSizeBytes();
+        int parallelism = rangedDownload.parallelism() > 0 ? rangedDownload.parallelism()
+                : rangedDownloadProperty.getParallelism();
+        int maxResumeAttempts = rangedDownload.maxResumeAttempts() >= 0 ? rangedDownload.maxResumeAttempts()
+                : rangedDownloadProperty.getMaxResumeAttempts();
+        String target = DownloadUtils.findTarget(annotations);
+        return new RangedDownloadCallAdapter(retrofit.callFactory(), target, chunkSizeBytes, parallelism,
+                maxResumeAttempts);
+    }
+
+    private static RangedDownload findRangedDownload(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            RangedDownload rangedDownload = annotation instanceof RangedDownload ? (RangedDownload)annotation
+                    : AnnotatedElementUtils.findMergedAnnotation(annotation.annotationType(), RangedDownload.class);
+            if (rangedDownload != null) {
+                return rangedDownload;
+            }
+        }
+        return null;
+    }
+
+    private final class RangedDownloadCallAdapter implements CallAdapter<Void, Path> {
+
+        private final okhttp3.Call.Factory callFactory;
+
+        private final String target;
+
+        private final long chunkSizeBytes;
+
+        private final int parallelism;
+
+        private final int maxResumeAttempts;
+
+        RangedDownloadCallAdapter(okhttp3.Call.Factory callFactory, String target, long chunkSizeBytes,
+                int parallelism, int maxResumeAttempts) {
+            this.callFactory = callFactory;
+            this.target = target;
+            this.chunkSizeBytes = chunkSizeBytes;
+            this.parallelism = parallelism;
+            this.maxResumeAttempts = maxResumeAttempts;
+        }
+
+        @Override
+        public Type responseType() {
+            return Void.class;
+        }
+
+        @Override
+        public Path adapt(Call<Void> call) {
+            Request request = call.request();
+            try {
+                return new RangedDownloader(callFactory, request, chunkSizeBytes, parallelism, maxResumeAttempts,
+                        executor, errorDecoderInterceptor).download(DownloadUtils.createTarget(target));
+            } catch (IOException e) {
+                throw Objects.requireNonNull(RetrofitException.errorExecuting(request, e));
+            }
+        }
+    }
+}
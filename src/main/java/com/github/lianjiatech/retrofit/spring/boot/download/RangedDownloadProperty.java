@@ -0,0 +1,32 @@
+package com.github.lianjiatech.retrofit.spring.boot.download;
+
+import lombok.Data;
+
+/**
+ * 分段并行下载全局配置
+ * <p>
+ * Global ranged download config
+ *
+ * @author 陈添明
+ */
+@Data
+public class RangedDownloadProperty {
+
+    /**
+     * 分段大小
+     * Range size in bytes
+     */
+    private long chunkSizeBytes = 8 * 1024 * 1024;
+
+    /**
+     * 并行下载的分段数
+     * Number of ranges downloaded in parallel
+     */
+    private int parallelism = 4;
+
+    /**
+     * 失败分段的最大重新下载轮数
+     * Maximum rounds of downloading failed ranges again
+     */
+    private int maxResumeAttempts = 3;
+}
@@ -0,0 +1,314 @@
+package com.github.lianjiatech.retrofit.spring.boot.download;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.BlockingCallExecutor;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitIOException;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * 分段并行下载。第一个分段请求同时用于探测文件大小，服务端返回206时预分配文件并将其余分段并行下载到对应位置；
+ * 后续分段携带If-Range，文件在下载过程中发生变化时分段请求失败而不是写入不一致的数据。
+ * <p>
+ * Parallel ranged download. The first range request also discovers the file size. When the server answers 206, the
+ * file is preallocated and the remaining ranges are downloaded in parallel to their offsets. Later ranges carry
+ * If-Range, so a file that changes during the download fails those ranges instead of mixing versions.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+final class RangedDownloader {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    /**
+     * 空文件无法满足任何Range，服务端返回416和该Content-Range
+     */
+    private static final String EMPTY_CONTENT_RANGE = "bytes */0";
+
+    private final okhttp3.Call.Factory callFactory;
+
+    private final Request request;
+
+    private final DownloadProgressListener listener;
+
+    private final long chunkSizeBytes;
+
+    private final int parallelism;
+
+    private final int maxResumeAttempts;
+
+    private final BlockingCallExecutor executor;
+
+    private final ErrorDecoderInterceptor errorDecoderInterceptor;
+
+    private final AtomicLong downloadedBytes = new AtomicLong();
+
+    private String ifRange;
+
+    private long totalBytes;
+
+    private volatile Exception lastError;
+
+    RangedDownloader(okhttp3.Call.Factory callFactory, Request request, long chunkSizeBytes, int parallelism,
+            int maxResumeAttempts, BlockingCallExecutor executor, ErrorDecoderInterceptor errorDecoderInterceptor) {
+        this.callFactory = callFactory;
+        // 进度按照整个文件汇总回调，分段请求不再单独回调
+        this.request = request.newBuilder().tag(DownloadProgressListener.class, null).build();
+        this.listener = request.tag(DownloadProgressListener.class);
+        this.chunkSizeBytes = chunkSizeBytes;
+        this.parallelism = parallelism;
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.executor = executor;
+        this.errorDecoderInterceptor = errorDecoderInterceptor;
+    }
+
+    /**
+     * 下载到目标文件，失败时删除未写完的文件
+     *
+     * @param target 目标文件
+     * @return 目标文件
+     * @throws IOException 下载失败，或者失败的分段超过最大重新下载轮数
+     */
+    Path download(Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Response response = probe();
+            if (response.code() == 200) {
+                // 服务端不支持Range，回退为单连接下载
+                writeAll(channel, response);
+                return target;
+            }
+            if (response.code() == 416) {
+                response.close();
+                reportProgress(0, 0);
+                return target;
+            }
+            Range first;
+            try {
+                long[] contentRange = parseContentRange(response);
+                totalBytes = contentRange[2];
+                ifRange = validator(response);
+                if (totalBytes > 0) {
+                    channel.write(ByteBuffer.allocate(1), totalBytes - 1);
+                }
+                first = new Range(contentRange[0], contentRange[1]);
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+            List<Range> pending = new ArrayList<>();
+            try {
+                writeRange(channel, response, first);
+            } catch (IOException | RuntimeException e) {
+                onRangeFailed(first, e);
+                pending.add(first);
+            }
+            for (long start = first.end + 1; start < totalBytes; start += chunkSizeBytes) {
+                pending.add(new Range(start, Math.min(start + chunkSizeBytes, totalBytes) - 1));
+            }
+            for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                if (attempt > maxResumeAttempts) {
+                    throw new IOException(pending.size() + " ranges of " + request.url() + " still failed after "
+                            + maxResumeAttempts + " resume attempts", lastError);
+                }
+                if (attempt > 0) {
+                    log.warn("Resuming {} failed ranges, attempt {}. request={}", pending.size(), attempt,
+                            request.url());
+                }
+                pending = downloadRanges(channel, pending);
+            }
+            return target;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * 请求第一个分段，同时获取文件大小。文件大小未知时无法下载其它分段，IO异常和5xx响应按照最大重新下载轮数重试，
+     * 其它错误响应直接交给ErrorDecoder解码。返回的响应码只会是200、206，或者表示空文件的416
+     */
+    private Response probe() throws IOException {
+        Range first = new Range(0, chunkSizeBytes - 1);
+        for (int attempt = 0; ; attempt++) {
+            Request probeRequest = rangeRequest(first);
+            Response response;
+            try {
+                response = callFactory.newCall(probeRequest).execute();
+            } catch (IOException | RetrofitIOException e) {
+                if (attempt >= maxResumeAttempts) {
+                    throw e;
+                }
+                onRangeFailed(first, e);
+                continue;
+            }
+            int code = response.code();
+            if (code == 200 || code == 206
+                    || code == 416 && EMPTY_CONTENT_RANGE.equals(response.header("Content-Range"))) {
+                return response;
+            }
+            if (code >= 500 && attempt < maxResumeAttempts) {
+                response.close();
+                onRangeFailed(first, new IOException("Unexpected response code " + code));
+                continue;
+            }
+            throw decodeInvalidResponse(probeRequest, response);
+        }
+    }
+
+    /**
+     * 使用接口的ErrorDecoder解码错误响应，ErrorDecoder返回null时错误响应也不能当作文件内容写入
+     */
+    private RuntimeException decodeInvalidResponse(Request request, Response response) {
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        RuntimeException exception = null;
+        try {
+            if (methodMetadata != null && methodMetadata.getErrorDecoder() != null) {
+                exception = errorDecoderInterceptor.decodeInvalidResponse(methodMetadata.getErrorDecoder(),
+                        request, response);
+            }
+            return exception == null ? RetrofitException.errorStatus(request, response) : exception;
+        } finally {
+            response.close();
+        }
+    }
+
+    private List<Range> downloadRanges(FileChannel channel, List<Range> ranges) {
+        Queue<Range> queue = new ConcurrentLinkedQueue<>(ranges);
+        Queue<Range> failed = new ConcurrentLinkedQueue<>();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, ranges.size()); i++) {
+            workers.add(() -> {
+                Range range;
+                while ((range = queue.poll()) != null) {
+                    try {
+                        Response response = callFactory.newCall(rangeRequest(range)).execute();
+                        writeRange(channel, response, range);
+                    } catch (IOException | RuntimeException e) {
+                        onRangeFailed(range, e);
+                        failed.add(range);
+                    }
+                }
+                return null;
+            });
+        }
+        executor.invokeAll(workers);
+        return new ArrayList<>(failed);
+    }
+
+    private void writeRange(FileChannel channel, Response response, Range range) throws IOException {
+        try (ResponseBody body = response.body()) {
+            // If-Range校验失败时服务端返回200和完整的文件
+            if (response.code() != 206) {
+                throw new IOException("Expected 206 for " + range + " but got " + response.code()
+                        + (response.code() == 200 ? ", the file may have changed" : ""));
+            }
+            long[] contentRange = parseContentRange(response);
+            if (contentRange[0] != range.start || contentRange[1] != range.end) {
+                throw new IOException("Expected " + range + " but got " + response.header("Content-Range"));
+            }
+            BufferedSource source = body.source();
+            long position = range.start;
+            long end = range.end + 1;
+            while (position < end) {
+                long transferred = channel.transferFrom(source, position, end - position);
+                if (transferred <= 0) {
+                    throw new EOFException("Unexpected end of " + range + " at " + position);
+                }
+                position += transferred;
+            }
+        }
+        reportProgress(downloadedBytes.addAndGet(range.end - range.start + 1), totalBytes);
+    }
+
+    private void writeAll(FileChannel channel, Response response) throws IOException {
+        long position = 0;
+        try (ResponseBody body = response.body()) {
+            BufferedSource source = body.source();
+            while (!source.exhausted()) {
+                position += channel.transferFrom(source, position, chunkSizeBytes);
+            }
+        }
+        reportProgress(position, position);
+    }
+
+    private Request rangeRequest(Range range) {
+        Request.Builder builder = request.newBuilder().header("Range", range.toString());
+        if (ifRange != null) {
+            builder.header("If-Range", ifRange);
+        }
+        return builder.build();
+    }
+
+    private void onRangeFailed(Range range, Exception e) {
+        lastError = e;
+        log.warn("Failed to download {}. request={}", range, request.url(), e);
+    }
+
+    private synchronized void reportProgress(long bytesRead, long contentLength) {
+        if (listener != null) {
+            listener.onProgress(bytesRead, contentLength, bytesRead == contentLength);
+        }
+    }
+
+    private static long[] parseContentRange(Response response) throws IOException {
+        String contentRange = response.header("Content-Range");
+        Matcher matcher = contentRange == null ? null : CONTENT_RANGE.matcher(contentRange);
+        if (matcher == null || !matcher.matches()) {
+            throw new IOException("Invalid Content-Range: " + contentRange);
+        }
+        return new long[] {Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)),
+            Long.parseLong(matcher.group(3))};
+    }
+
+    /**
+     * If-Range只能使用强ETag，没有时使用Last-Modified
+     */
+    private static String validator(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.header("Last-Modified");
+    }
+
+    private static final class Range {
+
+        private final long start;
+
+        private final long end;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String toString() {
+            return "bytes=" + start + "-" + end;
+        }
+    }
+}
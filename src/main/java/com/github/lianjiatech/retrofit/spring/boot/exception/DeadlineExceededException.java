@@ -0,0 +1,18 @@
+package com.github.lianjiatech.retrofit.spring.boot.exception;
+
+import java.io.InterruptedIOException;
+
+/**
+ * 截止时间已过，请求没有发送。与OkHttp的调用超时一样是InterruptedIOException，但不会被重试。
+ * <p>
+ * The deadline has already passed and the request was not sent. Like OkHttp's call timeout this is an
+ * InterruptedIOException, but it is never retried.
+ *
+ * @author 陈添明
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import lombok.Data;
+
+/**
+ * 对冲预算配置，对冲请求数限制为最近请求数的一定比例，再加上每秒少量的保底对冲次数
+ * <p>
+ * Hedge budget config
+ *
+ * @author 陈添明
+ */
+@Data
+public class GlobalHedgeProperty {
+
+    /**
+     * 统计窗口时间
+     * Sliding window over which requests and hedges are counted
+     */
+    private long windowMs = 10000;
+
+    /**
+     * 允许对冲的请求比例
+     * Ratio of recent requests that may be hedged
+     */
+    private double hedgeRatio = 0.1;
+
+    /**
+     * 每秒保底对冲次数
+     * Hedges always allowed per second
+     */
+    private int minHedgesPerSecond = 5;
+
+    /**
+     * 所有接口同时进行中的对冲请求最大数量(不包括第一次请求)，达到上限时不再发送对冲请求
+     * Maximum in-flight hedges of all hedged methods, first attempts excluded. No hedge is sent once it is reached
+     */
+    private int maxConcurrentAttempts = 64;
+}
@@ -0,0 +1,58 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 对冲请求。请求在delayMs内没有返回时，再发送一个相同的请求，优先选择不同的服务实例，先返回的结果生效，其它请求被取消。
+ * 只对幂等的GET、HEAD请求生效。
+ * <p>
+ * Hedged request. If the first attempt has not answered within the delay, another copy is sent, preferably to a
+ * different service instance. The first response wins and the others are cancelled. Only GET and HEAD are hedged.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface Hedge {
+
+    /**
+     * 是否启用对冲
+     *
+     * @return 是否启用对冲
+     */
+    boolean enable() default true;
+
+    /**
+     * 发送对冲请求前的等待时间；配置了delayPercentile时，作为样本不足时的默认值
+     * <p>
+     * Delay before sending a hedge, or the fallback delay until enough latency samples are collected
+     *
+     * @return 等待时间
+     */
+    int delayMs() default 100;
+
+    /**
+     * 根据该方法最近耗时的分位数确定等待时间，例如0.95表示使用p95耗时。小于等于0表示使用固定的delayMs
+     * <p>
+     * Learned latency percentile used as the delay, e.g. 0.95 for p95. Less than or equal to 0 means fixed delayMs
+     *
+     * @return 耗时分位数
+     */
+    double delayPercentile() default 0;
+
+    /**
+     * 最多发送的请求数（包括第一次请求）
+     * <p>
+     * Maximum attempts, including the first one
+     *
+     * @return 最多发送的请求数
+     */
+    int maxAttempts() default 2;
+}
@@ -0,0 +1,481 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.CallStartTime;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceInstanceSelection;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudget;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Timeout;
+
+/**
+ * 对冲请求拦截器，每个@RetrofitClient接口一个实例。
+ * 第一个请求在调用线程上通过{@code chain.proceed}发送，对冲请求由定时器触发，通过hedgeClient异步发送。
+ * hedgeClient只包含超时、截止时间、服务实例选择、日志等拦截器，不包含重试拦截器：对冲方法不再重试，某个请求失败时立即发送下一个对冲请求。
+ * hedgeClient使用所有接口共享的有界Dispatcher，只有对冲请求占用它的并发数，并发数已满时不再发送对冲请求。
+ * 对冲请求沿用外部调用开始时计算的截止时间，外部调用取消时所有请求都会被取消，包括正在读取响应体的胜出请求。
+ * <p>
+ * Hedge interceptor, one per retrofit client. The primary attempt is sent on the calling thread through
+ * {@code chain.proceed}, hedges are fired by a timer and enqueued on a client with a shared, bounded dispatcher. That
+ * client applies timeouts, deadlines, instance selection and logging per attempt but has no retry interceptor: a
+ * hedged method is not retried, a failed attempt triggers the next hedge immediately instead. Only hedges count
+ * against the dispatcher limit, and no hedge is sent while it is saturated. Hedges share the deadline derived from the
+ * start of the outer call, and canceling the outer call cancels every attempt, including a winner whose body is still
+ * being read.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class HedgeInterceptor implements Interceptor {
+
+    /**
+     * 使用耗时分位数之前至少需要的样本数
+     */
+    private static final int MIN_LATENCY_SAMPLES = 100;
+
+    /**
+     * 等待对冲请求或者读取对冲响应时检查外部调用是否取消的间隔
+     */
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private final OkHttpClient hedgeClient;
+
+    private final ScheduledExecutorService hedgeScheduler;
+
+    private final RetryBudget hedgeBudget;
+
+    private final LongAdder hedgeCount = new LongAdder();
+
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public HedgeInterceptor(OkHttpClient hedgeClient, ScheduledExecutorService hedgeScheduler,
+            RetryBudget hedgeBudget) {
+        // 异步请求中拦截器抛出的非IOException不会回调Callback，这里转换成IOException，等待结果时再还原
+        OkHttpClient.Builder builder = hedgeClient.newBuilder();
+        builder.interceptors().add(0, chain -> {
+            try {
+                return chain.proceed(chain.request());
+            } catch (RuntimeException | Error e) {
+                throw new AttemptFailedException(e);
+            }
+        });
+        this.hedgeClient = builder.build();
+        this.hedgeScheduler = hedgeScheduler;
+        this.hedgeBudget = hedgeBudget;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        if (methodMetadata == null || methodMetadata.getHedge() == null || !isIdempotent(request.method())) {
+            return chain.proceed(request);
+        }
+        return hedgeIntercept(chain, methodMetadata.getHedge(), methodMetadata.getLatencyHistogram());
+    }
+
+    protected boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    protected Response hedgeIntercept(Chain chain, Hedge hedge, LatencyHistogram latencyHistogram)
+            throws IOException {
+        hedgeBudget.deposit();
+        Request request = chain.request().newBuilder()
+                .tag(ServiceInstanceSelection.class, new ServiceInstanceSelection())
+                .build();
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeDelayMs(hedge, latencyHistogram));
+        HedgedCall hedgedCall = new HedgedCall(chain.call(), request, hedge, latencyHistogram,
+                outerDeadlineNanos(chain.call(), request), delayNanos);
+        hedgedCall.scheduleHedge();
+        Response response = null;
+        Throwable failure = null;
+        long start = System.nanoTime();
+        try {
+            response = chain.proceed(request.newBuilder().tag(PrimaryAttempt.class, hedgedCall.primary).build());
+            if (latencyHistogram != null) {
+                latencyHistogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            failure = e;
+        }
+        return hedgedCall.primaryCompleted(response, failure);
+    }
+
+    /**
+     * 外部调用的截止时间，取传递的deadline和调用超时（如{@code @Timeout}的callTimeoutMs）中较早的一个。
+     * 调用超时从外部调用开始时计算，扣除之前已经花费的时间。
+     *
+     * @param call 外部调用
+     * @param request 外部请求
+     * @return System.nanoTime()表示的截止时间，没有时返回{@link #NO_DEADLINE}
+     */
+    private static long outerDeadlineNanos(Call call, Request request) {
+        Timeout timeout = call.timeout();
+        long deadlineNanos = NO_DEADLINE;
+        if (timeout.hasDeadline()) {
+            deadlineNanos = timeout.deadlineNanoTime();
+        }
+        if (timeout.timeoutNanos() > 0) {
+            CallStartTime callStartTime = request.tag(CallStartTime.class);
+            long startNanos = callStartTime == null ? System.nanoTime() : callStartTime.getNanoTime();
+            long callDeadlineNanos = startNanos + timeout.timeoutNanos();
+            if (deadlineNanos == NO_DEADLINE || callDeadlineNanos - deadlineNanos < 0) {
+                deadlineNanos = callDeadlineNanos;
+            }
+        }
+        return deadlineNanos;
+    }
+
+    protected long hedgeDelayMs(Hedge hedge, LatencyHistogram latencyHistogram) {
+        if (hedge.delayPercentile() <= 0 || latencyHistogram == null
+                || latencyHistogram.count() < MIN_LATENCY_SAMPLES) {
+            return hedge.delayMs();
+        }
+        return latencyHistogram.percentile(hedge.delayPercentile());
+    }
+
+    /**
+     * 累计发送的对冲请求数
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    /**
+     * 累计对冲请求先返回的次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    /**
+     * 累计因预算不足或者对冲调度器并发数已满没有发送的对冲请求数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public RetryBudget getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException)failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        }
+        throw (Error)failure;
+    }
+
+    /**
+     * 一次对冲调用的状态，第一个请求在调用线程上执行，对冲请求在hedgeClient的Dispatcher上执行
+     */
+    private final class HedgedCall {
+
+        private final Call outerCall;
+
+        private final Request request;
+
+        private final Hedge hedge;
+
+        private final LatencyHistogram latencyHistogram;
+
+        private final long deadlineNanos;
+
+        private final long delayNanos;
+
+        private final PrimaryAttempt primary = new PrimaryAttempt();
+
+        private final List<Attempt> hedges = new ArrayList<>(1);
+
+        private ScheduledFuture<?> hedgeTimer;
+
+        /**
+         * 因预算不足或者并发数已满停止对冲
+         */
+        private boolean hedgingStopped;
+
+        private boolean finished;
+
+        private int pendingHedges;
+
+        private Attempt winner;
+
+        private Throwable lastFailure;
+
+        HedgedCall(Call outerCall, Request request, Hedge hedge, LatencyHistogram latencyHistogram,
+                long deadlineNanos, long delayNanos) {
+            this.outerCall = outerCall;
+            this.request = request;
+            this.hedge = hedge;
+            this.latencyHistogram = latencyHistogram;
+            this.deadlineNanos = deadlineNanos;
+            this.delayNanos = delayNanos;
+        }
+
+        private boolean canHedge() {
+            return !finished && !hedgingStopped && 1 + hedges.size() < hedge.maxAttempts();
+        }
+
+        /**
+         * 等待一段时间之后发送下一个对冲请求
+         */
+        synchronized void scheduleHedge() {
+            if (canHedge()) {
+                hedgeTimer = hedgeScheduler.schedule(() -> startHedge("delay"), delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        synchronized void startHedge(String reason) {
+            if (!canHedge()) {
+                return;
+            }
+            if (deadlineNanos != NO_DEADLINE && deadlineNanos - System.nanoTime() <= 0) {
+                return;
+            }
+            Dispatcher dispatcher = hedgeClient.dispatcher();
+            if (dispatcher.runningCallsCount() >= dispatcher.getMaxRequests() || !hedgeBudget.tryWithdraw()) {
+                // 排队的对冲请求无法降低耗时，直接放弃
+                rejectedCount.increment();
+                hedgingStopped = true;
+                return;
+            }
+            hedgeCount.increment();
+            log.debug("Send hedged request after {}, request={}", reason, request);
+            Attempt attempt = new Attempt(hedgeClient.newCall(request), this, latencyHistogram);
+            // 每个请求都是新的Call，去掉client默认的调用超时，沿用外部调用的截止时间
+            attempt.call.timeout().timeout(0, TimeUnit.NANOSECONDS);
+            if (deadlineNanos != NO_DEADLINE) {
+                attempt.call.timeout().deadlineNanoTime(deadlineNanos);
+            }
+            hedges.add(attempt);
+            pendingHedges++;
+            attempt.call.enqueue(attempt);
+            scheduleHedge();
+        }
+
+        synchronized void complete(Attempt attempt) {
+            pendingHedges--;
+            if (finished) {
+                // 已经有请求胜出，丢弃结果
+                if (attempt.response != null) {
+                    attempt.response.close();
+                }
+                return;
+            }
+            if (attempt.response != null) {
+                winner = attempt;
+                finish();
+                // 中止调用线程上的第一个请求
+                primary.abort();
+            } else {
+                lastFailure = attempt.failure;
+                startHedge("failure");
+            }
+            notifyAll();
+        }
+
+        /**
+         * 第一个请求结束，返回胜出的响应，或者等待仍在进行中的对冲请求
+         */
+        Response primaryCompleted(Response response, Throwable failure) throws IOException {
+            synchronized (this) {
+                if (winner != null) {
+                    if (response != null) {
+                        response.close();
+                    }
+                    return winnerResponse();
+                }
+                if (response != null) {
+                    finish();
+                    return response;
+                }
+                lastFailure = failure;
+                if (outerCall.isCanceled()) {
+                    finish();
+                    rethrow(failure);
+                }
+                startHedge("failure");
+            }
+            return awaitHedges();
+        }
+
+        private synchronized Response awaitHedges() throws IOException {
+            while (true) {
+                if (winner != null) {
+                    return winnerResponse();
+                }
+                if (pendingHedges == 0) {
+                    // 所有请求都失败，抛出最后一个异常
+                    finish();
+                    rethrow(lastFailure);
+                }
+                if (outerCall.isCanceled()) {
+                    finish();
+                    throw new IOException("Canceled");
+                }
+                long waitNanos = CHECK_INTERVAL_NANOS;
+                if (deadlineNanos != NO_DEADLINE) {
+                    long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        finish();
+                        throw new InterruptedIOException("timeout");
+                    }
+                    waitNanos = Math.min(waitNanos, remainingNanos);
+                }
+                try {
+                    // 等待时间有上限，以便及时响应外部调用的取消
+                    TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                } catch (InterruptedException e) {
+                    finish();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for hedged requests");
+                }
+            }
+        }
+
+        /**
+         * 对冲请求胜出，它的Call与外部调用的取消绑定，直到响应体关闭
+         */
+        private Response winnerResponse() {
+            hedgeWinCount.increment();
+            Call call = winner.call;
+            ScheduledFuture<?> cancelWatcher = hedgeScheduler.scheduleWithFixedDelay(() -> {
+                if (outerCall.isCanceled()) {
+                    call.cancel();
+                }
+            }, CHECK_INTERVAL_NANOS, CHECK_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+            Response response = winner.response;
+            ResponseBody body = response.body();
+            if (body == null) {
+                cancelWatcher.cancel(false);
+                return response;
+            }
+            return response.newBuilder().body(new WinnerResponseBody(body, cancelWatcher)).build();
+        }
+
+        /**
+         * 取消定时器和其它请求
+         */
+        private void finish() {
+            finished = true;
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            for (Attempt attempt : hedges) {
+                if (attempt != winner) {
+                    attempt.call.cancel();
+                }
+            }
+        }
+    }
+
+    private static final class Attempt implements Callback {
+
+        private final Call call;
+
+        private final HedgedCall hedgedCall;
+
+        private final LatencyHistogram latencyHistogram;
+
+        private final long start = System.nanoTime();
+
+        private Response response;
+
+        private Throwable failure;
+
+        Attempt(Call call, HedgedCall hedgedCall, LatencyHistogram latencyHistogram) {
+            this.call = call;
+            this.hedgedCall = hedgedCall;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            this.response = response;
+            if (latencyHistogram != null) {
+                latencyHistogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            hedgedCall.complete(this);
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            this.failure = e instanceof AttemptFailedException ? e.getCause() : e;
+            hedgedCall.complete(this);
+        }
+    }
+
+    /**
+     * 胜出的对冲响应体，关闭时停止检查外部调用是否取消
+     */
+    private static final class WinnerResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+
+        private final BufferedSource source;
+
+        WinnerResponseBody(ResponseBody delegate, ScheduledFuture<?> cancelWatcher) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public void close() throws IOException {
+                    cancelWatcher.cancel(false);
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    private static final class AttemptFailedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        AttemptFailedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
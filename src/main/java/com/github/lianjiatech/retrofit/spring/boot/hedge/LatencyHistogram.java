@@ -0,0 +1,135 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图，按1.25倍递增的桶统计耗时，用于估算最近一段时间的耗时分位数。
+ * 保留当前和上一个统计窗口的数据，计数使用LongAdder，无锁。
+ * <p>
+ * Lock-free latency histogram with geometric buckets, covering the current and the previous window.
+ *
+ * @author 陈添明
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private static final double GROWTH = 1.25;
+
+    /**
+     * 每个桶的上界（毫秒）
+     */
+    private static final long[] BOUNDS = new long[BUCKET_COUNT];
+
+    static {
+        double bound = 1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            BOUNDS[i] = (long)Math.ceil(bound);
+            bound *= GROWTH;
+        }
+    }
+
+    private final long windowNanos;
+
+    private final AtomicLong windowEpoch = new AtomicLong();
+
+    /**
+     * 0为当前窗口，1为上一个窗口
+     */
+    private final AtomicReferenceArray<LongAdder[]> windows = new AtomicReferenceArray<>(2);
+
+    public LatencyHistogram(long windowMs) {
+        this.windowNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(windowMs), 1);
+        this.windowEpoch.set(System.nanoTime() / windowNanos);
+        windows.set(0, newBuckets());
+        windows.set(1, newBuckets());
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param latencyMs 耗时
+     */
+    public void record(long latencyMs) {
+        rotateIfNecessary();
+        windows.get(0)[indexOf(latencyMs)].increment();
+    }
+
+    /**
+     * 样本数
+     *
+     * @return 当前和上一个窗口的样本数
+     */
+    public long count() {
+        rotateIfNecessary();
+        long count = 0;
+        for (int w = 0; w < 2; w++) {
+            for (LongAdder bucket : windows.get(w)) {
+                count += bucket.sum();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 耗时分位数
+     *
+     * @param percentile 分位数，取值(0,1]
+     * @return 耗时上界，没有样本时返回-1
+     */
+    public long percentile(double percentile) {
+        rotateIfNecessary();
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int w = 0; w < 2; w++) {
+            LongAdder[] buckets = windows.get(w);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long sum = buckets[i].sum();
+                counts[i] += sum;
+                total += sum;
+            }
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long target = (long)Math.ceil(total * Math.min(percentile, 1));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return BOUNDS[i];
+            }
+        }
+        return BOUNDS[BUCKET_COUNT - 1];
+    }
+
+    private void rotateIfNecessary() {
+        long epoch = System.nanoTime() / windowNanos;
+        long current = windowEpoch.get();
+        if (epoch != current && windowEpoch.compareAndSet(current, epoch)) {
+            // 超过两个窗口没有数据时，上一个窗口也已过期
+            windows.set(1, epoch - current == 1 ? windows.get(0) : newBuckets());
+            windows.set(0, newBuckets());
+        }
+    }
+
+    private static int indexOf(long latencyMs) {
+        int index = Arrays.binarySearch(BOUNDS, latencyMs);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    private static LongAdder[] newBuckets() {
+        LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+        return buckets;
+    }
+}
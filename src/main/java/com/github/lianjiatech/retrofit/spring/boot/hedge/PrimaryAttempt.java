@@ -0,0 +1,73 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+/**
+ * 对冲调用的第一个请求，作为请求的tag传递。第一个请求在调用线程上通过外部调用的拦截器链发送，不能取消外部调用，
+ * 因此对冲请求胜出时由{@link #NETWORK_INTERCEPTOR}关闭它正在使用的HTTP/1.x连接；HTTP/2连接由多个请求共享，不会被关闭，
+ * 第一个请求结束之后才会返回对冲请求的结果。
+ * <p>
+ * Primary attempt of a hedged call, passed as a request tag. It runs on the calling thread through the chain of the
+ * outer call, which must not be canceled, so a winning hedge aborts it by closing the HTTP/1.x connection it is using.
+ * HTTP/2 connections are shared and never closed, the hedge result is then returned once the primary attempt ends.
+ *
+ * @author 陈添明
+ */
+public final class PrimaryAttempt {
+
+    /**
+     * 记录第一个请求使用的连接，已经被中止时不再发送请求
+     */
+    public static final Interceptor NETWORK_INTERCEPTOR = chain -> {
+        Request request = chain.request();
+        PrimaryAttempt primaryAttempt = request.tag(PrimaryAttempt.class);
+        if (primaryAttempt == null) {
+            return chain.proceed(request);
+        }
+        primaryAttempt.attach(chain.connection());
+        try {
+            return chain.proceed(request);
+        } finally {
+            primaryAttempt.detach();
+        }
+    };
+
+    private Connection connection;
+
+    private boolean aborted;
+
+    PrimaryAttempt() {}
+
+    private synchronized void attach(Connection connection) throws IOException {
+        if (aborted) {
+            // 中止之后OkHttp可能在新连接上重试，InterruptedIOException不会再被重试
+            throw new InterruptedIOException("Canceled by a hedged request");
+        }
+        this.connection = connection;
+    }
+
+    private synchronized void detach() {
+        connection = null;
+    }
+
+    synchronized void abort() {
+        aborted = true;
+        if (connection == null || connection.protocol() == Protocol.HTTP_2
+                || connection.protocol() == Protocol.H2_PRIOR_KNOWLEDGE) {
+            return;
+        }
+        Socket socket = connection.socket();
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // 连接已经关闭
+        }
+    }
+}
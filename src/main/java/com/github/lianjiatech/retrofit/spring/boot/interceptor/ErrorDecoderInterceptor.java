@@ -1,7 +1,7 @@
 package com.github.lianjiatech.retrofit.spring.boot.interceptor;
 
 import com.github.lianjiatech.retrofit.spring.boot.core.ErrorDecoder;
-import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
 import com.github.lianjiatech.retrofit.spring.boot.util.AppContextUtils;
 import lombok.SneakyThrows;
 import okhttp3.Interceptor;
@@ -10,10 +10,11 @@ import okhttp3.Response;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.core.annotation.AnnotatedElementUtils;
-import retrofit2.Invocation;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author 陈添明
@@ -22,26 +23,38 @@ public class ErrorDecoderInterceptor implements Interceptor, ApplicationContextA
 
     protected ApplicationContext applicationContext;
 
+    /**
+     * 错误解码器实例缓存，同一个错误解码器类型只解析一次
+     */
+    private final Map<Class<? extends ErrorDecoder>, ErrorDecoder> errorDecoderCache = new ConcurrentHashMap<>(8);
+
+    private final LongAdder[] decodeCounters = new LongAdder[DecodeOutcome.values().length];
+
+    public ErrorDecoderInterceptor() {
+        for (int i = 0; i < decodeCounters.length; i++) {
+            decodeCounters[i] = new LongAdder();
+        }
+    }
+
     @Override
     @SneakyThrows
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Invocation invocation = request.tag(Invocation.class);
-        if (invocation == null) {
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        if (methodMetadata == null) {
             return chain.proceed(request);
         }
-        RetrofitClient retrofitClient =
-                AnnotatedElementUtils.findMergedAnnotation(invocation.service(), RetrofitClient.class);
-        ErrorDecoder errorDecoder =
-                AppContextUtils.getBeanOrNew(applicationContext, retrofitClient.errorDecoder());
+        ErrorDecoder errorDecoder = methodMetadata.getErrorDecoder();
         boolean decoded = false;
         try {
             Response response = chain.proceed(request);
-            if (errorDecoder == null) {
+            if (errorDecoder == null || ((methodMetadata.isAsync() || methodMetadata.isRangedDownload())
+                    && !response.isSuccessful())) {
+                // 异步调用的非2xx响应在重试结束之后由RetryCallAdapterFactory解码，分段下载的非2xx响应由RangedDownloader解码
                 return response;
             }
             decoded = true;
-            Exception exception = errorDecoder.invalidRespDecode(request, response);
+            RuntimeException exception = decodeInvalidResponse(errorDecoder, request, response);
             if (exception == null) {
                 return response;
             }
@@ -50,17 +63,89 @@ public class ErrorDecoderInterceptor implements Interceptor, ApplicationContextA
             if (decoded) {
                 throw e;
             }
+            record(DecodeOutcome.IO_EXCEPTION);
             throw errorDecoder.ioExceptionDecode(request, e);
         } catch (Exception e) {
             if (decoded && e instanceof RuntimeException) {
                 throw (RuntimeException)e;
             }
+            record(DecodeOutcome.EXCEPTION);
             throw errorDecoder.exceptionDecode(request, e);
         }
     }
 
+    /**
+     * 解析错误解码器，优先从Spring容器获取，获取不到则反射创建。解析结果按照类型缓存，在创建接口实例时调用。
+     *
+     * @param errorDecoderClass 错误解码器类型
+     * @return 错误解码器实例
+     */
+    public ErrorDecoder resolveErrorDecoder(Class<? extends ErrorDecoder> errorDecoderClass) {
+        return errorDecoderCache.computeIfAbsent(errorDecoderClass,
+                clz -> AppContextUtils.getBeanOrNew(applicationContext, clz));
+    }
+
+    /**
+     * 使用错误解码器解码响应结果，并记录解码结果
+     *
+     * @param errorDecoder 错误解码器
+     * @param request 请求
+     * @param response 响应
+     * @return 解码后的异常，响应有效时返回null
+     */
+    public RuntimeException decodeInvalidResponse(ErrorDecoder errorDecoder, Request request, Response response) {
+        RuntimeException exception;
+        try {
+            exception = errorDecoder.invalidRespDecode(request, response);
+        } catch (RuntimeException e) {
+            exception = e;
+        }
+        record(exception == null ? DecodeOutcome.VALID_RESPONSE : DecodeOutcome.INVALID_RESPONSE);
+        return exception;
+    }
+
+    /**
+     * 获取指定解码结果的累计次数
+     *
+     * @param outcome 解码结果
+     * @return 累计次数
+     */
+    public long getDecodeCount(DecodeOutcome outcome) {
+        return decodeCounters[outcome.ordinal()].sum();
+    }
+
+    protected void record(DecodeOutcome outcome) {
+        decodeCounters[outcome.ordinal()].increment();
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
     }
+
+    /**
+     * 错误解码结果
+     */
+    public enum DecodeOutcome {
+
+        /**
+         * 响应有效，原样返回
+         */
+        VALID_RESPONSE,
+
+        /**
+         * 响应无效，解码为异常
+         */
+        INVALID_RESPONSE,
+
+        /**
+         * 发生IO异常
+         */
+        IO_EXCEPTION,
+
+        /**
+         * 发生其它异常
+         */
+        EXCEPTION,
+    }
 }
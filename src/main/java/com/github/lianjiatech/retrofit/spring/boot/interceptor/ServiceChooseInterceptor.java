@@ -1,54 +1,285 @@
 package com.github.lianjiatech.retrofit.spring.boot.interceptor;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
 import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
 import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.OutlierDetector;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstance;
+import lombok.extern.slf4j.Slf4j;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.util.StringUtils;
 import retrofit2.Invocation;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
+ * 通过serviceId选择服务实例。位于重试拦截器之后，每次重试都会重新选择实例，并避开同一次调用已经尝试过的实例。
+ * {@link #getUrlResolvingInterceptor()}位于自定义拦截器之前，预先为第一次请求选择实例并改写URL，
+ * 因此全局拦截器和@Intercept拦截器看到的仍然是实例的真实地址，第一次请求直接使用预先选择的实例。
+ * <p>
+ * Chooses a service instance for every attempt. It sits after the retry interceptor, so each retry re-selects an
+ * instance and avoids the ones already tried by the same call. {@link #getUrlResolvingInterceptor()} runs before the
+ * user interceptors and picks the instance of the first attempt up front, so global and @Intercept interceptors still
+ * see the resolved instance URL.
+ *
  * @author 陈添明
  */
+@Slf4j
 public class ServiceChooseInterceptor implements Interceptor {
 
     protected final ServiceInstanceChooser serviceInstanceChooser;
 
+    /**
+     * 异常实例摘除，未启用时为null
+     */
+    protected final OutlierDetector outlierDetector;
+
+    /**
+     * 携带路由key的请求头，为空时不从请求头获取路由key
+     */
+    protected final String routeKeyHeader;
+
+    private final LongAdder reselectCount = new LongAdder();
+
+    private final LongAdder reselectTriedCount = new LongAdder();
+
+    private final Interceptor urlResolvingInterceptor = new UrlResolvingInterceptor();
+
     public ServiceChooseInterceptor(ServiceInstanceChooser serviceDiscovery) {
+        this(serviceDiscovery, null, null);
+    }
+
+    public ServiceChooseInterceptor(ServiceInstanceChooser serviceDiscovery, OutlierDetector outlierDetector) {
+        this(serviceDiscovery, outlierDetector, null);
+    }
+
+    public ServiceChooseInterceptor(ServiceInstanceChooser serviceDiscovery, OutlierDetector outlierDetector,
+            String routeKeyHeader) {
         this.serviceInstanceChooser = serviceDiscovery;
+        this.outlierDetector = outlierDetector;
+        this.routeKeyHeader = routeKeyHeader;
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Invocation invocation = request.tag(Invocation.class);
-        if (invocation == null) {
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        if (methodMetadata == null) {
             return chain.proceed(request);
         }
-        RetrofitClient retrofitClient =
-                AnnotatedElementUtils.findMergedAnnotation(invocation.service(), RetrofitClient.class);
+        RetrofitClient retrofitClient = methodMetadata.getRetrofitClient();
         String baseUrl = retrofitClient.baseUrl();
         if (StringUtils.hasText(baseUrl)) {
             return chain.proceed(request);
         }
         // serviceId服务发现
         String serviceId = retrofitClient.serviceId();
-        URI uri = serviceInstanceChooser.choose(serviceId);
+        ServiceInstanceSelection selection = request.tag(ServiceInstanceSelection.class);
+        PreselectedInstance preselected = request.tag(PreselectedInstance.class);
+        if (preselected == null || !preselected.take()) {
+            preselected = choose(serviceId, selection, request, methodMetadata);
+        }
+        ServiceInstance instance = preselected.instance;
+        URI uri = preselected.uri;
+        LoadBalancedServiceInstanceChooser loadBalancedChooser = instance == null ? null
+                : (LoadBalancedServiceInstanceChooser)serviceInstanceChooser;
+        if (selection != null) {
+            recordAttempt(serviceId, selection, uri);
+        }
+        Request newReq = rewrite(request, uri);
+        if (instance == null && outlierDetector == null) {
+            return chain.proceed(newReq);
+        }
+        if (instance != null) {
+            newReq = newReq.newBuilder().tag(ServiceInstance.class, instance).build();
+            loadBalancedChooser.onStart(serviceId, instance);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Response response = chain.proceed(newReq);
+            success = response.code() < 500;
+            return response;
+        } finally {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (instance != null) {
+                loadBalancedChooser.onComplete(serviceId, instance, latencyMs, success);
+            }
+            if (outlierDetector != null) {
+                outlierDetector.record(serviceId, uri, latencyMs, success, instancesSupplier(serviceId));
+            }
+        }
+    }
+
+    /**
+     * 选择服务实例，对冲或者重试请求尽量避开已经尝试过的实例；同时避开被摘除的实例
+     */
+    private PreselectedInstance choose(String serviceId, ServiceInstanceSelection selection, Request request,
+            MethodMetadata methodMetadata) {
+        Set<URI> excluded = excluded(serviceId, selection);
+        if (serviceInstanceChooser instanceof LoadBalancedServiceInstanceChooser) {
+            ServiceInstance instance = ((LoadBalancedServiceInstanceChooser)serviceInstanceChooser)
+                    .chooseInstance(serviceId, excluded, routeKey(request, methodMetadata));
+            return new PreselectedInstance(instance.getUri(), instance);
+        }
+        URI uri = excluded.isEmpty() ? serviceInstanceChooser.choose(serviceId)
+                : serviceInstanceChooser.choose(serviceId, excluded);
+        return new PreselectedInstance(uri, null);
+    }
+
+    /**
+     * 服务当前的实例列表，只有支持负载均衡的选择器才能提供
+     */
+    private Supplier<List<ServiceInstance>> instancesSupplier(String serviceId) {
+        if (!(serviceInstanceChooser instanceof LoadBalancedServiceInstanceChooser)) {
+            return null;
+        }
+        LoadBalancedServiceInstanceChooser loadBalancedChooser =
+                (LoadBalancedServiceInstanceChooser)serviceInstanceChooser;
+        return () -> loadBalancedChooser.getInstances(serviceId);
+    }
+
+    /**
+     * 记录请求序号与实例的对应关系
+     */
+    private void recordAttempt(String serviceId, ServiceInstanceSelection selection, URI uri) {
+        List<URI> attempts = selection.getAttempts();
+        if (!attempts.isEmpty()) {
+            reselectCount.increment();
+            if (selection.getTriedInstances().contains(uri)) {
+                // 没有其它可用实例
+                reselectTriedCount.increment();
+            }
+            log.debug("Choose instance for attempt {}, serviceId={}, instance={}, previous attempts={}",
+                    attempts.size() + 1, serviceId, uri, attempts);
+        }
+        selection.add(uri);
+    }
+
+    /**
+     * 路由key，优先取@RouteKey参数的值，其次取routeKeyHeader请求头
+     */
+    protected String routeKey(Request request, MethodMetadata methodMetadata) {
+        int routeKeyIndex = methodMetadata.getRouteKeyIndex();
+        if (routeKeyIndex >= 0) {
+            Invocation invocation = request.tag(Invocation.class);
+            Object arg = invocation == null ? null : invocation.arguments().get(routeKeyIndex);
+            if (arg != null) {
+                return String.valueOf(arg);
+            }
+        }
+        if (StringUtils.hasText(routeKeyHeader)) {
+            return request.header(routeKeyHeader);
+        }
+        return null;
+    }
+
+    private Set<URI> excluded(String serviceId, ServiceInstanceSelection selection) {
+        Set<URI> tried = selection == null ? Collections.emptySet() : selection.getTriedInstances();
+        Set<URI> ejected = outlierDetector == null ? Collections.emptySet()
+                : outlierDetector.getEjectedInstances(serviceId);
+        if (ejected.isEmpty()) {
+            return tried;
+        }
+        if (tried.isEmpty()) {
+            return ejected;
+        }
+        Set<URI> excluded = new HashSet<>(tried);
+        excluded.addAll(ejected);
+        return excluded;
+    }
+
+    protected Request rewrite(Request request, URI uri) {
         HttpUrl url = request.url();
         HttpUrl newUrl = url.newBuilder()
                 .scheme(uri.getScheme())
                 .host(uri.getHost())
                 .port(uri.getPort())
                 .build();
-        Request newReq = request.newBuilder()
+        return request.newBuilder()
                 .url(newUrl)
                 .build();
-        return chain.proceed(newReq);
+    }
+
+    /**
+     * 添加在自定义拦截器之前，为第一次请求预先选择实例并改写URL
+     *
+     * @return 改写URL的拦截器
+     */
+    public Interceptor getUrlResolvingInterceptor() {
+        return urlResolvingInterceptor;
+    }
+
+    public ServiceInstanceChooser getServiceInstanceChooser() {
+        return serviceInstanceChooser;
+    }
+
+    public OutlierDetector getOutlierDetector() {
+        return outlierDetector;
+    }
+
+    /**
+     * 累计为重试、对冲请求重新选择实例的次数
+     */
+    public long getReselectCount() {
+        return reselectCount.sum();
+    }
+
+    /**
+     * 累计重新选择时只能选到已尝试实例的次数
+     */
+    public long getReselectTriedCount() {
+        return reselectTriedCount.sum();
+    }
+
+    private final class UrlResolvingInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+            if (methodMetadata == null || StringUtils.hasText(methodMetadata.getRetrofitClient().baseUrl())) {
+                return chain.proceed(request);
+            }
+            PreselectedInstance preselected = choose(methodMetadata.getRetrofitClient().serviceId(),
+                    request.tag(ServiceInstanceSelection.class), request, methodMetadata);
+            return chain.proceed(rewrite(request, preselected.uri).newBuilder()
+                    .tag(PreselectedInstance.class, preselected)
+                    .build());
+        }
+    }
+
+    /**
+     * 预先选择的实例，只能被第一次请求使用一次，重试时重新选择
+     */
+    private static final class PreselectedInstance {
+
+        private final URI uri;
+
+        private final ServiceInstance instance;
+
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        PreselectedInstance(URI uri, ServiceInstance instance) {
+            this.uri = uri;
+            this.instance = instance;
+        }
+
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
     }
 }
@@ -0,0 +1,55 @@
+package com.github.lianjiatech.retrofit.spring.boot.interceptor;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 同一次调用的多个请求（对冲、重试）之间共享的服务实例选择记录，作为请求的tag传递给{@link ServiceChooseInterceptor}，
+ * 使后续请求尽量选择不同的服务实例。
+ * <p>
+ * Instances already tried by one logical call, shared as a request tag so that hedges and retries prefer a
+ * different instance.
+ *
+ * @author 陈添明
+ */
+public final class ServiceInstanceSelection {
+
+    private final Set<URI> triedInstances = ConcurrentHashMap.newKeySet(4);
+
+    /**
+     * 按顺序记录每次请求选择的实例
+     */
+    private final List<URI> attempts = new CopyOnWriteArrayList<>();
+
+    /**
+     * 记录已选择的服务实例
+     *
+     * @param uri 服务实例uri
+     */
+    public void add(URI uri) {
+        triedInstances.add(uri);
+        attempts.add(uri);
+    }
+
+    /**
+     * 每次请求选择的实例，下标即请求序号
+     *
+     * @return 只读列表
+     */
+    public List<URI> getAttempts() {
+        return Collections.unmodifiableList(attempts);
+    }
+
+    /**
+     * 已尝试的服务实例
+     *
+     * @return 只读集合
+     */
+    public Set<URI> getTriedInstances() {
+        return Collections.unmodifiableSet(triedInstances);
+    }
+}
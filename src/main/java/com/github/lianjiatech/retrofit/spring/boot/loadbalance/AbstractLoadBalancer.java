@@ -0,0 +1,53 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 维护每个服务实例调用统计的负载均衡基类。长时间没有请求的实例统计会在出现新实例时被清理。
+ * <p>
+ * Base load balancer that keeps per-instance call statistics. Statistics of instances that have been idle for a long
+ * time are dropped when a new instance shows up.
+ *
+ * @author 陈添明
+ */
+public abstract class AbstractLoadBalancer implements LoadBalancer {
+
+    /**
+     * 实例超过该时间没有请求时清理其统计，避免实例上下线后统计无限增长
+     */
+    private static final long STATS_IDLE_EXPIRE_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final ConcurrentMap<URI, InstanceStats> instanceStats = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStart(String serviceId, ServiceInstance instance) {
+        while (!getStats(instance).start()) {
+            // 统计刚刚被清理，重新获取
+        }
+    }
+
+    @Override
+    public void onComplete(String serviceId, ServiceInstance instance, long latencyMs, boolean success) {
+        getStats(instance).complete(success);
+    }
+
+    /**
+     * 获取服务实例的调用统计
+     *
+     * @param instance 服务实例
+     * @return 调用统计
+     */
+    public InstanceStats getStats(ServiceInstance instance) {
+        InstanceStats stats = instanceStats.get(instance.getUri());
+        if (stats != null) {
+            return stats;
+        }
+        // 出现新实例说明实例列表可能已经变化，清理长时间没有请求的实例(通常已经下线)
+        long now = System.currentTimeMillis();
+        instanceStats.values().removeIf(s -> s.retireIfIdle(now, STATS_IDLE_EXPIRE_MS));
+        return instanceStats.computeIfAbsent(instance.getUri(), uri -> new InstanceStats());
+    }
+}
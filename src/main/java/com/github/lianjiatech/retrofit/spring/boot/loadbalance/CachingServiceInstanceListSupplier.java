@@ -0,0 +1,135 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.ServiceInstanceChooseException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 缓存实例列表的{@link ServiceInstanceListSupplier}。每个服务的实例列表保存为不可变数组，通过volatile引用发布，
+ * 由后台线程定时刷新，刷新失败或者返回空列表时继续使用旧数据，请求线程只读取快照，从不等待加载。
+ * 启动时扫描到的服务会被预加载；还没有加载完成的服务直接抛出{@link ServiceInstanceChooseException}，并在后台开始加载。
+ * <p>
+ * Caches the instance lists of a delegate supplier. Each service keeps an immutable snapshot published through a
+ * volatile reference and refreshed in the background; stale data is served when a refresh fails. Request threads
+ * only read snapshots and never wait: services scanned at startup are prefetched, and a service that is not loaded
+ * yet fails fast with a {@link ServiceInstanceChooseException} while it loads in the background.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class CachingServiceInstanceListSupplier implements ServiceInstanceListSupplier, AutoCloseable {
+
+    private final ServiceInstanceListSupplier delegate;
+
+    private final ServiceInstanceCacheProperty property;
+
+    private final ScheduledExecutorService refreshExecutor;
+
+    private final ConcurrentMap<String, CachedInstances> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder refreshFailureCount = new LongAdder();
+
+    public CachingServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+            ServiceInstanceCacheProperty property) {
+        this.delegate = delegate;
+        this.property = property;
+        this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "retrofit-instance-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<ServiceInstance> get(String serviceId) {
+        CachedInstances cached = cache.computeIfAbsent(serviceId, this::startRefresh);
+        ServiceInstance[] instances = cached.instances;
+        if (instances == null) {
+            throw new ServiceInstanceChooseException("Instances are not loaded yet! serviceId=" + serviceId,
+                    cached.loadFailure);
+        }
+        return Collections.unmodifiableList(Arrays.asList(instances));
+    }
+
+    @Override
+    public void prefetch(String serviceId) {
+        cache.computeIfAbsent(serviceId, this::startRefresh);
+    }
+
+    private CachedInstances startRefresh(String serviceId) {
+        CachedInstances cached = new CachedInstances();
+        refreshExecutor.scheduleWithFixedDelay(() -> refresh(serviceId, cached), 0,
+                property.getRefreshIntervalMs(), TimeUnit.MILLISECONDS);
+        return cached;
+    }
+
+    private void refresh(String serviceId, CachedInstances cached) {
+        try {
+            List<ServiceInstance> instances = delegate.get(serviceId);
+            if (instances == null || instances.isEmpty()) {
+                // 注册中心短暂异常时可能返回空列表，保留旧数据
+                if (cached.instances == null) {
+                    cached.instances = new ServiceInstance[0];
+                } else {
+                    log.warn("Refresh returns no instance, keep the stale instances! serviceId={}", serviceId);
+                }
+            } else {
+                cached.instances = instances.toArray(new ServiceInstance[0]);
+            }
+        } catch (Throwable e) {
+            refreshFailureCount.increment();
+            log.warn("Failed to refresh instances, keep the stale instances! serviceId={}", serviceId, e);
+            cached.loadFailure = e;
+        }
+    }
+
+    /**
+     * 当前缓存的实例列表，没有加载过时返回null
+     *
+     * @param serviceId 服务id
+     * @return 实例列表
+     */
+    public List<ServiceInstance> getCachedInstances(String serviceId) {
+        CachedInstances cached = cache.get(serviceId);
+        if (cached == null || cached.instances == null) {
+            return null;
+        }
+        return Collections.unmodifiableList(Arrays.asList(cached.instances));
+    }
+
+    /**
+     * 累计刷新失败次数
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.sum();
+    }
+
+    public ServiceInstanceListSupplier getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void close() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static final class CachedInstances {
+
+        private volatile ServiceInstance[] instances;
+
+        /**
+         * 最近一次刷新失败的原因
+         */
+        private volatile Throwable loadFailure;
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 一致性哈希(ketama)，相同路由key的请求发往同一个实例，实例增减时只有少量key迁移。
+ * 配置了balanceFactor时使用有界负载一致性哈希：实例处理中请求数超过平均值的balanceFactor倍时，顺时针选择下一个实例，避免热点key压垮单个实例。
+ * 没有路由key的请求按最少处理中请求数(P2C)选择。
+ * <p>
+ * Ketama consistent hashing. With a balance factor, consistent hashing with bounded loads is used: an instance whose
+ * in-flight requests exceed balanceFactor times the average is skipped clockwise. Requests without a route key fall
+ * back to power of two choices.
+ *
+ * @author 陈添明
+ */
+public class ConsistentHashLoadBalancer extends LeastOutstandingLoadBalancer {
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final int MEMBER_BITS = 20;
+
+    private static final long MEMBER_MASK = (1L << MEMBER_BITS) - 1;
+
+    private final int virtualNodes;
+
+    private final double balanceFactor;
+
+    private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * @param virtualNodes 每个实例的虚拟节点数
+     * @param balanceFactor 有界负载系数，必须大于1，小于等于0表示不限制负载
+     */
+    public ConsistentHashLoadBalancer(int virtualNodes, double balanceFactor) {
+        if (balanceFactor > 0 && balanceFactor <= 1) {
+            throw new IllegalArgumentException("balanceFactor must be greater than 1, balanceFactor=" + balanceFactor);
+        }
+        this.virtualNodes = Math.max(4, virtualNodes - virtualNodes % 4);
+        this.balanceFactor = balanceFactor;
+    }
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances, String routeKey) {
+        return choose(serviceId, instances, instances, routeKey);
+    }
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances,
+            List<ServiceInstance> candidates, String routeKey) {
+        if (routeKey == null || candidates.size() == 1) {
+            return super.choose(serviceId, candidates);
+        }
+        return choose(serviceId, getFullRing(serviceId, instances), candidates, routeKey);
+    }
+
+    private ServiceInstance choose(String serviceId, Ring ring, List<ServiceInstance> candidates, String routeKey) {
+        Set<ServiceInstance> candidateSet =
+                ring.instances.size() == candidates.size() ? null : new HashSet<>(candidates);
+        int capacity = capacity(candidates);
+        long hash = hash(routeKey, 0);
+        int index = Arrays.binarySearch(ring.hashes, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        ServiceInstance fallback = null;
+        for (int i = 0; i < ring.hashes.length; i++) {
+            ServiceInstance instance = ring.owners[(index + i) % ring.hashes.length];
+            if (candidateSet != null && !candidateSet.contains(instance)) {
+                // 非候选实例(已尝试、已摘除、其它可用区)
+                continue;
+            }
+            if (capacity == Integer.MAX_VALUE || getStats(instance).getOutstanding() < capacity) {
+                return instance;
+            }
+            if (fallback == null) {
+                fallback = instance;
+            }
+        }
+        return fallback == null ? super.choose(serviceId, candidates) : fallback;
+    }
+
+    /**
+     * 有界负载下每个实例允许的处理中请求数：ceil(balanceFactor * (总处理中请求数 + 1) / 实例数)
+     */
+    private int capacity(List<ServiceInstance> instances) {
+        if (balanceFactor <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        long outstanding = 1;
+        for (ServiceInstance instance : instances) {
+            outstanding += getStats(instance).getOutstanding();
+        }
+        return (int)Math.ceil(balanceFactor * outstanding / instances.size());
+    }
+
+    /**
+     * 基于服务的全部实例构建哈希环，只有实例列表本身变化时才重建，候选实例的变化通过遍历时跳过处理。
+     */
+    private Ring getFullRing(String serviceId, List<ServiceInstance> instances) {
+        Ring ring = rings.get(serviceId);
+        if (ring != null && ring.instances.size() == instances.size() && ring.containsAll(instances)) {
+            return ring;
+        }
+        Ring newRing = buildRing(ring, instances);
+        rings.put(serviceId, newRing);
+        return newRing;
+    }
+
+    /**
+     * 构建哈希环，上一个哈希环中仍然存在的实例复用其虚拟节点哈希值，只计算新增实例，已下线实例的哈希值随旧哈希环一起释放
+     */
+    private Ring buildRing(Ring previous, List<ServiceInstance> instances) {
+        Map<URI, ServiceInstance> members = new HashMap<>(instances.size() * 2);
+        for (ServiceInstance instance : instances) {
+            members.put(instance.getUri(), instance);
+        }
+        ServiceInstance[] memberArray = members.values().toArray(new ServiceInstance[0]);
+        Map<URI, long[]> nodeHashes = new HashMap<>(members.size() * 2);
+        long[] points = new long[memberArray.length * virtualNodes];
+        int n = 0;
+        for (int member = 0; member < memberArray.length; member++) {
+            URI uri = memberArray[member].getUri();
+            long[] hashes = previous == null ? null : previous.nodeHashes.get(uri);
+            if (hashes == null) {
+                hashes = nodeHashes(uri);
+            }
+            nodeHashes.put(uri, hashes);
+            for (long hash : hashes) {
+                // 高位为32位哈希值，低20位为实例序号，排序后即为有序的哈希环
+                points[n++] = hash << MEMBER_BITS | member;
+            }
+        }
+        Arrays.sort(points);
+        long[] hashes = new long[points.length];
+        ServiceInstance[] owners = new ServiceInstance[points.length];
+        for (int i = 0; i < points.length; i++) {
+            hashes[i] = points[i] >>> MEMBER_BITS;
+            owners[i] = memberArray[(int)(points[i] & MEMBER_MASK)];
+        }
+        return new Ring(hashes, owners, members, nodeHashes);
+    }
+
+    private long[] nodeHashes(URI uri) {
+        long[] hashes = new long[virtualNodes];
+        String node = uri.toString();
+        for (int i = 0; i < virtualNodes / 4; i++) {
+            byte[] digest = md5(node + "-" + i);
+            for (int h = 0; h < 4; h++) {
+                hashes[i * 4 + h] = hash(digest, h);
+            }
+        }
+        return hashes;
+    }
+
+    private static long hash(String key, int number) {
+        return hash(md5(key), number);
+    }
+
+    private static long hash(byte[] digest, int number) {
+        return (((long)(digest[3 + number * 4] & 0xFF) << 24)
+                | ((long)(digest[2 + number * 4] & 0xFF) << 16)
+                | ((long)(digest[1 + number * 4] & 0xFF) << 8)
+                | (digest[number * 4] & 0xFF)) & 0xFFFFFFFFL;
+    }
+
+    private static byte[] md5(String value) {
+        MessageDigest md5 = MD5.get();
+        md5.reset();
+        return md5.digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Ring {
+
+        private final long[] hashes;
+
+        private final ServiceInstance[] owners;
+
+        private final Map<URI, ServiceInstance> instances;
+
+        /**
+         * 每个实例的虚拟节点哈希值，重建哈希环时复用
+         */
+        private final Map<URI, long[]> nodeHashes;
+
+        Ring(long[] hashes, ServiceInstance[] owners, Map<URI, ServiceInstance> instances,
+                Map<URI, long[]> nodeHashes) {
+            this.hashes = hashes;
+            this.owners = owners;
+            this.instances = instances;
+            this.nodeHashes = nodeHashes;
+        }
+
+        boolean containsAll(List<ServiceInstance> candidates) {
+            for (ServiceInstance candidate : candidates) {
+                if (!instances.containsKey(candidate.getUri())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
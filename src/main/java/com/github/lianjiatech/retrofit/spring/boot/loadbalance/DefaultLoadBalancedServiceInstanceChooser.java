@@ -0,0 +1,115 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.ServiceInstanceChooseException;
+
+/**
+ * 基于{@link ServiceInstanceListSupplier}和{@link LoadBalancer}的服务实例选择器
+ * <p>
+ * Chooser that gets the instance list from a {@link ServiceInstanceListSupplier} and delegates selection and call
+ * outcomes to a {@link LoadBalancer}.
+ *
+ * @author 陈添明
+ */
+public class DefaultLoadBalancedServiceInstanceChooser implements LoadBalancedServiceInstanceChooser, DisposableBean {
+
+    private final ServiceInstanceListSupplier serviceInstanceListSupplier;
+
+    private final LoadBalancer loadBalancer;
+
+    /**
+     * 同可用区优先，未启用时为null
+     */
+    private final ZonePreference zonePreference;
+
+    public DefaultLoadBalancedServiceInstanceChooser(ServiceInstanceListSupplier serviceInstanceListSupplier,
+            LoadBalancer loadBalancer) {
+        this(serviceInstanceListSupplier, loadBalancer, null);
+    }
+
+    public DefaultLoadBalancedServiceInstanceChooser(ServiceInstanceListSupplier serviceInstanceListSupplier,
+            LoadBalancer loadBalancer, ZonePreference zonePreference) {
+        this.serviceInstanceListSupplier = serviceInstanceListSupplier;
+        this.loadBalancer = loadBalancer;
+        this.zonePreference = zonePreference;
+    }
+
+    @Override
+    public ServiceInstance chooseInstance(String serviceId, Set<URI> excluded) {
+        return chooseInstance(serviceId, excluded, null);
+    }
+
+    @Override
+    public ServiceInstance chooseInstance(String serviceId, Set<URI> excluded, String routeKey) {
+        List<ServiceInstance> instances = serviceInstanceListSupplier.get(serviceId);
+        if (instances == null || instances.isEmpty()) {
+            throw new ServiceInstanceChooseException("No available service instance! serviceId=" + serviceId);
+        }
+        List<ServiceInstance> candidates = exclude(instances, excluded);
+        if (zonePreference != null) {
+            candidates = zonePreference.filter(instances, candidates);
+        }
+        return loadBalancer.choose(serviceId, instances, candidates, routeKey);
+    }
+
+    /**
+     * 去掉已尝试过的实例，全部都尝试过时返回原列表
+     */
+    private List<ServiceInstance> exclude(List<ServiceInstance> instances, Set<URI> excluded) {
+        if (excluded == null || excluded.isEmpty()) {
+            return instances;
+        }
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!excluded.contains(instance.getUri())) {
+                candidates.add(instance);
+            }
+        }
+        return candidates.isEmpty() ? instances : candidates;
+    }
+
+    @Override
+    public List<ServiceInstance> getInstances(String serviceId) {
+        return serviceInstanceListSupplier.get(serviceId);
+    }
+
+    @Override
+    public void prefetch(String serviceId) {
+        serviceInstanceListSupplier.prefetch(serviceId);
+    }
+
+    @Override
+    public void onStart(String serviceId, ServiceInstance instance) {
+        loadBalancer.onStart(serviceId, instance);
+    }
+
+    @Override
+    public void onComplete(String serviceId, ServiceInstance instance, long latencyMs, boolean success) {
+        loadBalancer.onComplete(serviceId, instance, latencyMs, success);
+    }
+
+    public ServiceInstanceListSupplier getServiceInstanceListSupplier() {
+        return serviceInstanceListSupplier;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    public ZonePreference getZonePreference() {
+        return zonePreference;
+    }
+
+    @Override
+    public void destroy() {
+        if (serviceInstanceListSupplier instanceof CachingServiceInstanceListSupplier) {
+            ((CachingServiceInstanceListSupplier)serviceInstanceListSupplier).close();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务实例的调用统计，所有计数器都是无锁的。
+ * <p>
+ * Lock-free call statistics of one service instance.
+ *
+ * @author 陈添明
+ */
+public class InstanceStats {
+
+    /**
+     * 已被清理的统计，不能再开始新的请求
+     */
+    private static final int RETIRED = -1;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final LongAdder requestCount = new LongAdder();
+
+    private final LongAdder failureCount = new LongAdder();
+
+    private volatile long lastStartMs = System.currentTimeMillis();
+
+    /**
+     * 开始一次请求
+     *
+     * @return 统计已被清理时返回false，需要重新获取统计
+     */
+    boolean start() {
+        int current;
+        do {
+            current = outstanding.get();
+            if (current == RETIRED) {
+                return false;
+            }
+        } while (!outstanding.compareAndSet(current, current + 1));
+        lastStartMs = System.currentTimeMillis();
+        requestCount.increment();
+        return true;
+    }
+
+    void complete(boolean success) {
+        outstanding.decrementAndGet();
+        if (!success) {
+            failureCount.increment();
+        }
+    }
+
+    /**
+     * 没有处理中的请求，并且超过指定时间没有发送请求时，标记为已清理。标记之后{@link #start()}不会再成功，
+     * 因此不会有请求在已清理的统计上开始，却在新的统计上结束。
+     *
+     * @return 是否已标记为清理
+     */
+    boolean retireIfIdle(long now, long idleMs) {
+        if (now - lastStartMs <= idleMs || !outstanding.compareAndSet(0, RETIRED)) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastStartMs <= idleMs) {
+            // 检查之后又有请求开始并结束
+            outstanding.compareAndSet(RETIRED, 0);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 正在处理中的请求数
+     */
+    public int getOutstanding() {
+        return Math.max(outstanding.get(), 0);
+    }
+
+    /**
+     * 累计请求数
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * 累计失败请求数
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+}
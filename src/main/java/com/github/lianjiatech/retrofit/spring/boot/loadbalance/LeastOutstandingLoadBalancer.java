@@ -0,0 +1,38 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少处理中请求数（Power of Two Choices）：随机选取两个实例，选择处理中请求数较少的一个。
+ * 相比遍历全部实例，P2C避免了所有客户端同时涌向同一个"最空闲"实例，同时能显著降低长尾耗时。
+ * <p>
+ * Power of two choices over least outstanding requests: samples two distinct instances at random and picks the one
+ * with fewer in-flight requests.
+ *
+ * @author 陈添明
+ */
+public class LeastOutstandingLoadBalancer extends AbstractLoadBalancer {
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 1) {
+            return instances.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        int outstandingA = getStats(a).getOutstanding();
+        int outstandingB = getStats(b).getOutstanding();
+        if (outstandingA == outstandingB) {
+            return random.nextBoolean() ? a : b;
+        }
+        return outstandingA < outstandingB ? a : b;
+    }
+}
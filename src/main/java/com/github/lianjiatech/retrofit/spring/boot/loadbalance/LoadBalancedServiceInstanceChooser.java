@@ -0,0 +1,86 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+
+/**
+ * 支持负载均衡的服务实例选择器，能够获取完整的服务实例列表，并接收每次调用的结果反馈。
+ * {@link com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor}会在请求开始和结束时分别回调
+ * {@link #onStart(String, ServiceInstance)}和{@link #onComplete(String, ServiceInstance, long, boolean)}。
+ * <p>
+ * Extended chooser contract: works on the full instance list and is told about the outcome of every call.
+ *
+ * @author 陈添明
+ */
+public interface LoadBalancedServiceInstanceChooser extends ServiceInstanceChooser {
+
+    /**
+     * 选择服务实例，尽量避开已尝试过的实例
+     *
+     * @param serviceId 服务id
+     * @param excluded 已尝试过的实例uri
+     * @return 服务实例
+     */
+    ServiceInstance chooseInstance(String serviceId, Set<URI> excluded);
+
+    /**
+     * 按路由key选择服务实例，默认忽略路由key
+     *
+     * @param serviceId 服务id
+     * @param excluded 已尝试过的实例uri
+     * @param routeKey 路由key，可能为null
+     * @return 服务实例
+     */
+    default ServiceInstance chooseInstance(String serviceId, Set<URI> excluded, String routeKey) {
+        return chooseInstance(serviceId, excluded);
+    }
+
+    /**
+     * 获取服务当前的实例列表，用于按照当前实例计算统计数据
+     *
+     * @param serviceId 服务id
+     * @return 服务实例列表，不支持时返回null
+     */
+    default List<ServiceInstance> getInstances(String serviceId) {
+        return null;
+    }
+
+    /**
+     * 请求开始发送
+     *
+     * @param serviceId 服务id
+     * @param instance 选中的实例
+     */
+    default void onStart(String serviceId, ServiceInstance instance) {}
+
+    /**
+     * 请求结束
+     *
+     * @param serviceId 服务id
+     * @param instance 选中的实例
+     * @param latencyMs 请求耗时
+     * @param success 请求是否成功
+     */
+    default void onComplete(String serviceId, ServiceInstance instance, long latencyMs, boolean success) {}
+
+    /**
+     * 预加载服务的实例列表，在创建serviceId对应的接口实例时调用
+     *
+     * @param serviceId 服务id
+     */
+    default void prefetch(String serviceId) {}
+
+    @Override
+    default URI choose(String serviceId) {
+        return chooseInstance(serviceId, Collections.emptySet()).getUri();
+    }
+
+    @Override
+    default URI choose(String serviceId, Set<URI> excluded) {
+        return chooseInstance(serviceId, excluded).getUri();
+    }
+}
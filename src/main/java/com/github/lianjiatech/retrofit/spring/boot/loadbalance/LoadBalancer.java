@@ -0,0 +1,68 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.List;
+
+/**
+ * 负载均衡算法，从服务实例列表中选择一个实例，并接收每次调用的结果反馈。实现必须是线程安全的。
+ * <p>
+ * Load balancing algorithm. Picks one instance out of the full list and is told about the outcome of every call.
+ * Implementations must be thread safe.
+ *
+ * @author 陈添明
+ */
+public interface LoadBalancer {
+
+    /**
+     * 选择服务实例
+     *
+     * @param serviceId 服务id
+     * @param instances 候选实例，不为空
+     * @return 选中的实例
+     */
+    ServiceInstance choose(String serviceId, List<ServiceInstance> instances);
+
+    /**
+     * 按路由key选择服务实例，默认忽略路由key
+     *
+     * @param serviceId 服务id
+     * @param instances 候选实例，不为空
+     * @param routeKey 路由key，可能为null
+     * @return 选中的实例
+     */
+    default ServiceInstance choose(String serviceId, List<ServiceInstance> instances, String routeKey) {
+        return choose(serviceId, instances);
+    }
+
+    /**
+     * 按路由key从候选实例中选择服务实例，同时提供服务的全部实例，默认忽略全部实例。
+     * 需要稳定状态的算法(如一致性哈希)应基于全部实例构建，再跳过非候选实例，避免候选实例变化(排除、可用区溢出)时重建状态。
+     *
+     * @param serviceId 服务id
+     * @param instances 服务的全部实例，不为空
+     * @param candidates 候选实例，是instances的子集，不为空
+     * @param routeKey 路由key，可能为null
+     * @return 选中的实例
+     */
+    default ServiceInstance choose(String serviceId, List<ServiceInstance> instances,
+            List<ServiceInstance> candidates, String routeKey) {
+        return choose(serviceId, candidates, routeKey);
+    }
+
+    /**
+     * 请求开始发送
+     *
+     * @param serviceId 服务id
+     * @param instance 选中的实例
+     */
+    default void onStart(String serviceId, ServiceInstance instance) {}
+
+    /**
+     * 请求结束
+     *
+     * @param serviceId 服务id
+     * @param instance 选中的实例
+     * @param latencyMs 请求耗时
+     * @param success 请求是否成功，发生IO异常或者响应状态码为5xx时为false
+     */
+    default void onComplete(String serviceId, ServiceInstance instance, long latencyMs, boolean success) {}
+}
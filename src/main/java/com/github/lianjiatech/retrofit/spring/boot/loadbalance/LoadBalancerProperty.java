@@ -0,0 +1,62 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import lombok.Data;
+
+/**
+ * 负载均衡配置，只有容器中存在{@link ServiceInstanceListSupplier}时生效
+ * <p>
+ * Load balancer config, effective only when a {@link ServiceInstanceListSupplier} bean exists
+ *
+ * @author 陈添明
+ */
+@Data
+public class LoadBalancerProperty {
+
+    /**
+     * 负载均衡算法
+     * Load balancing algorithm
+     */
+    private LoadBalancerType type = LoadBalancerType.LEAST_OUTSTANDING;
+
+    /**
+     * 从该请求头获取路由key，方法参数没有@RouteKey注解时生效，为空表示不从请求头获取
+     * Request header carrying the route key, used when no parameter is annotated with @RouteKey
+     */
+    private String routeKeyHeader;
+
+    /**
+     * 一致性哈希每个实例的虚拟节点数
+     * Virtual nodes per instance on the consistent-hash ring
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * 一致性哈希有界负载系数，实例处理中请求数最多为平均值的该倍数，小于等于0表示不限制
+     * Bounded-load factor of consistent hashing, not bounded when not positive
+     */
+    private double hashBalanceFactor = 1.25;
+
+    /**
+     * 是否启用同可用区优先
+     * Whether to prefer instances in the local zone
+     */
+    private boolean zoneAware = false;
+
+    /**
+     * 本地可用区，为空时从环境变量{@link #localZoneEnv}获取
+     * Local zone, read from the environment variable localZoneEnv when empty
+     */
+    private String localZone;
+
+    /**
+     * 本地可用区对应的环境变量名
+     * Environment variable holding the local zone
+     */
+    private String localZoneEnv = "RETROFIT_ZONE";
+
+    /**
+     * 本地可用区可用实例占比低于该值时，溢出到所有可用区
+     * Spill over to other zones when the share of available local instances drops below this ratio
+     */
+    private double minLocalAvailableRatio = 0.5;
+}
@@ -0,0 +1,51 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+/**
+ * 内置负载均衡算法
+ * <p>
+ * Built-in load balancing algorithms
+ *
+ * @author 陈添明
+ */
+public enum LoadBalancerType {
+
+    /**
+     * 轮询
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 加权随机
+     */
+    WEIGHTED_RANDOM,
+
+    /**
+     * 最少处理中请求数（P2C）
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * 一致性哈希，按路由key选择实例
+     */
+    CONSISTENT_HASH,
+    ;
+
+    /**
+     * 创建负载均衡算法实例
+     *
+     * @param property 负载均衡配置
+     * @return LoadBalancer
+     */
+    public LoadBalancer create(LoadBalancerProperty property) {
+        switch (this) {
+            case ROUND_ROBIN:
+                return new RoundRobinLoadBalancer();
+            case WEIGHTED_RANDOM:
+                return new WeightedRandomLoadBalancer();
+            case CONSISTENT_HASH:
+                return new ConsistentHashLoadBalancer(property.getVirtualNodes(), property.getHashBalanceFactor());
+            default:
+                return new LeastOutstandingLoadBalancer();
+        }
+    }
+}
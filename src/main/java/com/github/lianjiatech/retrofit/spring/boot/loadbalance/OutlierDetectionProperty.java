@@ -0,0 +1,62 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import lombok.Data;
+
+/**
+ * 异常实例摘除配置。根据每个实例的连续失败次数和耗时EWMA被动检测异常实例，并在一段时间内不再选择该实例。
+ * <p>
+ * Outlier detection config. Instances are ejected passively based on consecutive failures and a latency EWMA.
+ *
+ * @author 陈添明
+ */
+@Data
+public class OutlierDetectionProperty {
+
+    /**
+     * 是否启用异常实例摘除
+     * Whether to enable outlier detection
+     */
+    private boolean enable = false;
+
+    /**
+     * 连续失败多少次之后摘除实例
+     * Consecutive failures before an instance is ejected
+     */
+    private int consecutiveFailures = 5;
+
+    /**
+     * 耗时EWMA超过该值时摘除实例，小于等于0表示不按耗时摘除
+     * Eject an instance whose latency EWMA exceeds this value, disabled when not positive
+     */
+    private long latencyThresholdMs = 0;
+
+    /**
+     * 耗时EWMA的平滑系数，越大越偏向最近的请求
+     * Smoothing factor of the latency EWMA
+     */
+    private double ewmaAlpha = 0.3;
+
+    /**
+     * 按耗时摘除之前至少需要的样本数
+     * Samples required before ejecting by latency
+     */
+    private int minLatencySamples = 10;
+
+    /**
+     * 基础摘除时间，每次连续摘除时间翻倍
+     * Base ejection time, doubled on every consecutive ejection
+     */
+    private long baseEjectionTimeMs = 30000;
+
+    /**
+     * 最大摘除时间
+     * Maximum ejection time
+     */
+    private long maxEjectionTimeMs = 300000;
+
+    /**
+     * 同一个服务最多摘除的实例比例(0-100)，至少保留一个实例
+     * Maximum percentage of one service's instances that can be ejected at the same time
+     */
+    private int maxEjectionPercent = 50;
+}
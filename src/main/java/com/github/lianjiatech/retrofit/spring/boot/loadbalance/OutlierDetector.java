@@ -0,0 +1,262 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 被动异常实例摘除。按服务维护每个实例的连续失败次数和耗时EWMA，超过阈值时摘除实例，摘除时间按连续摘除次数指数增长，
+ * 同一个服务被摘除的实例数不超过{@link OutlierDetectionProperty#getMaxEjectionPercent()}，比例按照服务当前的实例列表计算。
+ * <p>
+ * Passive outlier detection. Tracks consecutive failures and a latency EWMA per instance, ejects outliers for an
+ * exponentially growing period and caps the ejected share of each service.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class OutlierDetector {
+
+    private final OutlierDetectionProperty property;
+
+    private final ConcurrentMap<String, ConcurrentMap<URI, InstanceHealth>> services = new ConcurrentHashMap<>();
+
+    private final LongAdder ejectionCount = new LongAdder();
+
+    private final LongAdder capRejectedCount = new LongAdder();
+
+    public OutlierDetector(OutlierDetectionProperty property) {
+        this.property = property;
+    }
+
+    /**
+     * 记录请求结果
+     *
+     * @param serviceId 服务id
+     * @param uri 实例uri
+     * @param latencyMs 请求耗时
+     * @param success 请求是否成功
+     */
+    public void record(String serviceId, URI uri, long latencyMs, boolean success) {
+        record(serviceId, uri, latencyMs, success, null);
+    }
+
+    /**
+     * 记录请求结果。提供服务当前的实例列表时，最大摘除比例按照当前实例数计算，并清理已下线实例的统计；
+     * 实例列表只在第一次出现某个实例以及需要摘除实例时获取
+     *
+     * @param serviceId 服务id
+     * @param uri 实例uri
+     * @param latencyMs 请求耗时
+     * @param success 请求是否成功
+     * @param instancesSupplier 服务当前的实例列表，为null时按照统计过的所有实例计算
+     */
+    public void record(String serviceId, URI uri, long latencyMs, boolean success,
+            Supplier<List<ServiceInstance>> instancesSupplier) {
+        ConcurrentMap<URI, InstanceHealth> instances =
+                services.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>());
+        InstanceHealth health = instances.get(uri);
+        if (health == null) {
+            health = instances.computeIfAbsent(uri, k -> new InstanceHealth());
+            // 出现新实例说明实例列表可能已经变化
+            retainLiveInstances(instances, liveUris(instancesSupplier), uri);
+        }
+        long now = System.currentTimeMillis();
+        if (health.isEjected(now)) {
+            // 摘除期间的请求结果(如摘除前已经发出的请求)不再统计
+            return;
+        }
+        boolean outlier;
+        if (success) {
+            health.consecutiveFailures.set(0);
+            outlier = false;
+        } else {
+            outlier = health.consecutiveFailures.incrementAndGet() >= property.getConsecutiveFailures();
+        }
+        double ewma = health.updateLatency(latencyMs, property.getEwmaAlpha());
+        if (property.getLatencyThresholdMs() > 0 && health.samples.get() >= property.getMinLatencySamples()
+                && ewma > property.getLatencyThresholdMs()) {
+            outlier = true;
+        }
+        if (outlier) {
+            eject(serviceId, uri, instances, health, now, instancesSupplier);
+        }
+    }
+
+    private void eject(String serviceId, URI uri, ConcurrentMap<URI, InstanceHealth> instances,
+            InstanceHealth health, long now, Supplier<List<ServiceInstance>> instancesSupplier) {
+        synchronized (instances) {
+            if (health.isEjected(now)) {
+                return;
+            }
+            Set<URI> liveUris = liveUris(instancesSupplier);
+            retainLiveInstances(instances, liveUris, uri);
+            int ejected = 0;
+            for (InstanceHealth h : instances.values()) {
+                if (h.isEjected(now)) {
+                    ejected++;
+                }
+            }
+            int total = liveUris == null ? instances.size() : liveUris.size();
+            if (ejected + 1 >= total || (ejected + 1) * 100 > total * property.getMaxEjectionPercent()) {
+                capRejectedCount.increment();
+                return;
+            }
+            long lastEjectionEnd = health.ejectedUntil;
+            if (lastEjectionEnd > 0 && now - lastEjectionEnd > property.getMaxEjectionTimeMs()) {
+                // 长时间健康之后重新开始计算摘除时间
+                health.ejectionTimes = 0;
+            }
+            health.ejectionTimes++;
+            long ejectionTimeMs = ejectionTimeMs(health.ejectionTimes);
+            health.ejectedUntil = now + ejectionTimeMs;
+            health.consecutiveFailures.set(0);
+            health.resetLatency();
+            ejectionCount.increment();
+            log.warn("Eject outlier instance for {}ms, serviceId={}, uri={}", ejectionTimeMs, serviceId, uri);
+        }
+    }
+
+    private static Set<URI> liveUris(Supplier<List<ServiceInstance>> instancesSupplier) {
+        List<ServiceInstance> live = instancesSupplier == null ? null : instancesSupplier.get();
+        if (live == null || live.isEmpty()) {
+            return null;
+        }
+        Set<URI> liveUris = new HashSet<>(live.size() * 2);
+        for (ServiceInstance instance : live) {
+            liveUris.add(instance.getUri());
+        }
+        return liveUris;
+    }
+
+    /**
+     * 删除已下线实例的统计，当前请求的实例除外
+     */
+    private static void retainLiveInstances(ConcurrentMap<URI, InstanceHealth> instances, Set<URI> liveUris,
+            URI current) {
+        if (liveUris != null) {
+            instances.keySet().removeIf(uri -> !liveUris.contains(uri) && !uri.equals(current));
+        }
+    }
+
+    private long ejectionTimeMs(int ejectionTimes) {
+        long base = property.getBaseEjectionTimeMs();
+        int shift = Math.min(ejectionTimes - 1, 30);
+        long ejectionTimeMs = base << shift;
+        if (ejectionTimeMs < 0 || ejectionTimeMs > property.getMaxEjectionTimeMs()) {
+            return property.getMaxEjectionTimeMs();
+        }
+        return ejectionTimeMs;
+    }
+
+    /**
+     * 当前被摘除的实例
+     *
+     * @param serviceId 服务id
+     * @return 被摘除实例的uri
+     */
+    public Set<URI> getEjectedInstances(String serviceId) {
+        ConcurrentMap<URI, InstanceHealth> instances = services.get(serviceId);
+        if (instances == null) {
+            return Collections.emptySet();
+        }
+        long now = System.currentTimeMillis();
+        Set<URI> ejected = null;
+        for (Map.Entry<URI, InstanceHealth> entry : instances.entrySet()) {
+            if (entry.getValue().isEjected(now)) {
+                if (ejected == null) {
+                    ejected = new HashSet<>(4);
+                }
+                ejected.add(entry.getKey());
+            }
+        }
+        return ejected == null ? Collections.emptySet() : ejected;
+    }
+
+    /**
+     * 所有服务当前被摘除的实例，可用于监控
+     *
+     * @return serviceId -> 被摘除实例的uri
+     */
+    public Map<String, Set<URI>> getEjectedInstances() {
+        Map<String, Set<URI>> result = new HashMap<>();
+        for (String serviceId : services.keySet()) {
+            Set<URI> ejected = getEjectedInstances(serviceId);
+            if (!ejected.isEmpty()) {
+                result.put(serviceId, ejected);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 实例的耗时EWMA，没有样本时返回0
+     */
+    public double getLatencyEwma(String serviceId, URI uri) {
+        ConcurrentMap<URI, InstanceHealth> instances = services.get(serviceId);
+        InstanceHealth health = instances == null ? null : instances.get(uri);
+        return health == null ? 0 : Double.longBitsToDouble(health.latencyEwmaBits.get());
+    }
+
+    /**
+     * 累计摘除次数
+     */
+    public long getEjectionCount() {
+        return ejectionCount.sum();
+    }
+
+    /**
+     * 累计因超过最大摘除比例而没有摘除的次数
+     */
+    public long getCapRejectedCount() {
+        return capRejectedCount.sum();
+    }
+
+    private static final class InstanceHealth {
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private final AtomicLong latencyEwmaBits = new AtomicLong(Double.doubleToLongBits(0));
+
+        private final AtomicInteger samples = new AtomicInteger();
+
+        /**
+         * 以下字段只在持有服务锁时修改
+         */
+        private volatile long ejectedUntil;
+
+        private int ejectionTimes;
+
+        boolean isEjected(long now) {
+            return ejectedUntil > now;
+        }
+
+        double updateLatency(long latencyMs, double alpha) {
+            boolean first = samples.getAndIncrement() == 0;
+            while (true) {
+                long bits = latencyEwmaBits.get();
+                double ewma = Double.longBitsToDouble(bits);
+                double next = first ? latencyMs : ewma + alpha * (latencyMs - ewma);
+                if (latencyEwmaBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                    return next;
+                }
+            }
+        }
+
+        void resetLatency() {
+            samples.set(0);
+            latencyEwmaBits.set(Double.doubleToLongBits(0));
+        }
+    }
+}
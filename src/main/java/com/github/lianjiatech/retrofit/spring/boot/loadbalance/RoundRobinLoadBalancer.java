@@ -0,0 +1,25 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询
+ * <p>
+ * Round robin
+ *
+ * @author 陈添明
+ */
+public class RoundRobinLoadBalancer extends AbstractLoadBalancer {
+
+    private final ConcurrentMap<String, AtomicInteger> positions = new ConcurrentHashMap<>();
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        AtomicInteger position = positions.computeIfAbsent(serviceId, k -> new AtomicInteger());
+        int index = (position.getAndIncrement() & Integer.MAX_VALUE) % instances.size();
+        return instances.get(index);
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 路由key，通过serviceId调用且负载均衡算法为consistent_hash时，相同key的请求总是发往同一个服务实例。
+ * 需要和Retrofit的参数注解(如@Query、@Path、@Header)一起使用，参数值通过String.valueOf转换为key，为null时不按key路由。
+ * <p>
+ * Route key for consistent-hash routing. Requests with the same key go to the same instance. Must be combined with a
+ * Retrofit parameter annotation such as @Query, @Path or @Header.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+@Documented
+public @interface RouteKey {}
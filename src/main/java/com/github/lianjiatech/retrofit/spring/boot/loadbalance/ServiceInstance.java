@@ -0,0 +1,98 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 服务实例，以uri作为唯一标识。
+ * <p>
+ * A service instance, identified by its uri.
+ *
+ * @author 陈添明
+ */
+public final class ServiceInstance {
+
+    /**
+     * 元数据中表示可用区的key
+     */
+    public static final String ZONE_METADATA_KEY = "zone";
+
+    private final URI uri;
+
+    /**
+     * 权重，只对加权算法有效
+     */
+    private final int weight;
+
+    /**
+     * 所在可用区，未知时为null
+     */
+    private final String zone;
+
+    private final Map<String, String> metadata;
+
+    public ServiceInstance(URI uri) {
+        this(uri, 1, null, Collections.emptyMap());
+    }
+
+    public ServiceInstance(URI uri, int weight) {
+        this(uri, weight, null, Collections.emptyMap());
+    }
+
+    public ServiceInstance(URI uri, int weight, String zone) {
+        this(uri, weight, zone, Collections.emptyMap());
+    }
+
+    /**
+     * 可用区取自元数据中的{@link #ZONE_METADATA_KEY}
+     */
+    public ServiceInstance(URI uri, int weight, Map<String, String> metadata) {
+        this(uri, weight, metadata == null ? null : metadata.get(ZONE_METADATA_KEY), metadata);
+    }
+
+    public ServiceInstance(URI uri, int weight, String zone, Map<String, String> metadata) {
+        this.uri = Objects.requireNonNull(uri, "uri");
+        this.weight = Math.max(weight, 0);
+        this.zone = zone;
+        this.metadata = metadata == null ? Collections.emptyMap() : Collections.unmodifiableMap(metadata);
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ServiceInstance)) {
+            return false;
+        }
+        return uri.equals(((ServiceInstance)o).uri);
+    }
+
+    @Override
+    public int hashCode() {
+        return uri.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceInstance{uri=" + uri + ", weight=" + weight + ", zone=" + zone + ", metadata=" + metadata + '}';
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import lombok.Data;
+
+/**
+ * 服务实例列表缓存配置
+ * <p>
+ * Service instance list cache config
+ *
+ * @author 陈添明
+ */
+@Data
+public class ServiceInstanceCacheProperty {
+
+    /**
+     * 是否缓存{@link ServiceInstanceListSupplier}返回的实例列表
+     * Whether to cache the instance lists returned by the ServiceInstanceListSupplier
+     */
+    private boolean enable = true;
+
+    /**
+     * 后台刷新间隔
+     * Background refresh interval
+     */
+    private long refreshIntervalMs = 30000;
+}
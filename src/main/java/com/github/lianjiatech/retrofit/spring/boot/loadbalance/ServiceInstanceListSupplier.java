@@ -0,0 +1,29 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.List;
+
+/**
+ * 服务实例列表提供者，一般基于注册中心实现。
+ * <p>
+ * Supplies all instances of a service, usually backed by a service registry.
+ *
+ * @author 陈添明
+ */
+@FunctionalInterface
+public interface ServiceInstanceListSupplier {
+
+    /**
+     * 获取服务的所有实例
+     *
+     * @param serviceId 服务id
+     * @return 服务实例列表，没有可用实例时返回空列表
+     */
+    List<ServiceInstance> get(String serviceId);
+
+    /**
+     * 预加载服务的实例列表，在创建serviceId对应的接口实例时调用，默认不做任何处理
+     *
+     * @param serviceId 服务id
+     */
+    default void prefetch(String serviceId) {}
+}
@@ -0,0 +1,34 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 加权随机，所有实例权重都为0时退化为随机。
+ * <p>
+ * Weighted random. Falls back to uniform random when every weight is 0.
+ *
+ * @author 陈添明
+ */
+public class WeightedRandomLoadBalancer extends AbstractLoadBalancer {
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long totalWeight = 0;
+        for (ServiceInstance instance : instances) {
+            totalWeight += instance.getWeight();
+        }
+        if (totalWeight <= 0) {
+            return instances.get(random.nextInt(instances.size()));
+        }
+        long offset = random.nextLong(totalWeight);
+        for (ServiceInstance instance : instances) {
+            offset -= instance.getWeight();
+            if (offset < 0) {
+                return instance;
+            }
+        }
+        return instances.get(instances.size() - 1);
+    }
+}
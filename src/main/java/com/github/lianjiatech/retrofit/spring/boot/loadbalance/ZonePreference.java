@@ -0,0 +1,84 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同可用区优先。优先选择本地可用区的实例，本地可用区可用实例占比低于{@link #minLocalAvailableRatio}时，溢出到所有可用区，
+ * 避免本地剩余实例被压垮。
+ * <p>
+ * Prefers instances in the local zone, and spills over to every zone when the share of available local instances
+ * drops below the threshold.
+ *
+ * @author 陈添明
+ */
+public class ZonePreference {
+
+    private final String localZone;
+
+    private final double minLocalAvailableRatio;
+
+    private final LongAdder localCount = new LongAdder();
+
+    private final LongAdder spilloverCount = new LongAdder();
+
+    /**
+     * @param localZone 本地可用区
+     * @param minLocalAvailableRatio 本地可用区可用实例(未被排除)占本地实例总数的最小比例
+     */
+    public ZonePreference(String localZone, double minLocalAvailableRatio) {
+        this.localZone = localZone;
+        this.minLocalAvailableRatio = minLocalAvailableRatio;
+    }
+
+    /**
+     * 过滤候选实例
+     *
+     * @param instances 服务的全部实例
+     * @param candidates 可用的候选实例(已去掉已尝试、已摘除的实例)
+     * @return 本地可用区容量充足时返回本地候选实例，否则返回全部候选实例
+     */
+    public List<ServiceInstance> filter(List<ServiceInstance> instances, List<ServiceInstance> candidates) {
+        int localTotal = 0;
+        for (ServiceInstance instance : instances) {
+            if (localZone.equals(instance.getZone())) {
+                localTotal++;
+            }
+        }
+        if (localTotal == 0) {
+            // 本地可用区没有部署该服务，不计入溢出
+            return candidates;
+        }
+        List<ServiceInstance> local = new ArrayList<>(localTotal);
+        for (ServiceInstance candidate : candidates) {
+            if (localZone.equals(candidate.getZone())) {
+                local.add(candidate);
+            }
+        }
+        if (local.isEmpty() || local.size() < localTotal * minLocalAvailableRatio) {
+            spilloverCount.increment();
+            return candidates;
+        }
+        localCount.increment();
+        return local;
+    }
+
+    public String getLocalZone() {
+        return localZone;
+    }
+
+    /**
+     * 累计选择本地可用区的次数
+     */
+    public long getLocalCount() {
+        return localCount.sum();
+    }
+
+    /**
+     * 累计溢出到其它可用区的次数
+     */
+    public long getSpilloverCount() {
+        return spilloverCount.sum();
+    }
+}
@@ -1,12 +1,11 @@
 package com.github.lianjiatech.retrofit.spring.boot.log;
 
-import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+import com.github.lianjiatech.retrofit.spring.boot.util.RetrofitUtils;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Interceptor;
-import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
-import retrofit2.Invocation;
 
 import java.io.IOException;
 
@@ -33,6 +32,11 @@ public class LoggingInterceptor implements Interceptor {
         if (logStrategy == LogStrategy.NONE) {
             return chain.proceed(chain.request());
         }
+        // 打印请求体会消费只能发送一次的请求体，打印响应体会读取完整的流式响应(事件流永远无法读完)，这两种情况下只打印请求头和响应头
+        if (logStrategy == LogStrategy.BODY
+                && (RetrofitUtils.isOneShot(chain.request().body()) || isStreamingResponse(chain))) {
+            logStrategy = LogStrategy.HEADERS;
+        }
         LogLevel logLevel = logging == null ? globalLogProperty.getLogLevel() : logging.logLevel();
         boolean aggregate = logging == null ? globalLogProperty.isAggregate() : logging.aggregate();
         HttpLoggingInterceptor.Logger matchLogger = matchLogger(logLevel);
@@ -47,12 +51,16 @@ public class LoggingInterceptor implements Interceptor {
     }
 
     protected Logging findLogging(Chain chain) {
-        Request request = chain.request();
-        Invocation invocation = request.tag(Invocation.class);
-        if (invocation == null) {
+        MethodMetadata methodMetadata = chain.request().tag(MethodMetadata.class);
+        if (methodMetadata == null) {
             return null;
         }
-        return AnnotationExtendUtils.findMergedAnnotation(invocation.method(), invocation.service(), Logging.class);
+        return methodMetadata.getLogging();
+    }
+
+    protected boolean isStreamingResponse(Chain chain) {
+        MethodMetadata methodMetadata = chain.request().tag(MethodMetadata.class);
+        return methodMetadata != null && methodMetadata.isStreamingResponse();
     }
 
     protected boolean needLog(Logging logging) {
@@ -0,0 +1,58 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 内置重试策略，支持固定间隔、指数退避以及随机抖动。
+ * <p>
+ * 第n次重试的基础等待时间为 intervalMs * multiplier^(n-1)，不超过maxIntervalMs，然后按照{@link Jitter}进行随机抖动。
+ *
+ * @author 陈添明
+ */
+public class BackoffRetryStrategy implements RetryStrategy {
+
+    private final long intervalMs;
+
+    private final double multiplier;
+
+    private final long maxIntervalMs;
+
+    private final Jitter jitter;
+
+    /**
+     * @param intervalMs 初始等待时间
+     * @param multiplier 退避倍数，1表示固定间隔
+     * @param maxIntervalMs 最大等待时间，小于等于0表示不限制
+     * @param jitter 随机抖动方式
+     */
+    public BackoffRetryStrategy(long intervalMs, double multiplier, long maxIntervalMs, Jitter jitter) {
+        this.intervalMs = Math.max(intervalMs, 0);
+        this.multiplier = Math.max(multiplier, 1);
+        this.maxIntervalMs = maxIntervalMs <= 0 ? Long.MAX_VALUE : Math.max(maxIntervalMs, this.intervalMs);
+        this.jitter = jitter == null ? Jitter.NONE : jitter;
+    }
+
+    @Override
+    public long nextIntervalMs(int retryCount, long lastIntervalMs) {
+        if (jitter == Jitter.DECORRELATED) {
+            long upper = Math.min(maxIntervalMs, Math.max(intervalMs, Math.min(lastIntervalMs, Long.MAX_VALUE / 3) * 3));
+            return randomBetween(intervalMs, upper);
+        }
+        long interval = (long)Math.min(maxIntervalMs, intervalMs * Math.pow(multiplier, retryCount - 1));
+        switch (jitter) {
+            case FULL:
+                return randomBetween(0, interval);
+            case EQUAL:
+                return interval / 2 + randomBetween(0, interval - interval / 2);
+            default:
+                return interval;
+        }
+    }
+
+    private static long randomBetween(long origin, long bound) {
+        if (bound <= origin) {
+            return origin;
+        }
+        return ThreadLocalRandom.current().nextLong(origin, bound == Long.MAX_VALUE ? bound : bound + 1);
+    }
+}
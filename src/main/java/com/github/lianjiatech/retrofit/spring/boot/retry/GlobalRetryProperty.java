@@ -23,11 +23,47 @@ public class GlobalRetryProperty {
     private int maxRetries = 2;
 
     /**
-     * 重试时间间隔
+     * 重试时间间隔，启用指数退避时为初始重试时间间隔
      * Retry interval
      */
     private int intervalMs = 100;
 
+    /**
+     * 指数退避倍数，默认1表示固定时间间隔
+     * Backoff multiplier
+     */
+    private double multiplier = 1;
+
+    /**
+     * 最大重试时间间隔，小于等于0表示不限制
+     * Maximum retry interval
+     */
+    private int maxIntervalMs = 0;
+
+    /**
+     * 重试时间间隔的随机抖动方式
+     * Jitter applied to the retry interval
+     */
+    private Jitter jitter = Jitter.NONE;
+
+    /**
+     * 自定义重试策略，为空表示使用内置的{@link BackoffRetryStrategy}
+     * Custom retry strategy
+     */
+    private Class<? extends RetryStrategy> retryStrategy;
+
+    /**
+     * 可重试的响应状态码，仅在重试规则包含RESPONSE_STATUS_RETRYABLE时生效
+     * Status codes retried by RESPONSE_STATUS_RETRYABLE
+     */
+    private int[] retryableStatusCodes = {429, 502, 503, 504};
+
+    /**
+     * Retry-After响应头的最大等待时间，小于等于0表示忽略Retry-After
+     * Upper bound of the Retry-After header, less than or equal to 0 means ignored
+     */
+    private int maxRetryAfterMs = 10000;
+
     /**
      * 重试规则，默认 响应状态码不是2xx 或者 发生IO异常 时触发重试
      * Retry rule
@@ -0,0 +1,31 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+/**
+ * 重试等待时间的随机抖动方式，避免大量客户端同时重试
+ * <p>
+ * Jitter applied to the retry interval, to keep clients from retrying in lockstep.
+ *
+ * @author 陈添明
+ */
+public enum Jitter {
+
+    /**
+     * 不抖动
+     */
+    NONE,
+
+    /**
+     * 在[0, interval]之间随机
+     */
+    FULL,
+
+    /**
+     * 在[interval/2, interval]之间随机
+     */
+    EQUAL,
+
+    /**
+     * 在[intervalMs, lastInterval * 3]之间随机，不超过maxIntervalMs
+     */
+    DECORRELATED,
+}
@@ -33,14 +33,70 @@ public @interface Retry {
     int maxRetries() default 2;
 
     /**
-     * 重试时间间隔
+     * 重试时间间隔，启用指数退避时为初始重试时间间隔
      * <p>
-     * Retry interval
+     * Retry interval, or the initial interval when exponential backoff is enabled
      *
      * @return 重试时间间隔；Retry interval
      */
     int intervalMs() default 100;
 
+    /**
+     * 指数退避倍数，第n次重试的时间间隔为 intervalMs * multiplier^(n-1)，默认1表示固定时间间隔
+     * <p>
+     * Backoff multiplier, 1 means fixed interval
+     *
+     * @return 指数退避倍数
+     */
+    double multiplier() default 1;
+
+    /**
+     * 最大重试时间间隔，小于等于0表示不限制
+     * <p>
+     * Maximum retry interval, less than or equal to 0 means unlimited
+     *
+     * @return 最大重试时间间隔
+     */
+    int maxIntervalMs() default 0;
+
+    /**
+     * 重试时间间隔的随机抖动方式
+     * <p>
+     * Jitter applied to the retry interval
+     *
+     * @return 随机抖动方式
+     */
+    Jitter jitter() default Jitter.NONE;
+
+    /**
+     * 自定义重试策略，默认RetryStrategy.class表示使用内置的{@link BackoffRetryStrategy}。
+     * 实例优先从Spring容器获取，如果没有获取到，则反射创建。配置之后intervalMs、multiplier、maxIntervalMs、jitter不再生效。
+     * <p>
+     * Custom retry strategy. RetryStrategy.class means the built-in {@link BackoffRetryStrategy}.
+     *
+     * @return 重试策略
+     */
+    Class<? extends RetryStrategy> retryStrategy() default RetryStrategy.class;
+
+    /**
+     * 可重试的响应状态码，仅在重试规则包含{@link RetryRule#RESPONSE_STATUS_RETRYABLE}时生效
+     * <p>
+     * Status codes retried by {@link RetryRule#RESPONSE_STATUS_RETRYABLE}
+     *
+     * @return 可重试的响应状态码
+     */
+    int[] retryableStatusCodes() default {429, 502, 503, 504};
+
+    /**
+     * Retry-After响应头的最大等待时间。重试的响应携带Retry-After时，使用它代替计算出的重试时间间隔，并且不超过该值；小于等于0表示忽略Retry-After
+     * <p>
+     * Upper bound of the Retry-After header. When present on a retried response it replaces the computed interval;
+     * less than or equal to 0 means Retry-After is ignored
+     *
+     * @return Retry-After最大等待时间
+     */
+    int maxRetryAfterMs() default 10000;
+
     /**
      * 重试规则，默认 响应状态码不是2xx 或者 发生IO异常 时触发重试
      *
@@ -0,0 +1,157 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 重试预算（令牌桶）。每个请求存入retryRatio个令牌，每次重试取出1个令牌，另外每秒固定存入minRetriesPerSecond个令牌。
+ * 令牌按时间分桶统计，只保留最近windowMs内的数据；计数使用LongAdder，无锁。
+ * 子预算（接口级别）在存入和取出时会同时作用于父预算（全局）。对冲请求也使用它作为对冲预算。
+ * <p>
+ * Retry budget backed by time-bucketed lock-free counters. A client budget also deposits into and withdraws from its
+ * parent (global) budget, so a retry is only allowed when both have tokens left.
+ *
+ * @author 陈添明
+ */
+public class RetryBudget {
+
+    private static final int BUCKET_COUNT = 10;
+
+    private final RetryBudget parent;
+
+    private final double retryRatio;
+
+    private final double minRetries;
+
+    private final long bucketNanos;
+
+    private final Bucket[] buckets = new Bucket[BUCKET_COUNT];
+
+    private final LongAdder requestCount = new LongAdder();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public RetryBudget(RetryBudgetProperty property) {
+        this(property, null);
+    }
+
+    public RetryBudget(RetryBudgetProperty property, RetryBudget parent) {
+        this(property.getWindowMs(), property.getRetryRatio(), property.getMinRetriesPerSecond(), parent);
+    }
+
+    /**
+     * @param windowMs 统计窗口时间
+     * @param retryRatio 每个请求存入的令牌数
+     * @param minRetriesPerSecond 每秒固定存入的令牌数
+     * @param parent 父预算，可以为null
+     */
+    public RetryBudget(long windowMs, double retryRatio, int minRetriesPerSecond, RetryBudget parent) {
+        this.parent = parent;
+        this.retryRatio = retryRatio;
+        this.minRetries = minRetriesPerSecond * windowMs / 1000.0;
+        this.bucketNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(windowMs) / BUCKET_COUNT, 1);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 记录一次请求（不包括重试），存入令牌
+     */
+    public void deposit() {
+        requestCount.increment();
+        currentBucket().deposits.increment();
+        if (parent != null) {
+            parent.deposit();
+        }
+    }
+
+    /**
+     * 尝试取出一个重试令牌
+     *
+     * @return 预算充足返回true，否则返回false，此时不应该重试
+     */
+    public boolean tryWithdraw() {
+        if (!hasBalance() || (parent != null && !parent.hasBalance())) {
+            rejectedCount.increment();
+            return false;
+        }
+        withdraw();
+        return true;
+    }
+
+    private boolean hasBalance() {
+        return getBalance() >= 1;
+    }
+
+    private void withdraw() {
+        retryCount.increment();
+        currentBucket().withdrawals.increment();
+        if (parent != null) {
+            parent.withdraw();
+        }
+    }
+
+    /**
+     * 当前窗口内剩余的重试令牌数
+     *
+     * @return 剩余令牌数
+     */
+    public double getBalance() {
+        long epoch = System.nanoTime() / bucketNanos;
+        long deposits = 0;
+        long withdrawals = 0;
+        for (Bucket bucket : buckets) {
+            if (epoch - bucket.epoch.get() < BUCKET_COUNT) {
+                deposits += bucket.deposits.sum();
+                withdrawals += bucket.withdrawals.sum();
+            }
+        }
+        return minRetries + deposits * retryRatio - withdrawals;
+    }
+
+    /**
+     * 累计请求数（不包括重试）
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * 累计重试数
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * 累计因预算不足被拒绝的重试数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private Bucket currentBucket() {
+        long epoch = System.nanoTime() / bucketNanos;
+        Bucket bucket = buckets[(int)Math.floorMod(epoch, (long)BUCKET_COUNT)];
+        long bucketEpoch = bucket.epoch.get();
+        if (bucketEpoch != epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+            // 桶过期，重置计数。与并发写入之间存在微小误差，对预算控制可以接受
+            bucket.deposits.reset();
+            bucket.withdrawals.reset();
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+
+        private final LongAdder deposits = new LongAdder();
+
+        private final LongAdder withdrawals = new LongAdder();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+import lombok.Data;
+
+/**
+ * 重试预算配置。重试次数限制为最近请求数的一定比例，再加上每秒少量的保底重试次数，避免下游故障时重试放大流量。
+ * <p>
+ * Retry budget config. Retries are capped at a ratio of recent requests plus a small per-second minimum.
+ *
+ * @author 陈添明
+ */
+@Data
+public class RetryBudgetProperty {
+
+    /**
+     * 是否启用重试预算
+     * Whether to enable the retry budget
+     */
+    private boolean enable = false;
+
+    /**
+     * 统计窗口时间
+     * Sliding window over which requests and retries are counted
+     */
+    private long windowMs = 10000;
+
+    /**
+     * 允许重试的请求比例
+     * Ratio of recent requests that may be retried
+     */
+    private double retryRatio = 0.1;
+
+    /**
+     * 每秒保底重试次数，保证低流量时也能重试
+     * Retries always allowed per second, regardless of traffic
+     */
+    private int minRetriesPerSecond = 10;
+}
@@ -0,0 +1,417 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ErrorDecoder;
+import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadataCallFactory;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetryFailedException;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceInstanceSelection;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * 异步调用（Mono、Single、Completable、CompletableFuture）的非阻塞重试。
+ * 重试等待期间不占用任何线程，等待结束后重新enqueue一个clone的Call。重试结束之后，非2xx响应才交给错误解码器解码，与同步调用保持一致。
+ * <p>
+ * Non-blocking retry for asynchronous return types. Instead of sleeping on an OkHttp dispatcher thread, the next
+ * attempt is scheduled on a timer and a cloned call is enqueued once the backoff elapses. As with synchronous calls,
+ * a non-2xx response is only passed to the error decoder after the last attempt.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public final class RetryCallAdapterFactory extends CallAdapter.Factory implements InternalCallAdapterFactory {
+
+    private static final Set<String> ASYNC_RETURN_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            CompletableFuture.class.getName(),
+            "reactor.core.publisher.Mono",
+            "io.reactivex.Single",
+            "io.reactivex.Completable",
+            "io.reactivex.rxjava3.core.Single",
+            "io.reactivex.rxjava3.core.Completable")));
+
+    private final RetryInterceptor retryInterceptor;
+
+    private final ErrorDecoderInterceptor errorDecoderInterceptor;
+
+    public RetryCallAdapterFactory(RetryInterceptor retryInterceptor,
+            ErrorDecoderInterceptor errorDecoderInterceptor) {
+        this.retryInterceptor = retryInterceptor;
+        this.errorDecoderInterceptor = errorDecoderInterceptor;
+    }
+
+    /**
+     * 是否是异步返回值类型，异步返回值类型的重试由当前CallAdapterFactory处理，RetryInterceptor不再处理。
+     *
+     * @param rawReturnType 方法返回值类型
+     * @return 是否异步
+     */
+    public static boolean isAsyncReturnType(Class<?> rawReturnType) {
+        return ASYNC_RETURN_TYPES.contains(rawReturnType.getName());
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (!isAsyncReturnType(getRawType(returnType))) {
+            return null;
+        }
+        CallAdapter<?, ?> delegate = retrofit.nextCallAdapter(this, returnType, annotations);
+        return new RetryCallAdapter<>(delegate);
+    }
+
+    private final class RetryCallAdapter<R, T> implements CallAdapter<R, T> {
+
+        private final CallAdapter<R, T> delegate;
+
+        @SuppressWarnings("unchecked")
+        RetryCallAdapter(CallAdapter<?, ?> delegate) {
+            this.delegate = (CallAdapter<R, T>)delegate;
+        }
+
+        @Override
+        public Type responseType() {
+            return delegate.responseType();
+        }
+
+        @Override
+        public T adapt(Call<R> call) {
+            return delegate.adapt(new RetryingCall<>(retryInterceptor, errorDecoderInterceptor, call));
+        }
+    }
+
+    static final class RetryingCall<T> implements Call<T> {
+
+        private final RetryInterceptor retryInterceptor;
+
+        private final ErrorDecoderInterceptor errorDecoderInterceptor;
+
+        private final Call<T> original;
+
+        private volatile Call<T> current;
+
+        private volatile boolean canceled;
+
+        private volatile ScheduledFuture<?> pendingRetry;
+
+        private volatile RetryCallback retryCallback;
+
+        /**
+         * 同一次调用的所有请求共享的服务实例选择记录，重试时避开已经尝试过的实例
+         */
+        private final ServiceInstanceSelection selection = new ServiceInstanceSelection();
+
+        RetryingCall(RetryInterceptor retryInterceptor, ErrorDecoderInterceptor errorDecoderInterceptor,
+                Call<T> original) {
+            this.retryInterceptor = retryInterceptor;
+            this.errorDecoderInterceptor = errorDecoderInterceptor;
+            this.original = original;
+            this.current = original;
+        }
+
+        /**
+         * 自定义CallAdapter(例如RxJava2CallAdapterFactory.createSynchronous())可能同步执行异步返回值类型的调用，
+         * RetryInterceptor不会处理异步方法，因此这里在当前线程重试。
+         */
+        @Override
+        public Response<T> execute() throws IOException {
+            RetryCallback retryCallback;
+            try {
+                retryCallback = createRetryCallback(null);
+            } catch (RuntimeException e) {
+                // 请求创建失败，交由原始Call抛出
+                return original.execute();
+            }
+            if (retryCallback == null) {
+                return original.execute();
+            }
+            this.retryCallback = retryCallback;
+            return retryCallback.execute();
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            RetryCallback retryCallback;
+            try {
+                retryCallback = createRetryCallback(callback);
+            } catch (RuntimeException e) {
+                // 请求创建失败，交由原始Call回调onFailure
+                original.enqueue(callback);
+                return;
+            }
+            if (retryCallback == null) {
+                original.enqueue(callback);
+                return;
+            }
+            this.retryCallback = retryCallback;
+            original.enqueue(retryCallback);
+        }
+
+        /**
+         * 根据方法元数据创建重试回调
+         *
+         * @param callback 用户回调，同步执行时为null
+         * @return 重试回调，不是通过本组件创建的接口返回null
+         */
+        private RetryCallback createRetryCallback(Callback<T> callback) {
+            Request request = MethodMetadataCallFactory.createRequest(original, selection);
+            if (request == null) {
+                // 请求创建失败
+                request = original.request();
+            }
+            MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+            if (methodMetadata == null) {
+                return null;
+            }
+            Retry retry = methodMetadata.getRetry();
+            if (!retryInterceptor.needRetry(retry) || RetryInterceptor.hasOneShotBody(request)) {
+                return new RetryCallback(callback, methodMetadata.getErrorDecoder(), 0,
+                        methodMetadata.getRetryStrategy(), new HashSet<>(), new int[0], 0, null);
+            }
+            GlobalRetryProperty globalRetryProperty = retryInterceptor.globalRetryProperty;
+            int maxRetries = retry == null ? globalRetryProperty.getMaxRetries() : retry.maxRetries();
+            RetryRule[] retryRules = retry == null ? globalRetryProperty.getRetryRules() : retry.retryRules();
+            int[] retryableStatusCodes =
+                    retry == null ? globalRetryProperty.getRetryableStatusCodes() : retry.retryableStatusCodes();
+            int maxRetryAfterMs = retry == null ? globalRetryProperty.getMaxRetryAfterMs() : retry.maxRetryAfterMs();
+            if (methodMetadata.getRetryBudget() != null) {
+                methodMetadata.getRetryBudget().deposit();
+            }
+            return new RetryCallback(callback, methodMetadata.getErrorDecoder(), maxRetries,
+                    methodMetadata.getRetryStrategy(),
+                    Arrays.stream(retryRules).collect(Collectors.toCollection(HashSet::new)),
+                    retryableStatusCodes, maxRetryAfterMs, methodMetadata.getRetryBudget());
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return original.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            current.cancel();
+            ScheduledFuture<?> scheduledFuture = pendingRetry;
+            RetryCallback callback = retryCallback;
+            if (scheduledFuture != null && scheduledFuture.cancel(false) && callback != null) {
+                // 与OkHttp保持一致，异步回调取消结果
+                retryInterceptor.scheduleRetry(() -> callback.callback.onFailure(this, new IOException("Canceled")),
+                        0);
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || current.isCanceled();
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new RetryingCall<>(retryInterceptor, errorDecoderInterceptor, original.clone());
+        }
+
+        @Override
+        public Request request() {
+            return original.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return current.timeout();
+        }
+
+        private final class RetryCallback implements Callback<T> {
+
+            private final Callback<T> callback;
+
+            private final ErrorDecoder errorDecoder;
+
+            private final int maxRetries;
+
+            private final RetryStrategy retryStrategy;
+
+            private final Set<RetryRule> retryRuleSet;
+
+            private final int[] retryableStatusCodes;
+
+            private final int maxRetryAfterMs;
+
+            private final RetryBudget retryBudget;
+
+            private int retryCount;
+
+            private long intervalMs;
+
+            RetryCallback(Callback<T> callback, ErrorDecoder errorDecoder, int maxRetries,
+                    RetryStrategy retryStrategy, Set<RetryRule> retryRuleSet, int[] retryableStatusCodes,
+                    int maxRetryAfterMs, RetryBudget retryBudget) {
+                this.callback = callback;
+                this.errorDecoder = errorDecoder;
+                this.maxRetries = maxRetries;
+                this.retryStrategy = retryStrategy;
+                this.retryRuleSet = retryRuleSet;
+                this.retryableStatusCodes = retryableStatusCodes;
+                this.maxRetryAfterMs = maxRetryAfterMs;
+                this.retryBudget = retryBudget;
+            }
+
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (canceled || retryCount >= maxRetries
+                        || !retryInterceptor.isRetryableResponse(retryRuleSet, retryableStatusCodes, response.raw())) {
+                    // 最后一次还没成功，返回最后一次response
+                    complete(response);
+                    return;
+                }
+                if (retryBudget != null && !retryBudget.tryWithdraw()) {
+                    log.warn("Retry budget exhausted, skip retry! The request is {}, Response is {}",
+                            call.request(), response.raw());
+                    complete(response);
+                    return;
+                }
+                log.warn("The response fails, retry is performed! The request is {}, Response is {}",
+                        call.request(), response.raw());
+                ResponseBody errorBody = response.errorBody();
+                if (errorBody != null) {
+                    errorBody.close();
+                }
+                scheduleNextTry(retryInterceptor.parseRetryAfterMs(response.raw(), maxRetryAfterMs));
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                if (canceled || !(t instanceof Exception)
+                        || retryInterceptor.shouldThrow(retryRuleSet, (Exception)t)) {
+                    callback.onFailure(RetryingCall.this, t);
+                    return;
+                }
+                if (retryCount >= maxRetries) {
+                    // 最后一次还没成功，回调异常
+                    callback.onFailure(RetryingCall.this, new RetryFailedException(
+                            "Retry Failed: Total " + maxRetries + " attempts made at interval " + intervalMs + "ms", t));
+                    return;
+                }
+                if (retryBudget != null && !retryBudget.tryWithdraw()) {
+                    log.warn("Retry budget exhausted, skip retry! The request is {} ", call.request(), t);
+                    callback.onFailure(RetryingCall.this, t);
+                    return;
+                }
+                log.warn("The response fails, retry is performed! The request is {} ", call.request(), t);
+                scheduleNextTry(-1);
+            }
+
+            /**
+             * 同步执行，重试间隔在当前线程等待
+             */
+            Response<T> execute() throws IOException {
+                while (true) {
+                    long waitMs;
+                    Call<T> call = current;
+                    try {
+                        Response<T> response = call.execute();
+                        if (canceled || retryCount >= maxRetries || !retryInterceptor.isRetryableResponse(
+                                retryRuleSet, retryableStatusCodes, response.raw())) {
+                            return decode(response);
+                        }
+                        if (retryBudget != null && !retryBudget.tryWithdraw()) {
+                            log.warn("Retry budget exhausted, skip retry! The request is {}, Response is {}",
+                                    call.request(), response.raw());
+                            return decode(response);
+                        }
+                        log.warn("The response fails, retry is performed! The request is {}, Response is {}",
+                                call.request(), response.raw());
+                        ResponseBody errorBody = response.errorBody();
+                        if (errorBody != null) {
+                            errorBody.close();
+                        }
+                        waitMs = nextInterval(retryInterceptor.parseRetryAfterMs(response.raw(), maxRetryAfterMs));
+                    } catch (IOException | RuntimeException e) {
+                        if (canceled || retryInterceptor.shouldThrow(retryRuleSet, e)) {
+                            throw e;
+                        }
+                        if (retryCount >= maxRetries) {
+                            throw new RetryFailedException("Retry Failed: Total " + maxRetries
+                                    + " attempts made at interval " + intervalMs + "ms", e);
+                        }
+                        if (retryBudget != null && !retryBudget.tryWithdraw()) {
+                            log.warn("Retry budget exhausted, skip retry! The request is {} ", call.request(), e);
+                            throw e;
+                        }
+                        log.warn("The response fails, retry is performed! The request is {} ", call.request(), e);
+                        waitMs = nextInterval(-1);
+                    }
+                    retryInterceptor.waitUntilNextTry(waitMs);
+                }
+            }
+
+            private void complete(Response<T> response) {
+                try {
+                    response = decode(response);
+                } catch (RuntimeException e) {
+                    callback.onFailure(RetryingCall.this, e);
+                    return;
+                }
+                callback.onResponse(RetryingCall.this, response);
+            }
+
+            /**
+             * 重试结束之后，使用错误解码器解码非2xx响应
+             */
+            private Response<T> decode(Response<T> response) {
+                ResponseBody errorBody = response.errorBody();
+                if (response.isSuccessful() || errorDecoder == null || errorBody == null) {
+                    return response;
+                }
+                okhttp3.Response rawResponse = response.raw().newBuilder().body(errorBody).build();
+                RuntimeException exception =
+                        errorDecoderInterceptor.decodeInvalidResponse(errorDecoder, rawResponse.request(), rawResponse);
+                if (exception != null) {
+                    throw exception;
+                }
+                return response;
+            }
+
+            /**
+             * 计算下一次重试的等待时间，并创建下一次重试的Call
+             */
+            private long nextInterval(long retryAfterMs) {
+                intervalMs = retryStrategy.nextIntervalMs(++retryCount, intervalMs);
+                current = current.clone();
+                MethodMetadataCallFactory.createRequest(current, selection);
+                return retryAfterMs >= 0 ? retryAfterMs : intervalMs;
+            }
+
+            private void scheduleNextTry(long retryAfterMs) {
+                long delayMs = nextInterval(retryAfterMs);
+                Call<T> next = current;
+                pendingRetry = retryInterceptor.scheduleRetry(() -> {
+                    if (canceled) {
+                        callback.onFailure(RetryingCall.this, new IOException("Canceled"));
+                        return;
+                    }
+                    next.enqueue(this);
+                }, delayMs);
+            }
+        }
+    }
+}
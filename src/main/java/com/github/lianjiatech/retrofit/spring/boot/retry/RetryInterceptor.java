@@ -1,47 +1,108 @@
 package com.github.lianjiatech.retrofit.spring.boot.retry;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+import com.github.lianjiatech.retrofit.spring.boot.exception.DeadlineExceededException;
 import com.github.lianjiatech.retrofit.spring.boot.exception.RetryFailedException;
-import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.PrimaryAttempt;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceInstanceSelection;
+import com.github.lianjiatech.retrofit.spring.boot.util.AppContextUtils;
+import com.github.lianjiatech.retrofit.spring.boot.util.RetrofitUtils;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
-import retrofit2.Invocation;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * @author 陈添明
  */
 @Slf4j
-public class RetryInterceptor implements Interceptor {
+public class RetryInterceptor implements Interceptor, ApplicationContextAware, DisposableBean {
 
     protected final GlobalRetryProperty globalRetryProperty;
 
+    protected final RetryBudgetProperty retryBudgetProperty;
+
+    /**
+     * 全局重试预算，未启用时为null
+     */
+    private final RetryBudget globalRetryBudget;
+
+    /**
+     * 接口级别的重试预算
+     */
+    private final Map<Class<?>, RetryBudget> retryBudgets = new ConcurrentHashMap<>(16);
+
+    protected ApplicationContext applicationContext;
+
+    /**
+     * 异步调用重试的定时器，首次使用时创建
+     */
+    private volatile ScheduledExecutorService retryScheduler;
+
+    /**
+     * 子类覆盖了旧版本的重试方法时，继续调用旧版本的方法
+     */
+    private final boolean legacyRetryIntercept =
+            overrides("retryIntercept", int.class, int.class, RetryRule[].class, Chain.class);
+
+    private final boolean legacyShouldThrowEx = overrides("shouldThrowEx", HashSet.class, Exception.class);
+
     public RetryInterceptor(GlobalRetryProperty globalRetryProperty) {
+        this(globalRetryProperty, new RetryBudgetProperty());
+    }
+
+    public RetryInterceptor(GlobalRetryProperty globalRetryProperty, RetryBudgetProperty retryBudgetProperty) {
         this.globalRetryProperty = globalRetryProperty;
+        this.retryBudgetProperty = retryBudgetProperty;
+        this.globalRetryBudget = retryBudgetProperty.isEnable() ? new RetryBudget(retryBudgetProperty) : null;
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Invocation invocation = request.tag(Invocation.class);
-        if (invocation == null) {
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        // 异步调用由RetryCallAdapterFactory进行非阻塞重试；对冲调用的第一个请求失败时发送对冲请求，不再重试
+        if (methodMetadata == null || methodMetadata.isAsync() || request.tag(PrimaryAttempt.class) != null) {
             return chain.proceed(request);
         }
         // 获取重试配置
-        Retry retry = AnnotationExtendUtils.findMergedAnnotation(invocation.method(), invocation.service(), Retry.class);
-        if (!needRetry(retry)) {
+        Retry retry = methodMetadata.getRetry();
+        if (!needRetry(retry) || hasOneShotBody(request)) {
             return chain.proceed(request);
         }
         // 重试
         int maxRetries = retry == null ? globalRetryProperty.getMaxRetries() : retry.maxRetries();
-        int intervalMs = retry == null ? globalRetryProperty.getIntervalMs() : retry.intervalMs();
         RetryRule[] retryRules = retry == null ? globalRetryProperty.getRetryRules() : retry.retryRules();
-        return retryIntercept(maxRetries, intervalMs, retryRules, chain);
+        int[] retryableStatusCodes =
+                retry == null ? globalRetryProperty.getRetryableStatusCodes() : retry.retryableStatusCodes();
+        if (legacyRetryIntercept) {
+            int intervalMs = retry == null ? globalRetryProperty.getIntervalMs() : retry.intervalMs();
+            return retryIntercept(maxRetries, intervalMs, retryRules, chain);
+        }
+        int maxRetryAfterMs = retry == null ? globalRetryProperty.getMaxRetryAfterMs() : retry.maxRetryAfterMs();
+        return retryIntercept(maxRetries, methodMetadata.getRetryStrategy(), retryRules, retryableStatusCodes,
+                maxRetryAfterMs, methodMetadata.getRetryBudget(), chain);
     }
 
     protected boolean needRetry(Retry retry) {
@@ -55,45 +116,290 @@ public class RetryInterceptor implements Interceptor {
         }
     }
 
+    /**
+     * 只能发送一次的请求体(例如InputStream，包括multipart中的InputStream part)无法重试
+     */
+    static boolean hasOneShotBody(Request request) {
+        return RetrofitUtils.isOneShot(request.body());
+    }
+
+    /**
+     * 解析重试策略，在创建接口实例时调用，同一个方法的所有调用共享同一个实例。
+     *
+     * @param retry 方法或接口上的@Retry注解，不存在时为null
+     * @return 重试策略
+     */
+    public RetryStrategy resolveRetryStrategy(Retry retry) {
+        Class<? extends RetryStrategy> retryStrategyClass =
+                retry == null ? globalRetryProperty.getRetryStrategy() : retry.retryStrategy();
+        if (retryStrategyClass != null && retryStrategyClass != RetryStrategy.class) {
+            return AppContextUtils.getBeanOrNew(applicationContext, retryStrategyClass);
+        }
+        if (retry == null) {
+            return new BackoffRetryStrategy(globalRetryProperty.getIntervalMs(), globalRetryProperty.getMultiplier(),
+                    globalRetryProperty.getMaxIntervalMs(), globalRetryProperty.getJitter());
+        }
+        return new BackoffRetryStrategy(retry.intervalMs(), retry.multiplier(), retry.maxIntervalMs(),
+                retry.jitter());
+    }
+
+    /**
+     * 解析接口的重试预算，在创建接口实例时调用，同一个接口的所有方法共享同一个预算。
+     *
+     * @param service Retrofit接口
+     * @return 重试预算，未启用时返回null
+     */
+    public RetryBudget resolveRetryBudget(Class<?> service) {
+        if (globalRetryBudget == null) {
+            return null;
+        }
+        return retryBudgets.computeIfAbsent(service, s -> new RetryBudget(retryBudgetProperty, globalRetryBudget));
+    }
+
+    /**
+     * 获取全局重试预算
+     *
+     * @return 全局重试预算，未启用时返回null
+     */
+    public RetryBudget getGlobalRetryBudget() {
+        return globalRetryBudget;
+    }
+
+    /**
+     * 获取所有接口的重试预算
+     *
+     * @return key为Retrofit接口
+     */
+    public Map<Class<?>, RetryBudget> getRetryBudgets() {
+        return Collections.unmodifiableMap(retryBudgets);
+    }
+
+    /**
+     * 兼容旧版本的子类，按照固定间隔重试，不使用Retry-After和重试预算。子类覆盖该方法时，{@link #intercept(Chain)}会调用它
+     *
+     * @deprecated 使用{@link #retryIntercept(int, RetryStrategy, RetryRule[], int[], int, RetryBudget, Chain)}
+     */
+    @Deprecated
     protected Response retryIntercept(int maxRetries, int intervalMs, RetryRule[] retryRules, Chain chain) {
-        HashSet<RetryRule> retryRuleSet = (HashSet<RetryRule>)Arrays.stream(retryRules).collect(Collectors.toSet());
-        RetryStrategy retryStrategy = new RetryStrategy(maxRetries, intervalMs);
+        try {
+            return retryIntercept(maxRetries, new BackoffRetryStrategy(intervalMs, 1, intervalMs, Jitter.NONE),
+                    retryRules, new int[0], 0, null, chain);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected Response retryIntercept(int maxRetries, RetryStrategy retryStrategy, RetryRule[] retryRules,
+            int[] retryableStatusCodes, int maxRetryAfterMs, RetryBudget retryBudget, Chain chain)
+            throws IOException {
+        Set<RetryRule> retryRuleSet = Arrays.stream(retryRules).collect(Collectors.toSet());
+        // 通过serviceId调用时，重试请求避开已经尝试过的实例
+        ServiceInstanceSelection selection = chain.request().tag(ServiceInstanceSelection.class);
         Request request = chain.request();
+        if (selection == null) {
+            selection = new ServiceInstanceSelection();
+            request = request.newBuilder().tag(ServiceInstanceSelection.class, selection).build();
+        }
+        if (retryBudget != null) {
+            retryBudget.deposit();
+        }
+        int retryCount = 0;
+        long intervalMs = 0;
         while (true) {
+            long waitMs;
             try {
                 Response response = chain.proceed(request);
-                // 如果响应状态码是2xx就不用重试，直接返回 response
-                if (!retryRuleSet.contains(RetryRule.RESPONSE_STATUS_NOT_2XX) || response.isSuccessful()) {
+                // 如果响应不满足重试规则，直接返回 response
+                if (!isRetryableResponse(retryRuleSet, retryableStatusCodes, response)) {
                     return response;
                 } else {
-                    if (!retryStrategy.shouldRetry()) {
+                    if (retryCount >= maxRetries) {
                         // 最后一次还没成功，返回最后一次response
                         return response;
                     }
-                    // 执行重试
-                    retryStrategy.retry();
-                    log.warn("The response fails, retry is performed! The request is {}, Response is {}", request,
-                            response);
+                    if (retryBudget != null && !retryBudget.tryWithdraw()) {
+                        log.warn("Retry budget exhausted, skip retry! The request is {}, Response is {}", request,
+                                response);
+                        return response;
+                    }
+                    // 执行重试，优先使用Retry-After
+                    intervalMs = retryStrategy.nextIntervalMs(++retryCount, intervalMs);
+                    long retryAfterMs = parseRetryAfterMs(response, maxRetryAfterMs);
+                    log.warn("The response fails, retry is performed! The request is {}, Response is {}, "
+                            + "tried instances={}", request, response, selection.getAttempts());
                     response.close();
+                    waitMs = retryAfterMs >= 0 ? retryAfterMs : intervalMs;
                 }
             } catch (Exception e) {
-                if (shouldThrowEx(retryRuleSet, e)) {
+                if (shouldThrow(retryRuleSet, e)) {
                     throw new RuntimeException(e);
                 } else {
-                    if (!retryStrategy.shouldRetry()) {
+                    if (retryCount >= maxRetries) {
                         // 最后一次还没成功，抛出异常
-                        throw new RetryFailedException(
-                                "Retry Failed: Total " + maxRetries + " attempts made at interval " + intervalMs + "ms",
-                                e);
+                        throw new RetryFailedException("Retry Failed: Total " + maxRetries
+                                + " attempts made at interval " + intervalMs + "ms", e);
                     }
-                    retryStrategy.retry();
-                    log.warn("The response fails, retry is performed! The request is {} ", request, e);
+                    if (retryBudget != null && !retryBudget.tryWithdraw()) {
+                        log.warn("Retry budget exhausted, skip retry! The request is {} ", request, e);
+                        if (e instanceof IOException) {
+                            throw (IOException)e;
+                        }
+                        if (e instanceof RuntimeException) {
+                            throw (RuntimeException)e;
+                        }
+                        throw new RuntimeException(e);
+                    }
+                    intervalMs = retryStrategy.nextIntervalMs(++retryCount, intervalMs);
+                    log.warn("The response fails, retry is performed! The request is {}, tried instances={} ",
+                            request, selection.getAttempts(), e);
+                    waitMs = intervalMs;
+                }
+            }
+            // 等待在try之外，被中断时直接抛出，不再重试
+            waitUntilNextTry(waitMs);
+        }
+    }
+
+    /**
+     * 响应是否满足重试规则
+     *
+     * @param retryRuleSet 重试规则
+     * @param retryableStatusCodes 可重试的响应状态码
+     * @param response 响应
+     * @return 是否需要重试
+     */
+    protected boolean isRetryableResponse(Set<RetryRule> retryRuleSet, int[] retryableStatusCodes,
+            Response response) {
+        if (response.isSuccessful()) {
+            return false;
+        }
+        if (retryRuleSet.contains(RetryRule.RESPONSE_STATUS_NOT_2XX)) {
+            return true;
+        }
+        if (retryRuleSet.contains(RetryRule.RESPONSE_STATUS_RETRYABLE)) {
+            int code = response.code();
+            for (int retryableStatusCode : retryableStatusCodes) {
+                if (retryableStatusCode == code) {
+                    return true;
                 }
             }
         }
+        return false;
     }
 
+    /**
+     * 解析Retry-After响应头，支持delta-seconds和HTTP-date两种格式，结果不超过maxRetryAfterMs。
+     *
+     * @param response 响应
+     * @param maxRetryAfterMs 最大等待时间，小于等于0表示忽略Retry-After
+     * @return 等待时间，没有或者无法解析时返回-1
+     */
+    protected long parseRetryAfterMs(Response response, int maxRetryAfterMs) {
+        if (maxRetryAfterMs <= 0) {
+            return -1;
+        }
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null || retryAfter.isEmpty()) {
+            return -1;
+        }
+        retryAfter = retryAfter.trim();
+        long retryAfterMs;
+        if (Character.isDigit(retryAfter.charAt(0))) {
+            try {
+                retryAfterMs = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        } else {
+            try {
+                long dateMs = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                retryAfterMs = Math.max(dateMs - System.currentTimeMillis(), 0);
+            } catch (DateTimeParseException e) {
+                return -1;
+            }
+        }
+        return Math.min(retryAfterMs, maxRetryAfterMs);
+    }
+
+    protected void waitUntilNextTry(long intervalMs) throws InterruptedIOException {
+        if (intervalMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(intervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * 延迟执行异步调用的下一次重试，等待期间不占用任何线程。
+     *
+     * @param task 重试任务
+     * @param intervalMs 延迟时间
+     * @return 可取消的定时任务
+     */
+    protected ScheduledFuture<?> scheduleRetry(Runnable task, long intervalMs) {
+        return getRetryScheduler().schedule(task, Math.max(intervalMs, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private ScheduledExecutorService getRetryScheduler() {
+        ScheduledExecutorService scheduler = retryScheduler;
+        if (scheduler == null) {
+            synchronized (this) {
+                scheduler = retryScheduler;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "retrofit-retry-scheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    retryScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * 兼容旧版本的子类，子类覆盖该方法时，判断是否重试都会调用它
+     *
+     * @deprecated 使用{@link #shouldThrowEx(Set, Exception)}
+     */
+    @Deprecated
     protected boolean shouldThrowEx(HashSet<RetryRule> retryRuleSet, Exception e) {
+        return shouldThrowEx((Set<RetryRule>)retryRuleSet, e);
+    }
+
+    /**
+     * 判断异常是否直接抛出，子类覆盖了旧版本的方法时调用旧版本
+     */
+    boolean shouldThrow(Set<RetryRule> retryRuleSet, Exception e) {
+        if (legacyShouldThrowEx) {
+            return shouldThrowEx(new HashSet<>(retryRuleSet), e);
+        }
+        return shouldThrowEx(retryRuleSet, e);
+    }
+
+    private boolean overrides(String name, Class<?>... parameterTypes) {
+        for (Class<?> clazz = getClass(); clazz != RetryInterceptor.class; clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException ignored) {
+                // 继续查找父类
+            }
+        }
+        return false;
+    }
+
+    protected boolean shouldThrowEx(Set<RetryRule> retryRuleSet, Exception e) {
+        if (e instanceof DeadlineExceededException) {
+            // 截止时间已过，重试没有意义
+            return true;
+        }
         if (retryRuleSet.contains(RetryRule.OCCUR_EXCEPTION)) {
             return false;
         }
@@ -103,4 +409,16 @@ public class RetryInterceptor implements Interceptor {
         return true;
     }
 
+    @Override
+    public void destroy() {
+        ScheduledExecutorService scheduler = retryScheduler;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
 }
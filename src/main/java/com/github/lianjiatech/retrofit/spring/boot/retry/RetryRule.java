@@ -13,6 +13,12 @@ public enum  RetryRule {
      */
     RESPONSE_STATUS_NOT_2XX,
 
+    /**
+     * 响应状态码属于可重试状态码（默认429、502、503、504）
+     * The response status code is one of the retryable status codes (429, 502, 503, 504 by default)
+     */
+    RESPONSE_STATUS_RETRYABLE,
+
     /**
      * 发生任意异常
      * Any exception occurred
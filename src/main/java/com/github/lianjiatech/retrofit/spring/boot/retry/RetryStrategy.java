@@ -1,31 +1,26 @@
 package com.github.lianjiatech.retrofit.spring.boot.retry;
 
 /**
- * 重试机制
+ * 重试策略，决定每次重试之前的等待时间。实现类需要是无状态、线程安全的，同一个方法的所有调用共享同一个实例。
+ * <p>
+ * 可以在{@link Retry#retryStrategy()}或者全局重试配置中指定自定义实现，实例优先从Spring容器获取，如果没有获取到，则反射创建。
+ * <p>
+ * Retry strategy, decides how long to wait before each retry. Implementations must be stateless and thread-safe,
+ * since one instance is shared by all calls of a method.
+ *
+ * @author 陈添明
  */
-class RetryStrategy {
-    private int maxRetries;
-    private final int intervalMs;
+@FunctionalInterface
+public interface RetryStrategy {
 
-    public RetryStrategy(int maxRetries, int intervalMs) {
-        this.maxRetries = maxRetries;
-        this.intervalMs = intervalMs;
-    }
-
-    public boolean shouldRetry() {
-        return maxRetries > 0;
-    }
-
-    public void retry() {
-        maxRetries--;
-        waitUntilNextTry();
-    }
-
-    private void waitUntilNextTry() {
-        try {
-            Thread.sleep(intervalMs);
-        } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
-        }
-    }
+    /**
+     * 计算下一次重试之前的等待时间
+     * <p>
+     * Compute how long to wait before the next retry.
+     *
+     * @param retryCount 即将执行的是第几次重试，从1开始
+     * @param lastIntervalMs 上一次重试之前的等待时间，第一次重试时为0
+     * @return 等待时间，单位ms
+     */
+    long nextIntervalMs(int retryCount, long lastIntervalMs);
 }
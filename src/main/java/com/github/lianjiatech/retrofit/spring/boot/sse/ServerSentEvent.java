@@ -0,0 +1,39 @@
+package com.github.lianjiatech.retrofit.spring.boot.sse;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Server-Sent Events事件，接口方法返回Flux&lt;ServerSentEvent&lt;T&gt;&gt;时使用，data通过接口配置的ConverterFactory转换为T。
+ * <p>
+ * A Server-Sent Events event, used as Flux&lt;ServerSentEvent&lt;T&gt;&gt;. The data is converted to T by the converter
+ * factories configured for the interface.
+ *
+ * @author 陈添明
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServerSentEvent<T> {
+
+    /**
+     * 事件id，即最近一次收到的id字段，断线重连时作为Last-Event-ID请求头发送
+     */
+    private String id;
+
+    /**
+     * 事件类型，没有event字段时为null
+     */
+    private String event;
+
+    /**
+     * 事件数据
+     */
+    private T data;
+
+    /**
+     * 服务端通过retry字段指定的重连等待时间，没有时为null
+     */
+    private Long retry;
+}
@@ -0,0 +1,33 @@
+package com.github.lianjiatech.retrofit.spring.boot.sse;
+
+import lombok.Data;
+
+/**
+ * Server-Sent Events配置
+ * <p>
+ * Server-Sent Events config
+ *
+ * @author 陈添明
+ */
+@Data
+public class SseProperty {
+
+    /**
+     * 连接断开之后的重连等待时间，服务端通过retry字段指定时以服务端为准
+     * Delay before reconnecting, overridden by the retry field sent by the server
+     */
+    private long reconnectDelayMs = 3000;
+
+    /**
+     * 连续重连的最大次数，收到事件之后重新计数。-1表示不限制，0表示不重连
+     * Maximum consecutive reconnects, reset whenever an event arrives. -1 means unlimited and 0 disables reconnecting
+     */
+    private int maxReconnectAttempts = -1;
+
+    /**
+     * 事件流的读超时(两次数据之间的最长空闲时间)，0表示不超时。方法上通过@Timeout指定readTimeoutMs时以注解为准
+     * Read timeout of the event stream, i.e. the longest idle time between two chunks; 0 disables it. A readTimeoutMs
+     * set by @Timeout on the method takes precedence
+     */
+    private int readTimeoutMs = 0;
+}
@@ -0,0 +1,61 @@
+package com.github.lianjiatech.retrofit.spring.boot.timeout;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.Constants;
+
+/**
+ * 方法级别的超时时间，覆盖@RetrofitClient或全局配置的超时时间。同一接口的所有方法共享一个OkHttpClient，
+ * 连接、读、写超时通过拦截器Chain.withXxxTimeout按请求生效，调用超时通过Call.timeout()按调用生效。
+ * <p>
+ * Method level timeouts overriding the ones of @RetrofitClient or the global configuration. All methods of an
+ * interface still share one OkHttpClient: connect, read and write timeouts are applied per request through
+ * Chain.withXxxTimeout, and the call timeout is applied per call through Call.timeout().
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Documented
+public @interface Timeout {
+
+    /**
+     * 连接超时时间，-1表示使用接口配置
+     * <p>
+     * Connect timeout, -1 means the interface's value is used
+     *
+     * @return 连接超时时间
+     */
+    int connectTimeoutMs() default Constants.INVALID_TIMEOUT_VALUE;
+
+    /**
+     * 读取超时时间，-1表示使用接口配置
+     * <p>
+     * Read timeout, -1 means the interface's value is used
+     *
+     * @return 读取超时时间
+     */
+    int readTimeoutMs() default Constants.INVALID_TIMEOUT_VALUE;
+
+    /**
+     * 写入超时时间，-1表示使用接口配置
+     * <p>
+     * Write timeout, -1 means the interface's value is used
+     *
+     * @return 写入超时时间
+     */
+    int writeTimeoutMs() default Constants.INVALID_TIMEOUT_VALUE;
+
+    /**
+     * 完整调用超时时间，-1表示使用接口配置，0表示不限制
+     * <p>
+     * Complete call timeout, -1 means the interface's value is used and 0 means no timeout
+     *
+     * @return 完整调用超时时间
+     */
+    int callTimeoutMs() default Constants.INVALID_TIMEOUT_VALUE;
+}
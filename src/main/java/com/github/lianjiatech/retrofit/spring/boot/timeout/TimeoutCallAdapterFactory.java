@@ -0,0 +1,129 @@
+package com.github.lianjiatech.retrofit.spring.boot.timeout;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * 按调用应用@Timeout配置的callTimeoutMs，取值来自{@link MethodMetadata}。调用超时在Call执行之前就已开始计时，拦截器中无法修改，
+ * 因此在CallAdapter中设置Call.timeout()，只有与client默认值不同时才会修改。
+ * 需要在其它CallAdapterFactory之前添加：同步调用的重试都在同一个Call内，共享一个调用超时；异步调用的每次重试都是clone的Call，各自重新计时。
+ * <p>
+ * Applies callTimeoutMs of @Timeout per call, read from the precomputed {@link MethodMetadata}. The call timeout
+ * starts before any interceptor runs, so it is set on Call.timeout() by this adapter instead, and only when it differs
+ * from the client default. It has to be added before the other factories: synchronous retries run
+ * inside one call and share its timeout, while every asynchronous retry is a clone that gets a fresh one.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TimeoutCallAdapterFactory extends CallAdapter.Factory implements InternalCallAdapterFactory {
+
+    public static final TimeoutCallAdapterFactory INSTANCE = new TimeoutCallAdapterFactory();
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        CallAdapter<?, ?> delegate = retrofit.nextCallAdapter(this, returnType, annotations);
+        return new TimeoutCallAdapter<>(delegate);
+    }
+
+    private static final class TimeoutCallAdapter<R, T> implements CallAdapter<R, T> {
+
+        private final CallAdapter<R, T> delegate;
+
+        @SuppressWarnings("unchecked")
+        TimeoutCallAdapter(CallAdapter<?, ?> delegate) {
+            this.delegate = (CallAdapter<R, T>)delegate;
+        }
+
+        @Override
+        public Type responseType() {
+            return delegate.responseType();
+        }
+
+        @Override
+        public T adapt(Call<R> call) {
+            return delegate.adapt(new TimeoutCall<>(call));
+        }
+    }
+
+    static final class TimeoutCall<T> implements Call<T> {
+
+        private final Call<T> delegate;
+
+        TimeoutCall(Call<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            applyTimeout();
+            return delegate.execute();
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            applyTimeout();
+            delegate.enqueue(callback);
+        }
+
+        /**
+         * 使用方法元数据中预先解析的callTimeoutMs，只有与client默认值不同时才修改
+         */
+        private void applyTimeout() {
+            try {
+                okio.Timeout timeout = delegate.timeout();
+                MethodMetadata methodMetadata = delegate.request().tag(MethodMetadata.class);
+                if (methodMetadata != null
+                        && methodMetadata.getCallTimeoutMs() != TimeUnit.NANOSECONDS.toMillis(timeout.timeoutNanos())) {
+                    timeout.timeout(methodMetadata.getCallTimeoutMs(), TimeUnit.MILLISECONDS);
+                }
+            } catch (RuntimeException e) {
+                // 请求创建失败，交由原始Call抛出异常或者回调onFailure
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new TimeoutCall<>(delegate.clone());
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public okio.Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.lianjiatech.retrofit.spring.boot.timeout;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 按请求应用方法级别的连接、读、写超时时间。只有与client默认值不同时才会替换Chain，未配置@Timeout的方法没有额外开销。
+ * <p>
+ * Applies the method level connect, read and write timeouts per request. The chain is only replaced when a value
+ * differs from the client default, so methods without @Timeout pay nothing.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TimeoutInterceptor implements Interceptor {
+
+    public static final TimeoutInterceptor INSTANCE = new TimeoutInterceptor();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        MethodMetadata methodMetadata = request.tag(MethodMetadata.class);
+        if (methodMetadata == null) {
+            return chain.proceed(request);
+        }
+        if (methodMetadata.getConnectTimeoutMs() != chain.connectTimeoutMillis()) {
+            chain = chain.withConnectTimeout(methodMetadata.getConnectTimeoutMs(), TimeUnit.MILLISECONDS);
+        }
+        if (methodMetadata.getReadTimeoutMs() != chain.readTimeoutMillis()) {
+            chain = chain.withReadTimeout(methodMetadata.getReadTimeoutMs(), TimeUnit.MILLISECONDS);
+        }
+        if (methodMetadata.getWriteTimeoutMs() != chain.writeTimeoutMillis()) {
+            chain = chain.withWriteTimeout(methodMetadata.getWriteTimeoutMs(), TimeUnit.MILLISECONDS);
+        }
+        return chain.proceed(request);
+    }
+}
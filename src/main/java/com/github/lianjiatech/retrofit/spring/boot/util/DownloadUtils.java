@@ -0,0 +1,59 @@
+package com.github.lianjiatech.retrofit.spring.boot.util;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import com.github.lianjiatech.retrofit.spring.boot.download.Download;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * @author 陈添明
+ */
+@UtilityClass
+public class DownloadUtils {
+
+    /**
+     * 查找方法上@Download指定的目标文件路径，支持元注解。
+     *
+     * @param annotations 方法注解
+     * @return 目标文件路径，没有@Download时为空字符串
+     */
+    public static String findTarget(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            Download download = annotation instanceof Download ? (Download)annotation
+                    : AnnotatedElementUtils.findMergedAnnotation(annotation.annotationType(), Download.class);
+            if (download != null) {
+                return download.target();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 解析下载目标文件。为空或者指向一个已存在的目录时，在该目录(默认系统临时目录)下创建临时文件，否则创建不存在的父目录。
+     *
+     * @param target 目标文件路径
+     * @return 目标文件
+     * @throws IOException 创建文件或者目录失败
+     */
+    public static Path createTarget(String target) throws IOException {
+        if (target.isEmpty()) {
+            return Files.createTempFile("retrofit-", ".download");
+        }
+        Path path = Paths.get(target);
+        if (Files.isDirectory(path)) {
+            return Files.createTempFile(path, "retrofit-", ".download");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return path;
+    }
+}
@@ -5,6 +5,8 @@ import com.github.lianjiatech.retrofit.spring.boot.exception.ReadResponseBodyExc
 import lombok.experimental.UtilityClass;
 import okhttp3.Headers;
 import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.Buffer;
@@ -30,6 +32,31 @@ public final class RetrofitUtils {
     private static final String SUFFIX = "/";
     public static final String HTTP_PREFIX = "http://";
 
+    /**
+     * 请求体是否只能发送一次。MultipartBody本身没有覆盖isOneShot，需要检查每个part(例如@Part InputStream)。
+     * Whether the request body can only be written once. MultipartBody does not override isOneShot, so its parts
+     * (e.g. an @Part InputStream) are checked one by one.
+     *
+     * @param body request body, may be null
+     * @return true if the body is one shot
+     */
+    public static boolean isOneShot(RequestBody body) {
+        if (body == null) {
+            return false;
+        }
+        if (body.isOneShot()) {
+            return true;
+        }
+        if (body instanceof MultipartBody) {
+            for (MultipartBody.Part part : ((MultipartBody)body).parts()) {
+                if (isOneShot(part.body())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * read ResponseBody as String
      *
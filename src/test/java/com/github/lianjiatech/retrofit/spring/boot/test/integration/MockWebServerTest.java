@@ -5,13 +5,17 @@ import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
+import org.springframework.context.ApplicationContext;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadataCallFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitFactoryBean;
 import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
 
 import lombok.SneakyThrows;
+import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 
@@ -61,6 +65,17 @@ public class MockWebServerTest {
         return OBJECT_MAPPER.writeValueAsString(obj);
     }
 
+    /**
+     * 手动创建Retrofit时，复用容器中同一接口的方法元数据，使组件的拦截器生效
+     */
+    public static okhttp3.Call.Factory methodMetadataCallFactory(ApplicationContext applicationContext,
+            Class<?> service, OkHttpClient okHttpClient) {
+        String beanName = applicationContext.getBeanNamesForType(service)[0];
+        RetrofitFactoryBean<?> factoryBean =
+                applicationContext.getBean("&" + beanName, RetrofitFactoryBean.class);
+        return new MethodMetadataCallFactory(okHttpClient, factoryBean.getMethodMetadataMap());
+    }
+
     @Before
     public void before() throws IOException {
         server = new MockWebServer();
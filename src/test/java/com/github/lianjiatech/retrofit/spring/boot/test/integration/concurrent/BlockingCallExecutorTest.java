@@ -0,0 +1,131 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitProperties;
+import com.github.lianjiatech.retrofit.spring.boot.core.BlockingCallExecutor;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+import com.github.lianjiatech.retrofit.spring.boot.util.VirtualThreads;
+
+import okhttp3.Dispatcher;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+public class BlockingCallExecutorTest extends MockWebServerTest {
+
+    interface FanOutUserService {
+
+        @GET("getUser")
+        Call<User> getUser(@Query("id") Long id);
+    }
+
+    private FanOutUserService fanOutUserService;
+
+    @Before
+    public void createService() {
+        fanOutUserService = new Retrofit.Builder()
+                .baseUrl("http://localhost:8080/api/user/")
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(FanOutUserService.class);
+    }
+
+    @Test
+    public void invokeAllInOrder() throws Exception {
+        BlockingCallExecutor executor = new BlockingCallExecutor(true);
+        try {
+            assertEquals(VirtualThreads.isSupported(), executor.isVirtual());
+            int count = 20;
+            List<Callable<User>> calls = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                mockServerReturnObject(USER_MIKE);
+                calls.add(() -> fanOutUserService.getUser(Long100).execute().body());
+            }
+            List<User> users = executor.invokeAll(calls);
+            assertEquals(count, users.size());
+            users.forEach(user -> assertEquals(USER_MIKE, user));
+            assertEquals(count, server.getRequestCount());
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void invokeAllFailure() throws Exception {
+        BlockingCallExecutor executor = new BlockingCallExecutor(false);
+        try {
+            executor.invokeAll(Arrays.<Callable<String>>asList(() -> "ok", () -> {
+                throw new IllegalStateException("boom");
+            }));
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void submit() throws Exception {
+        BlockingCallExecutor executor = new BlockingCallExecutor(false);
+        try {
+            mockServerReturnObject(USER_MIKE);
+            assertEquals(USER_MIKE, executor.submit(() -> fanOutUserService.getUser(Long100).execute().body()).get());
+            try {
+                executor.submit(() -> {
+                    throw new IOException("io");
+                }).join();
+                fail();
+            } catch (RuntimeException e) {
+                assertEquals(IOException.class, e.getCause().getClass());
+            }
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void virtualThreadExecutor() {
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor("test-");
+        if (VirtualThreads.isSupported()) {
+            assertNotNull(executor);
+            executor.shutdown();
+        } else {
+            assertNull(executor);
+        }
+    }
+
+    @Test
+    public void destroyShutsDownDispatchers() {
+        RetrofitConfigBean retrofitConfigBean = new RetrofitConfigBean(new RetrofitProperties());
+        Dispatcher dispatcher = new Dispatcher();
+        Dispatcher hedgeDispatcher = new Dispatcher();
+        retrofitConfigBean.setDispatcher(dispatcher);
+        retrofitConfigBean.setHedgeDispatcher(hedgeDispatcher);
+        retrofitConfigBean.destroy();
+        assertTrue(dispatcher.executorService().isShutdown());
+        assertTrue(hedgeDispatcher.executorService().isShutdown());
+    }
+}
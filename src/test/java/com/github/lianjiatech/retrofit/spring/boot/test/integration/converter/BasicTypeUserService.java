@@ -0,0 +1,38 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.converter;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+
+import retrofit2.http.Body;
+import retrofit2.http.GET;
+import retrofit2.http.POST;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface BasicTypeUserService {
+
+    @GET("count")
+    Long count();
+
+    @GET("count")
+    long countPrimitive();
+
+    @GET("count")
+    int countInt();
+
+    @GET("male")
+    boolean isMale();
+
+    @GET("score")
+    double score();
+
+    @POST("count")
+    Void saveCount(@Body long count);
+
+    @POST("name")
+    Void saveName(@Body String name);
+
+    @POST("male")
+    Void saveMale(@Body Boolean male);
+}
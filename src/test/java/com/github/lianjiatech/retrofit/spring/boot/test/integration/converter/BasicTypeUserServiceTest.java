@@ -0,0 +1,104 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class BasicTypeUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private BasicTypeUserService basicTypeUserService;
+
+    @Test
+    public void parseLong() {
+        mockServerReturnString("9223372036854775807");
+        assertEquals(Long.MAX_VALUE, basicTypeUserService.count().longValue());
+        mockServerReturnString(" -42\n");
+        assertEquals(-42L, basicTypeUserService.countPrimitive());
+    }
+
+    @Test
+    public void parseInt() {
+        mockServerReturnString("2147483647");
+        assertEquals(Integer.MAX_VALUE, basicTypeUserService.countInt());
+    }
+
+    @Test
+    public void intOverflow() {
+        mockServerReturnString("2147483648");
+        try {
+            basicTypeUserService.countInt();
+            fail();
+        } catch (NumberFormatException e) {
+            assertTrue(e.getMessage().contains("2147483648"));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void trailingCharacters() {
+        mockServerReturnString("42abc");
+        basicTypeUserService.count();
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void emptyBody() {
+        mockServerReturnString("");
+        basicTypeUserService.count();
+    }
+
+    @Test
+    public void parseBoolean() {
+        mockServerReturnString("TRUE");
+        assertTrue(basicTypeUserService.isMale());
+        mockServerReturnString("true ");
+        assertFalse(basicTypeUserService.isMale());
+        mockServerReturnString("tru");
+        assertFalse(basicTypeUserService.isMale());
+    }
+
+    @Test
+    public void parseDouble() {
+        mockServerReturnString("98.5");
+        assertEquals(98.5, basicTypeUserService.score(), 0);
+    }
+
+    @Test
+    public void requestBody() throws Exception {
+        mockServerReturnString("");
+        basicTypeUserService.saveCount(Long.MIN_VALUE);
+        RecordedRequest request = server.takeRequest();
+        assertEquals("application/json; charset=UTF-8", request.getHeader("Content-Type"));
+        assertEquals(String.valueOf(Long.MIN_VALUE), request.getBody().readUtf8());
+        assertEquals(String.valueOf(String.valueOf(Long.MIN_VALUE).length()), request.getHeader("Content-Length"));
+
+        mockServerReturnString("");
+        basicTypeUserService.saveName(MIKE);
+        // String仍然按照JSON字符串发送
+        RecordedRequest nameRequest = server.takeRequest();
+        assertEquals(writeValueAsString(MIKE), nameRequest.getBody().readUtf8());
+        assertTrue(nameRequest.getHeader("Content-Type").startsWith("application/json"));
+
+        mockServerReturnString("");
+        basicTypeUserService.saveMale(true);
+        RecordedRequest maleRequest = server.takeRequest();
+        assertEquals("true", maleRequest.getBody().readUtf8());
+        assertEquals("application/json; charset=UTF-8", maleRequest.getHeader("Content-Type"));
+    }
+}
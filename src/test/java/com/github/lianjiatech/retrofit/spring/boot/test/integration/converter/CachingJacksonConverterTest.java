@@ -0,0 +1,98 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.CachingJacksonConverterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.http.Body;
+import retrofit2.http.GET;
+import retrofit2.http.POST;
+
+/**
+ * @author 陈添明
+ */
+public class CachingJacksonConverterTest extends MockWebServerTest {
+
+    interface JacksonUserService {
+
+        @POST("saveUser")
+        Call<User> saveUser(@Body User user);
+
+        @POST("saveUsers")
+        Call<List<User>> saveUsers(@Body List<User> users);
+
+        @GET("getUser")
+        Call<User> getUser();
+    }
+
+    private static JacksonUserService createService(boolean chunkedRequestBody) {
+        return new Retrofit.Builder()
+                .baseUrl("http://localhost:8080/api/user/")
+                .addConverterFactory(CachingJacksonConverterFactory.create(OBJECT_MAPPER, chunkedRequestBody))
+                .build()
+                .create(JacksonUserService.class);
+    }
+
+    @Test
+    public void bufferedRequestBody() throws Exception {
+        JacksonUserService service = createService(false);
+        mockServerReturnObject(USER_MIKE);
+        User user = service.saveUser(USER_MIKE).execute().body();
+        assertEquals(USER_MIKE, user);
+
+        RecordedRequest request = server.takeRequest();
+        String json = writeValueAsString(USER_MIKE);
+        assertEquals(json, request.getBody().readUtf8());
+        assertEquals(String.valueOf(json.length()), request.getHeader("Content-Length"));
+        assertNull(request.getHeader("Transfer-Encoding"));
+        assertEquals("application/json; charset=UTF-8", request.getHeader("Content-Type"));
+    }
+
+    @Test
+    public void chunkedRequestBody() throws Exception {
+        JacksonUserService service = createService(true);
+        mockServerReturnObject(USER_MIKE);
+        assertEquals(USER_MIKE, service.saveUser(USER_MIKE).execute().body());
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals(writeValueAsString(USER_MIKE), request.getBody().readUtf8());
+        assertNull(request.getHeader("Content-Length"));
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+    }
+
+    @Test
+    public void genericType() throws Exception {
+        JacksonUserService service = createService(false);
+        List<User> users = Arrays.asList(USER_MIKE, USER_EMMA);
+        for (int i = 0; i < 2; i++) {
+            mockServerReturnObject(users);
+            assertEquals(users, service.saveUsers(users).execute().body());
+            assertEquals(writeValueAsString(users), server.takeRequest().getBody().readUtf8());
+        }
+    }
+
+    @Test
+    public void nonUnicodeCharset() throws Exception {
+        JacksonUserService service = createService(false);
+        User user = new User().setId(Long100).setName("张三").setAge(INT20);
+        Charset gbk = Charset.forName("GBK");
+        server.enqueue(new MockResponse()
+                .addHeader("Content-Type", "application/json; charset=GBK")
+                .setBody(new Buffer().writeString(writeValueAsString(user), gbk)));
+        assertEquals(user, service.getUser().execute().body());
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.core.CachingJacksonConverterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.base.UserService;
+
+import okhttp3.mockwebserver.MockResponse;
+import retrofit2.Converter;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+/**
+ * 自定义了JacksonConverterFactory bean时，全局转换器使用该bean，ObjectMapper配置仍然生效
+ *
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class,
+    CustomJacksonConverterFactoryTest.CustomJacksonConfiguration.class})
+@RunWith(SpringRunner.class)
+public class CustomJacksonConverterFactoryTest extends MockWebServerTest {
+
+    @TestConfiguration
+    static class CustomJacksonConfiguration {
+
+        @Bean
+        public JacksonConverterFactory customJacksonConverterFactory() {
+            return JacksonConverterFactory.create(new ObjectMapper()
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setPropertyNamingStrategy(PropertyNamingStrategies.UPPER_CAMEL_CASE));
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RetrofitConfigBean retrofitConfigBean;
+
+    @Test
+    public void customObjectMapperKept() {
+        List<Class<? extends Converter.Factory>> converterFactories =
+                Arrays.asList(retrofitConfigBean.getGlobalConverterFactoryClasses());
+        assertTrue(converterFactories.contains(JacksonConverterFactory.class));
+        assertFalse(converterFactories.contains(CachingJacksonConverterFactory.class));
+
+        server.enqueue(new MockResponse()
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody("{\"Id\":100,\"Name\":\"" + MIKE + "\",\"Age\":20,\"Male\":true}"));
+        assertEquals(MIKE, userService.getUser(Long100).getName());
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.deadline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.MonoCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.exception.DeadlineExceededException;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.RecordedRequest;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+public class DeadlineTest extends MockWebServerTest {
+
+    private static final String HEADER = "X-Deadline-Remaining-Ms";
+
+    interface DeadlineUserService {
+
+        @GET("getUser")
+        Call<User> getUser(@Query("id") Long id);
+
+        @GET("getUser")
+        Mono<User> getUserMono(@Query("id") Long id);
+    }
+
+    private DeadlineUserService deadlineUserService;
+
+    @Before
+    public void createService() {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new DeadlineInterceptor(HEADER))
+                .build();
+        deadlineUserService = new Retrofit.Builder()
+                .baseUrl("http://localhost:8080/api/user/")
+                .client(client)
+                .addCallAdapterFactory(DeadlineCallAdapterFactory.INSTANCE)
+                .addCallAdapterFactory(MonoCallAdapterFactory.INSTANCE)
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(DeadlineUserService.class);
+    }
+
+    @Test
+    public void forwardRemainingTime() throws Exception {
+        mockServerReturnObject(USER_MIKE);
+        User user = DeadlineContext.callWith(Deadline.after(5000), this::getUser);
+        assertEquals(USER_MIKE, user);
+        long remainingMs = Long.parseLong(server.takeRequest().getHeader(HEADER));
+        assertTrue(remainingMs > 0 && remainingMs <= 5000);
+    }
+
+    @Test
+    public void noDeadlineNoHeader() throws Exception {
+        mockServerReturnObject(USER_MIKE);
+        assertEquals(USER_MIKE, getUser());
+        assertNull(server.takeRequest().getHeader(HEADER));
+    }
+
+    @Test
+    public void expiredDeadlineFailsFast() throws Exception {
+        mockServerReturnObject(USER_MIKE);
+        try {
+            DeadlineContext.callWith(Deadline.after(0), () -> {
+                try {
+                    return deadlineUserService.getUser(Long100).execute();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof DeadlineExceededException);
+        }
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void deadlineShrinksCallTimeout() {
+        // 服务端1s才返回，剩余时间只有300ms
+        mockServerReturnObject(USER_MIKE, 1);
+        long start = System.nanoTime();
+        try {
+            DeadlineContext.callWith(Deadline.after(300), this::getUser);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof InterruptedIOException);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 900);
+    }
+
+    @Test
+    public void reactorContextDeadline() throws Exception {
+        mockServerReturnObject(USER_MIKE);
+        User user = deadlineUserService.getUserMono(Long100)
+                .subscriberContext(Context.of(DeadlineContext.REACTOR_CONTEXT_KEY, Deadline.after(5000)))
+                .block();
+        assertEquals(USER_MIKE, user);
+        RecordedRequest request = server.takeRequest();
+        assertTrue(Long.parseLong(request.getHeader(HEADER)) <= 5000);
+    }
+
+    private User getUser() {
+        try {
+            return deadlineUserService.getUser(Long100).execute().body();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor.DecodeOutcome;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class ErrorDecoderUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private ErrorDecoderUserService errorDecoderUserService;
+
+    @Autowired
+    private ErrorDecoderInterceptor errorDecoderInterceptor;
+
+    @Test
+    public void validResponse() {
+        long before = errorDecoderInterceptor.getDecodeCount(DecodeOutcome.VALID_RESPONSE);
+        mockServerReturnObject(USER_MIKE);
+        assertNotNull(errorDecoderUserService.getUser(Long100));
+        assertEquals(before + 1, errorDecoderInterceptor.getDecodeCount(DecodeOutcome.VALID_RESPONSE));
+    }
+
+    @Test
+    public void invalidResponse() {
+        long before = errorDecoderInterceptor.getDecodeCount(DecodeOutcome.INVALID_RESPONSE);
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        try {
+            errorDecoderUserService.getUser(Long100);
+            fail();
+        } catch (RetrofitException e) {
+            assertEquals(before + 1, errorDecoderInterceptor.getDecodeCount(DecodeOutcome.INVALID_RESPONSE));
+        }
+    }
+
+    @Test
+    public void resolveOnce() {
+        assertSame(errorDecoderInterceptor.resolveErrorDecoder(MyErrorDecoder.class),
+                errorDecoderInterceptor.resolveErrorDecoder(MyErrorDecoder.class));
+    }
+}
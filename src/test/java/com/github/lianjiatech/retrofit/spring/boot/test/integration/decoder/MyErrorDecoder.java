@@ -0,0 +1,10 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.decoder;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ErrorDecoder;
+
+/**
+ * 非Spring Bean的错误解码器，创建接口实例时反射创建一次
+ *
+ * @author 陈添明
+ */
+public class MyErrorDecoder implements ErrorDecoder {}
@@ -0,0 +1,38 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.download;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.download.Download;
+import com.github.lianjiatech.retrofit.spring.boot.download.DownloadProgressListener;
+import com.github.lianjiatech.retrofit.spring.boot.log.LogStrategy;
+import com.github.lianjiatech.retrofit.spring.boot.log.Logging;
+
+import retrofit2.http.GET;
+import retrofit2.http.Tag;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface DownloadUserService {
+
+    @GET("export")
+    @Download(target = "target/download/export.csv")
+    Path download(@Tag DownloadProgressListener listener);
+
+    @GET("export")
+    Path downloadToTempFile();
+
+    @GET("export")
+    InputStream openStream(@Tag DownloadProgressListener listener);
+
+    @GET("export")
+    ReadableByteChannel openChannel();
+
+    @GET("export")
+    @Logging(logStrategy = LogStrategy.BODY)
+    InputStream openStreamWithBodyLogging();
+}
@@ -0,0 +1,146 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.download;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.download.DownloadProgressListener;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class DownloadUserServiceTest extends MockWebServerTest {
+
+    private static final int FILE_SIZE = 4 * 1024 * 1024;
+
+    @Autowired
+    private DownloadUserService downloadUserService;
+
+    @Test
+    public void downloadToTarget() throws IOException {
+        byte[] content = mockServerReturnFile(1);
+        AtomicLong progress = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        Path path = downloadUserService.download((bytesRead, contentLength, finished) -> {
+            assertEquals(FILE_SIZE, contentLength);
+            progress.set(bytesRead);
+            done.set(finished);
+        });
+        assertEquals(Paths.get("target/download/export.csv"), path);
+        assertArrayEquals(content, Files.readAllBytes(path));
+        assertEquals(FILE_SIZE, progress.get());
+        assertTrue(done.get());
+    }
+
+    @Test
+    public void downloadToTempFile() throws IOException {
+        byte[] content = mockServerReturnFile(1);
+        Path path = downloadUserService.downloadToTempFile();
+        try {
+            assertArrayEquals(content, Files.readAllBytes(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void failedDownloadDeletesFile() throws IOException {
+        Path target = Paths.get("target/download/export.csv");
+        Files.deleteIfExists(target);
+        server.enqueue(new MockResponse()
+                .setBody(new Buffer().write(new byte[FILE_SIZE]))
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        try {
+            downloadUserService.download(null);
+            fail();
+        } catch (RetrofitException e) {
+            // 预期的下载失败
+        }
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    public void inputStream() throws IOException {
+        byte[] content = mockServerReturnFile(2);
+        AtomicLong progress = new AtomicLong();
+        DownloadProgressListener listener = (bytesRead, contentLength, done) -> progress.set(bytesRead);
+        try (InputStream inputStream = downloadUserService.openStream(listener)) {
+            // 只读取一部分时，进度只反映已经读取的数据
+            byte[] head = new byte[1024];
+            assertEquals(1024, inputStream.read(head));
+            assertTrue(progress.get() < FILE_SIZE);
+        }
+        try (InputStream inputStream = downloadUserService.openStream(null)) {
+            assertArrayEquals(content, readAll(inputStream));
+        }
+    }
+
+    @Test
+    public void readableByteChannel() throws IOException {
+        byte[] content = mockServerReturnFile(1);
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE);
+        try (ReadableByteChannel channel = downloadUserService.openChannel()) {
+            while (channel.read(buffer) != -1) {
+                assertTrue(buffer.position() <= FILE_SIZE);
+            }
+        }
+        assertArrayEquals(content, buffer.array());
+    }
+
+    @Test
+    public void bodyLoggingDoesNotBufferStream() throws IOException {
+        // 剩余数据每3秒发送1KB，日志读取完整响应体时无法及时拿到InputStream
+        server.enqueue(new MockResponse()
+                .setBody(new Buffer().write(new byte[4096]))
+                .throttleBody(1024, 3, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        try (InputStream inputStream = downloadUserService.openStreamWithBodyLogging()) {
+            assertTrue(inputStream.read(new byte[1024]) > 0);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+
+    private byte[] mockServerReturnFile(int times) {
+        byte[] content = new byte[FILE_SIZE];
+        new Random(FILE_SIZE).nextBytes(content);
+        for (int i = 0; i < times; i++) {
+            server.enqueue(new MockResponse().setBody(new Buffer().write(content)));
+        }
+        return content;
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        Buffer buffer = new Buffer();
+        buffer.readFrom(inputStream);
+        return buffer.readByteArray();
+    }
+}
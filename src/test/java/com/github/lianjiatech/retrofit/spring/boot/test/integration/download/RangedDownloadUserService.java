@@ -0,0 +1,23 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.download;
+
+import java.nio.file.Path;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.download.Download;
+import com.github.lianjiatech.retrofit.spring.boot.download.DownloadProgressListener;
+import com.github.lianjiatech.retrofit.spring.boot.download.RangedDownload;
+
+import retrofit2.http.GET;
+import retrofit2.http.Tag;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface RangedDownloadUserService {
+
+    @GET("artifact")
+    @Download(target = "target/download/artifact.bin")
+    @RangedDownload(chunkSizeBytes = 64 * 1024, parallelism = 3, maxResumeAttempts = 2)
+    Path download(@Tag DownloadProgressListener listener);
+}
@@ -0,0 +1,197 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.download;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class RangedDownloadUserServiceTest extends MockWebServerTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int FILE_SIZE = 16 * CHUNK_SIZE + 123;
+
+    private static final String ETAG = "\"v1\"";
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @Autowired
+    private RangedDownloadUserService rangedDownloadUserService;
+
+    @Test
+    public void parallelRanges() throws IOException {
+        byte[] content = randomContent();
+        RangeDispatcher dispatcher = new RangeDispatcher(content);
+        server.setDispatcher(dispatcher);
+        AtomicLong progress = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        Path path = rangedDownloadUserService.download((bytesRead, contentLength, finished) -> {
+            assertEquals(FILE_SIZE, contentLength);
+            progress.set(bytesRead);
+            done.compareAndSet(false, finished);
+        });
+        assertArrayEquals(content, Files.readAllBytes(path));
+        assertEquals(17, server.getRequestCount());
+        assertEquals(FILE_SIZE, progress.get());
+        assertTrue(done.get());
+        // 第一个分段之后的请求都携带If-Range
+        assertEquals(16, dispatcher.ifRangeCount.get());
+    }
+
+    @Test
+    public void resumeOnlyFailedRanges() throws IOException {
+        byte[] content = randomContent();
+        RangeDispatcher dispatcher = new RangeDispatcher(content);
+        dispatcher.failOnce.addAll(Arrays.asList(0L, (long)CHUNK_SIZE * 5, (long)CHUNK_SIZE * 9));
+        server.setDispatcher(dispatcher);
+        Path path = rangedDownloadUserService.download(null);
+        assertArrayEquals(content, Files.readAllBytes(path));
+        // 每个失败的分段只重新下载一次
+        assertEquals(17 + 3, server.getRequestCount());
+    }
+
+    @Test
+    public void failAfterMaxResumeAttempts() throws IOException {
+        Path target = Paths.get("target/download/artifact.bin");
+        RangeDispatcher dispatcher = new RangeDispatcher(randomContent());
+        dispatcher.alwaysFail = (long)CHUNK_SIZE * 3;
+        server.setDispatcher(dispatcher);
+        try {
+            rangedDownloadUserService.download(null);
+            fail();
+        } catch (RetrofitException e) {
+            assertTrue(e.getCause().getMessage().contains("still failed after 2 resume attempts"));
+        }
+        assertEquals(17 + 2, server.getRequestCount());
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    public void fallbackWithoutRangeSupport() throws IOException {
+        byte[] content = randomContent();
+        server.enqueue(new MockResponse().setBody(new Buffer().write(content)));
+        Path path = rangedDownloadUserService.download(null);
+        assertArrayEquals(content, Files.readAllBytes(path));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void clientErrorNotResumed() throws IOException {
+        Path target = Paths.get("target/download/artifact.bin");
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("not found"));
+        try {
+            rangedDownloadUserService.download(null);
+            fail();
+        } catch (RetrofitException e) {
+            assertTrue(e.getMessage().contains("code=404"));
+        }
+        assertEquals(1, server.getRequestCount());
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(416).setHeader("Content-Range", "bytes */0"));
+        AtomicBoolean done = new AtomicBoolean();
+        Path path = rangedDownloadUserService.download((bytesRead, contentLength, finished) -> done.set(finished));
+        assertEquals(0, Files.size(path));
+        assertTrue(done.get());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void invalidContentRangeReleasesConnection() throws Exception {
+        Path target = Paths.get("target/download/artifact.bin");
+        server.enqueue(new MockResponse().setResponseCode(206)
+                .setHeader("Content-Range", "bytes */" + FILE_SIZE)
+                .setBody("partial"));
+        try {
+            rangedDownloadUserService.download(null);
+            fail();
+        } catch (RetrofitException e) {
+            assertTrue(e.getCause().getMessage().contains("Invalid Content-Range"));
+        }
+        assertFalse(Files.exists(target));
+        // 探测请求的响应已关闭，连接可以复用
+        byte[] content = randomContent();
+        server.enqueue(new MockResponse().setBody(new Buffer().write(content)));
+        assertArrayEquals(content, Files.readAllBytes(rangedDownloadUserService.download(null)));
+        server.takeRequest();
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    private static byte[] randomContent() {
+        byte[] content = new byte[FILE_SIZE];
+        new Random(FILE_SIZE).nextBytes(content);
+        return content;
+    }
+
+    private static final class RangeDispatcher extends Dispatcher {
+
+        private final byte[] content;
+
+        private final List<Long> failOnce = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger ifRangeCount = new AtomicInteger();
+
+        private volatile long alwaysFail = -1;
+
+        RangeDispatcher(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            Matcher matcher = RANGE.matcher(request.getHeader("Range"));
+            assertTrue(matcher.matches());
+            long start = Long.parseLong(matcher.group(1));
+            long end = Math.min(Long.parseLong(matcher.group(2)), content.length - 1);
+            if (request.getHeader("If-Range") != null) {
+                assertEquals(ETAG, request.getHeader("If-Range"));
+                ifRangeCount.incrementAndGet();
+            }
+            if (failOnce.remove(start) || start == alwaysFail) {
+                return new MockResponse().setResponseCode(500);
+            }
+            return new MockResponse().setResponseCode(206)
+                    .setHeader("ETag", ETAG)
+                    .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + content.length)
+                    .setBody(new Buffer().write(content, (int)start, (int)(end - start + 1)));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.hedge;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.Hedge;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.http.Body;
+import retrofit2.http.GET;
+import retrofit2.http.POST;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@Hedge(delayMs = 100)
+public interface HedgeUserService {
+
+    /**
+     * 根据id查询用户信息，100ms内没有返回时发送对冲请求
+     */
+    @GET("getUser")
+    User getUser(@Query("id") Long id);
+
+    /**
+     * 保存用户信息，非幂等请求不会对冲
+     */
+    @POST("saveUser")
+    User saveUser(@Body User user);
+
+    /**
+     * 根据id查询用户信息，返回CompletableFuture
+     */
+    @GET("getUser")
+    CompletableFuture<User> getUserReturnFuture(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，对冲方法不再重试，请求失败时立即发送对冲请求
+     */
+    @GET("getUser")
+    @Hedge(delayMs = 2000)
+    @Retry(maxRetries = 2, intervalMs = 10, retryRules = RetryRule.OCCUR_IO_EXCEPTION)
+    User getUserWithRetry(@Query("id") Long id);
+
+    /**
+     * 流式读取响应体，对冲请求胜出时读取的是对冲请求的响应体
+     */
+    @GET("download")
+    @Streaming
+    Call<ResponseBody> download();
+}
@@ -0,0 +1,165 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.hedge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.LatencyHistogram;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class HedgeUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private HedgeUserService hedgeUserService;
+
+    @Test
+    public void hedgeWins() {
+        // 第一个请求3s后才返回，对冲请求立即返回
+        server.enqueue(new MockResponse().setResponseCode(SUCCESS_CODE)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setHeadersDelay(3, TimeUnit.SECONDS)
+                .setBody(writeValueAsString(USER_EMMA)));
+        mockServerReturnObject(USER_MIKE);
+        long start = System.currentTimeMillis();
+        User user = hedgeUserService.getUser(Long100);
+        long cost = System.currentTimeMillis() - start;
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+        assertTrue(cost < 2000);
+    }
+
+    @Test
+    public void hedgeWinsReturnFuture() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(SUCCESS_CODE)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setHeadersDelay(3, TimeUnit.SECONDS)
+                .setBody(writeValueAsString(USER_EMMA)));
+        mockServerReturnObject(USER_MIKE);
+        User user = hedgeUserService.getUserReturnFuture(Long100).get(2, TimeUnit.SECONDS);
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void cancelWinnerWithOuterCall() throws IOException {
+        server.enqueue(new MockResponse().setHeadersDelay(3, TimeUnit.SECONDS).setBody("slow"));
+        // 对冲请求的响应体每3秒发送1KB
+        server.enqueue(new MockResponse().setBody(new Buffer().write(new byte[4096]))
+                .throttleBody(1024, 3, TimeUnit.SECONDS));
+        Call<ResponseBody> call = hedgeUserService.download();
+        Response<ResponseBody> response = call.execute();
+        try (InputStream inputStream = response.body().byteStream()) {
+            assertTrue(inputStream.read(new byte[1024]) > 0);
+            call.cancel();
+            long start = System.currentTimeMillis();
+            try {
+                while (inputStream.read(new byte[1024]) != -1) {
+                    // 读取剩余数据
+                }
+                fail();
+            } catch (IOException e) {
+                // 外部调用取消之后，对冲请求也被取消
+            }
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+    }
+
+    @Test
+    public void hedgeImmediatelyOnFailure() {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        mockServerReturnObject(USER_MIKE);
+        long start = System.currentTimeMillis();
+        User user = hedgeUserService.getUserWithRetry(Long100);
+        assertEquals(MIKE, user.getName());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void noRetryForHedgedAttempts() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        }
+        try {
+            hedgeUserService.getUserWithRetry(Long100);
+            fail();
+        } catch (RetrofitException e) {
+            // 所有请求都失败
+        }
+        Thread.sleep(200);
+        // 最多maxAttempts个请求，每个请求不再经过重试拦截器
+        assertTrue(server.getRequestCount() <= 2 * 2);
+    }
+
+    @Test
+    public void noHedgeWhenFast() throws Exception {
+        mockServerReturnObject(USER_MIKE);
+        User user = hedgeUserService.getUser(Long100);
+        assertEquals(MIKE, user.getName());
+        Thread.sleep(200);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void noHedgeForPost() {
+        server.enqueue(new MockResponse().setResponseCode(SUCCESS_CODE)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS)
+                .setBody(writeValueAsString(USER_MIKE)));
+        User user = hedgeUserService.saveUser(USER_MIKE);
+        assertEquals(MIKE, user.getName());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void chooseDifferentInstance() {
+        AtomicInteger count = new AtomicInteger();
+        URI a = URI.create("http://a:8080");
+        URI b = URI.create("http://b:8080");
+        ServiceInstanceChooser chooser = serviceId -> count.getAndIncrement() % 2 == 0 ? a : b;
+        assertEquals(a, chooser.choose("user"));
+        assertNotEquals(b, chooser.choose("user", Collections.singleton(b)));
+    }
+
+    @Test
+    public void latencyPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram(60000);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.count());
+        long p50 = histogram.percentile(0.5);
+        long p99 = histogram.percentile(0.99);
+        assertTrue(p50 >= 50 && p50 < 70);
+        assertTrue(p99 >= 99 && p99 < 130);
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.ServiceInstanceChooseException;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.CachingServiceInstanceListSupplier;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstanceCacheProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstanceListSupplier;
+
+/**
+ * @author 陈添明
+ */
+public class CachingServiceInstanceListSupplierTest {
+
+    private static final String SERVICE_ID = "user";
+
+    private static final ServiceInstance INSTANCE_8080 = new ServiceInstance(URI.create("http://localhost:8080"));
+
+    private static final ServiceInstance INSTANCE_8081 = new ServiceInstance(URI.create("http://localhost:8081"));
+
+    private final AtomicInteger lookupCount = new AtomicInteger();
+
+    private final AtomicBoolean registryDown = new AtomicBoolean();
+
+    private final List<ServiceInstance> registry = new CopyOnWriteArrayList<>(Collections.singletonList(INSTANCE_8080));
+
+    private final ServiceInstanceListSupplier registrySupplier = serviceId -> {
+        lookupCount.incrementAndGet();
+        if (registryDown.get()) {
+            throw new IllegalStateException("registry unavailable");
+        }
+        return registry;
+    };
+
+    private CachingServiceInstanceListSupplier supplier;
+
+    @After
+    public void close() {
+        supplier.close();
+    }
+
+    @Test
+    public void serveFromSnapshot() throws InterruptedException {
+        supplier = new CachingServiceInstanceListSupplier(registrySupplier, property(60000));
+        awaitLoaded();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Collections.singletonList(INSTANCE_8080), supplier.get(SERVICE_ID));
+        }
+        assertEquals(1, lookupCount.get());
+    }
+
+    @Test
+    public void refreshInBackground() throws InterruptedException {
+        supplier = new CachingServiceInstanceListSupplier(registrySupplier, property(50));
+        awaitLoaded();
+        assertEquals(1, supplier.get(SERVICE_ID).size());
+        registry.add(INSTANCE_8081);
+        Thread.sleep(200);
+        assertEquals(2, supplier.get(SERVICE_ID).size());
+    }
+
+    @Test
+    public void serveStaleWhenRefreshFails() throws InterruptedException {
+        supplier = new CachingServiceInstanceListSupplier(registrySupplier, property(50));
+        awaitLoaded();
+        assertEquals(1, supplier.get(SERVICE_ID).size());
+        registryDown.set(true);
+        Thread.sleep(200);
+        assertTrue(supplier.getRefreshFailureCount() > 0);
+        assertEquals(Collections.singletonList(INSTANCE_8080), supplier.get(SERVICE_ID));
+    }
+
+    @Test
+    public void prefetch() throws InterruptedException {
+        supplier = new CachingServiceInstanceListSupplier(registrySupplier, property(60000));
+        supplier.prefetch(SERVICE_ID);
+        Thread.sleep(100);
+        assertNotNull(supplier.getCachedInstances(SERVICE_ID));
+        assertEquals(1, lookupCount.get());
+        supplier.get(SERVICE_ID);
+        assertEquals(1, lookupCount.get());
+    }
+
+    @Test
+    public void failFastWhenNotLoaded() throws InterruptedException {
+        CountDownLatch registryLatch = new CountDownLatch(1);
+        supplier = new CachingServiceInstanceListSupplier(serviceId -> {
+            try {
+                registryLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return registry;
+        }, property(60000));
+        long start = System.currentTimeMillis();
+        try {
+            supplier.get(SERVICE_ID);
+            fail();
+        } catch (ServiceInstanceChooseException e) {
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+        registryLatch.countDown();
+        awaitLoaded();
+        assertEquals(Collections.singletonList(INSTANCE_8080), supplier.get(SERVICE_ID));
+    }
+
+    @Test
+    public void failWhenFirstLoadFails() throws InterruptedException {
+        registryDown.set(true);
+        supplier = new CachingServiceInstanceListSupplier(registrySupplier, property(60000));
+        supplier.prefetch(SERVICE_ID);
+        Thread.sleep(100);
+        try {
+            supplier.get(SERVICE_ID);
+            fail();
+        } catch (ServiceInstanceChooseException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private void awaitLoaded() throws InterruptedException {
+        supplier.prefetch(SERVICE_ID);
+        for (int i = 0; i < 100 && supplier.getCachedInstances(SERVICE_ID) == null; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private ServiceInstanceCacheProperty property(long refreshIntervalMs) {
+        ServiceInstanceCacheProperty property = new ServiceInstanceCacheProperty();
+        property.setRefreshIntervalMs(refreshIntervalMs);
+        return property;
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.BodyCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ConsistentHashLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.DefaultLoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class ConsistentHashLoadBalancerTest extends MockWebServerTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private static final String SERVICE_ID = "route-user";
+
+    private static final String ROUTE_KEY_HEADER = "X-Route-Key";
+
+    private final List<MockWebServer> servers = new ArrayList<>();
+
+    private final List<ServiceInstance> instances = new ArrayList<>();
+
+    @Before
+    public void startServers() throws IOException {
+        servers.add(server);
+        for (int port = 8081; port <= 8082; port++) {
+            MockWebServer mockWebServer = new MockWebServer();
+            mockWebServer.start(port);
+            servers.add(mockWebServer);
+        }
+        for (MockWebServer mockWebServer : servers) {
+            mockWebServer.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    return new MockResponse()
+                            .setResponseCode(SUCCESS_CODE)
+                            .addHeader("Content-Type", "application/json; charset=utf-8")
+                            .setBody(writeValueAsString(USER_MIKE));
+                }
+            });
+            instances.add(new ServiceInstance(URI.create("http://localhost:" + mockWebServer.getPort())));
+        }
+    }
+
+    @After
+    public void closeServers() throws IOException {
+        for (MockWebServer mockWebServer : servers.subList(1, servers.size())) {
+            mockWebServer.close();
+        }
+    }
+
+    @Test
+    public void sameKeySameInstance() {
+        RouteKeyUserService userService = createUserService(new ConsistentHashLoadBalancer(160, 0));
+        for (int i = 0; i < 20; i++) {
+            userService.getUser(Long100);
+        }
+        assertEquals(Collections.singletonList(20), requestCounts(20));
+        for (long id = 0; id < 60; id++) {
+            userService.getUser(id);
+        }
+        // 不同的key分散到多个实例
+        assertTrue(requestCounts(0).size() > 1);
+    }
+
+    @Test
+    public void routeKeyFromHeader() {
+        RouteKeyUserService userService = createUserService(new ConsistentHashLoadBalancer(160, 0));
+        for (int i = 0; i < 20; i++) {
+            userService.getUserByHeader(Long100 + i, "user-1");
+        }
+        assertEquals(Collections.singletonList(20), requestCounts(20));
+    }
+
+    @Test
+    public void minimalRemapping() {
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer(160, 0);
+        List<ServiceInstance> four = new ArrayList<>(instances);
+        four.add(new ServiceInstance(URI.create("http://localhost:8083")));
+        int moved = 0;
+        int keys = 1000;
+        for (int i = 0; i < keys; i++) {
+            ServiceInstance before = loadBalancer.choose(SERVICE_ID, instances, "key-" + i);
+            ServiceInstance after = loadBalancer.choose("other-" + SERVICE_ID, four, "key-" + i);
+            if (!before.equals(after)) {
+                moved++;
+            }
+        }
+        // 增加1个实例，理论上迁移1/4的key
+        assertTrue("moved=" + moved, moved > keys / 10 && moved < keys * 2 / 5);
+    }
+
+    @Test
+    public void excludedInstanceGetsKeysBack() {
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer(160, 0);
+        ServiceInstance owner = loadBalancer.choose(SERVICE_ID, instances, "user-1");
+        List<ServiceInstance> remaining = new ArrayList<>(instances);
+        remaining.remove(owner);
+        assertNotEquals(owner, loadBalancer.choose(SERVICE_ID, remaining, "user-1"));
+        assertEquals(owner, loadBalancer.choose(SERVICE_ID, instances, "user-1"));
+    }
+
+    @Test
+    public void candidateSubsetKeepsFullRing() {
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer(160, 0);
+        List<ServiceInstance> all = new ArrayList<>(instances);
+        all.add(new ServiceInstance(URI.create("http://localhost:8083")));
+        List<ServiceInstance> local = all.subList(0, 2);
+        for (int i = 0; i < 200; i++) {
+            String key = "key-" + i;
+            ServiceInstance owner = loadBalancer.choose(SERVICE_ID, all, all, key);
+            // 候选实例在全部实例和本地实例之间切换(可用区溢出)，key始终落在环上顺时针第一个候选实例
+            ServiceInstance localOwner = loadBalancer.choose(SERVICE_ID, all, local, key);
+            assertTrue(local.contains(localOwner));
+            if (local.contains(owner)) {
+                assertEquals(owner, localOwner);
+            }
+            assertEquals(owner, loadBalancer.choose(SERVICE_ID, all, all, key));
+        }
+    }
+
+    @Test
+    public void boundedLoad() {
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer(160, 1.25);
+        for (ServiceInstance instance : instances) {
+            for (int i = 0; i < 4; i++) {
+                loadBalancer.onStart(SERVICE_ID, instance);
+            }
+        }
+        ServiceInstance owner = loadBalancer.choose(SERVICE_ID, instances, "hot-key");
+        int started = 0;
+        while (owner.equals(loadBalancer.choose(SERVICE_ID, instances, "hot-key"))) {
+            loadBalancer.onStart(SERVICE_ID, owner);
+            started++;
+        }
+        // 处理中请求数达到ceil(1.25 * (总处理中请求数 + 1) / 实例数)之后，热点key溢出到下一个实例：4 + 3 = ceil(1.25 * 16 / 3)
+        assertEquals(3, started);
+        for (int i = 0; i < started; i++) {
+            loadBalancer.onComplete(SERVICE_ID, owner, 1, true);
+        }
+        assertEquals(owner, loadBalancer.choose(SERVICE_ID, instances, "hot-key"));
+    }
+
+    /**
+     * 收到请求的实例的请求数
+     */
+    private List<Integer> requestCounts(int atLeast) {
+        List<Integer> counts = new ArrayList<>();
+        for (MockWebServer mockWebServer : servers) {
+            if (mockWebServer.getRequestCount() > 0 && mockWebServer.getRequestCount() >= atLeast) {
+                counts.add(mockWebServer.getRequestCount());
+            }
+        }
+        return counts;
+    }
+
+    private RouteKeyUserService createUserService(ConsistentHashLoadBalancer loadBalancer) {
+        DefaultLoadBalancedServiceInstanceChooser chooser =
+                new DefaultLoadBalancedServiceInstanceChooser(serviceId -> instances, loadBalancer);
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(new ServiceChooseInterceptor(chooser, null, ROUTE_KEY_HEADER))
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl("http://route-user/api/user/")
+                .callFactory(methodMetadataCallFactory(applicationContext, RouteKeyUserService.class, okHttpClient))
+                .addCallAdapterFactory(BodyCallAdapterFactory.INSTANCE)
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(RouteKeyUserService.class);
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.BodyCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.DefaultLoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LeastOutstandingLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.RoundRobinLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.WeightedRandomLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.chooser.ChooserOkHttpUserService;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class LoadBalancerTest extends MockWebServerTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private static final String SERVICE_ID = "user";
+
+    private static final ServiceInstance INSTANCE_8080 = new ServiceInstance(URI.create("http://localhost:8080"));
+
+    private static final ServiceInstance INSTANCE_8081 = new ServiceInstance(URI.create("http://localhost:8081"));
+
+    private MockWebServer server8081;
+
+    @Before
+    public void startServer8081() throws IOException {
+        server8081 = new MockWebServer();
+        server8081.start(8081);
+    }
+
+    @After
+    public void closeServer8081() throws IOException {
+        server8081.close();
+    }
+
+    @Test
+    public void roundRobin() {
+        ChooserOkHttpUserService userService = createUserService(new RoundRobinLoadBalancer());
+        for (int i = 0; i < 2; i++) {
+            mockServerReturnObject(USER_MIKE);
+            server8081.enqueue(mockUserResponse());
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(MIKE, userService.getUser(Long100).getName());
+        }
+        assertEquals(2, server.getRequestCount());
+        assertEquals(2, server8081.getRequestCount());
+    }
+
+    @Test
+    public void leastOutstandingTracksInFlight() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        ChooserOkHttpUserService userService = createUserService(loadBalancer);
+        for (int i = 0; i < 2; i++) {
+            mockServerReturnObject(USER_MIKE);
+            server8081.enqueue(mockUserResponse());
+        }
+        userService.getUser(Long100);
+        userService.getUser(Long100);
+        assertEquals(0, loadBalancer.getStats(INSTANCE_8080).getOutstanding());
+        assertEquals(0, loadBalancer.getStats(INSTANCE_8081).getOutstanding());
+        assertEquals(2, loadBalancer.getStats(INSTANCE_8080).getRequestCount()
+                + loadBalancer.getStats(INSTANCE_8081).getRequestCount());
+    }
+
+    @Test
+    public void leastOutstandingPrefersIdleInstance() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        List<ServiceInstance> instances = Arrays.asList(INSTANCE_8080, INSTANCE_8081);
+        loadBalancer.onStart(SERVICE_ID, INSTANCE_8080);
+        for (int i = 0; i < 100; i++) {
+            // 只有两个实例时P2C总是比较这两个实例
+            assertEquals(INSTANCE_8081, loadBalancer.choose(SERVICE_ID, instances));
+        }
+        loadBalancer.onComplete(SERVICE_ID, INSTANCE_8080, 1, false);
+        assertEquals(0, loadBalancer.getStats(INSTANCE_8080).getOutstanding());
+        assertEquals(1, loadBalancer.getStats(INSTANCE_8080).getFailureCount());
+    }
+
+    @Test
+    public void weightedRandom() {
+        WeightedRandomLoadBalancer loadBalancer = new WeightedRandomLoadBalancer();
+        ServiceInstance heavy = new ServiceInstance(URI.create("http://localhost:8080"), 3);
+        ServiceInstance disabled = new ServiceInstance(URI.create("http://localhost:8081"), 0);
+        ServiceInstance light = new ServiceInstance(URI.create("http://localhost:8082"), 1);
+        List<ServiceInstance> instances = Arrays.asList(heavy, disabled, light);
+        Map<ServiceInstance, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 4000; i++) {
+            counts.merge(loadBalancer.choose(SERVICE_ID, instances), 1, Integer::sum);
+        }
+        assertNull(counts.get(disabled));
+        assertTrue(counts.get(heavy) > counts.get(light) * 2);
+    }
+
+    @Test
+    public void excludeTriedInstances() {
+        DefaultLoadBalancedServiceInstanceChooser chooser = new DefaultLoadBalancedServiceInstanceChooser(
+                serviceId -> Arrays.asList(INSTANCE_8080, INSTANCE_8081), new RoundRobinLoadBalancer());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(INSTANCE_8081,
+                    chooser.chooseInstance(SERVICE_ID, Collections.singleton(INSTANCE_8080.getUri())));
+        }
+        // 全部尝试过时仍然返回一个实例
+        assertNotNull(chooser.chooseInstance(SERVICE_ID,
+                new HashSet<>(Arrays.asList(INSTANCE_8080.getUri(), INSTANCE_8081.getUri()))));
+    }
+
+    private MockResponse mockUserResponse() {
+        return new MockResponse()
+                .setResponseCode(SUCCESS_CODE)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(writeValueAsString(USER_MIKE));
+    }
+
+    private ChooserOkHttpUserService createUserService(LoadBalancer loadBalancer) {
+        DefaultLoadBalancedServiceInstanceChooser chooser = new DefaultLoadBalancedServiceInstanceChooser(
+                serviceId -> Arrays.asList(INSTANCE_8080, INSTANCE_8081), loadBalancer);
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(new ServiceChooseInterceptor(chooser))
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl("http://user/api/user/")
+                .callFactory(methodMetadataCallFactory(applicationContext, ChooserOkHttpUserService.class, okHttpClient))
+                .addCallAdapterFactory(BodyCallAdapterFactory.INSTANCE)
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(ChooserOkHttpUserService.class);
+    }
+}
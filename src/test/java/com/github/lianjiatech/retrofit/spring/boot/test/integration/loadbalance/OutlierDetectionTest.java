@@ -0,0 +1,197 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.BodyCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.DefaultLoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.OutlierDetectionProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.OutlierDetector;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.RoundRobinLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.chooser.ChooserOkHttpUserService;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class OutlierDetectionTest extends MockWebServerTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private static final String SERVICE_ID = "user";
+
+    private static final URI URI_8080 = URI.create("http://localhost:8080");
+
+    private static final URI URI_8081 = URI.create("http://localhost:8081");
+
+    private static final URI URI_8082 = URI.create("http://localhost:8082");
+
+    private MockWebServer server8081;
+
+    private MockWebServer server8082;
+
+    @Before
+    public void startServers() throws IOException {
+        server.setDispatcher(dispatcher(SUCCESS_CODE));
+        server8081 = new MockWebServer();
+        server8081.setDispatcher(dispatcher(SUCCESS_CODE));
+        server8081.start(8081);
+        server8082 = new MockWebServer();
+        server8082.setDispatcher(dispatcher(ERROR_CODE));
+        server8082.start(8082);
+    }
+
+    @After
+    public void closeServers() throws IOException {
+        server8081.close();
+        server8082.close();
+    }
+
+    @Test
+    public void ejectFailingInstance() {
+        OutlierDetector outlierDetector = new OutlierDetector(property(2));
+        ChooserOkHttpUserService userService = createUserService(outlierDetector);
+        for (int i = 0; i < 30; i++) {
+            try {
+                userService.getUser(Long100);
+            } catch (RuntimeException ignored) {
+                // 8082返回500
+            }
+        }
+        assertEquals(2, server8082.getRequestCount());
+        assertEquals(28, server.getRequestCount() + server8081.getRequestCount());
+        assertEquals(Collections.singleton(URI_8082), outlierDetector.getEjectedInstances(SERVICE_ID));
+        assertEquals(1, outlierDetector.getEjectionCount());
+    }
+
+    @Test
+    public void capEjectedPercent() {
+        OutlierDetector outlierDetector = new OutlierDetector(property(1));
+        for (URI uri : Arrays.asList(URI_8080, URI_8081, URI_8082)) {
+            outlierDetector.record(SERVICE_ID, uri, 1, true);
+        }
+        outlierDetector.record(SERVICE_ID, URI_8080, 1, false);
+        outlierDetector.record(SERVICE_ID, URI_8081, 1, false);
+        outlierDetector.record(SERVICE_ID, URI_8082, 1, false);
+        // 3个实例最多摘除50%，即1个
+        Set<URI> ejected = outlierDetector.getEjectedInstances(SERVICE_ID);
+        assertEquals(Collections.singleton(URI_8080), ejected);
+        assertEquals(2, outlierDetector.getCapRejectedCount());
+    }
+
+    @Test
+    public void capEjectedPercentOfCurrentInstances() {
+        OutlierDetector outlierDetector = new OutlierDetector(property(1));
+        // 滚动发布之前的实例
+        for (int port = 9001; port <= 9004; port++) {
+            outlierDetector.record(SERVICE_ID, URI.create("http://localhost:" + port), 1, true);
+        }
+        List<ServiceInstance> live = Arrays.asList(new ServiceInstance(URI_8080), new ServiceInstance(URI_8081));
+        outlierDetector.record(SERVICE_ID, URI_8080, 1, false, () -> live);
+        outlierDetector.record(SERVICE_ID, URI_8081, 1, false, () -> live);
+        // 按照当前的2个实例计算，只能摘除1个
+        assertEquals(Collections.singleton(URI_8080), outlierDetector.getEjectedInstances(SERVICE_ID));
+        assertEquals(1, outlierDetector.getCapRejectedCount());
+    }
+
+    @Test
+    public void ejectionTimeGrowsExponentially() throws InterruptedException {
+        OutlierDetectionProperty property = property(1);
+        property.setBaseEjectionTimeMs(100);
+        property.setMaxEjectionPercent(100);
+        OutlierDetector outlierDetector = new OutlierDetector(property);
+        outlierDetector.record(SERVICE_ID, URI_8080, 1, true);
+        outlierDetector.record(SERVICE_ID, URI_8081, 1, false);
+        assertTrue(outlierDetector.getEjectedInstances(SERVICE_ID).contains(URI_8081));
+        Thread.sleep(150);
+        assertFalse(outlierDetector.getEjectedInstances(SERVICE_ID).contains(URI_8081));
+        // 第二次摘除200ms
+        outlierDetector.record(SERVICE_ID, URI_8081, 1, false);
+        Thread.sleep(150);
+        assertTrue(outlierDetector.getEjectedInstances(SERVICE_ID).contains(URI_8081));
+        Thread.sleep(100);
+        assertFalse(outlierDetector.getEjectedInstances(SERVICE_ID).contains(URI_8081));
+    }
+
+    @Test
+    public void ejectSlowInstance() {
+        OutlierDetectionProperty property = property(100);
+        property.setLatencyThresholdMs(500);
+        property.setMinLatencySamples(3);
+        OutlierDetector outlierDetector = new OutlierDetector(property);
+        outlierDetector.record(SERVICE_ID, URI_8080, 10, true);
+        outlierDetector.record(SERVICE_ID, URI_8081, 1000, true);
+        outlierDetector.record(SERVICE_ID, URI_8081, 1000, true);
+        assertTrue(outlierDetector.getEjectedInstances(SERVICE_ID).isEmpty());
+        assertEquals(1000, outlierDetector.getLatencyEwma(SERVICE_ID, URI_8081), 0.001);
+        outlierDetector.record(SERVICE_ID, URI_8081, 1000, true);
+        assertEquals(Collections.singleton(URI_8081), outlierDetector.getEjectedInstances(SERVICE_ID));
+    }
+
+    private OutlierDetectionProperty property(int consecutiveFailures) {
+        OutlierDetectionProperty property = new OutlierDetectionProperty();
+        property.setEnable(true);
+        property.setConsecutiveFailures(consecutiveFailures);
+        return property;
+    }
+
+    private Dispatcher dispatcher(int responseCode) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setResponseCode(responseCode)
+                        .addHeader("Content-Type", "application/json; charset=utf-8")
+                        .setBody(writeValueAsString(USER_MIKE));
+            }
+        };
+    }
+
+    private ChooserOkHttpUserService createUserService(OutlierDetector outlierDetector) {
+        DefaultLoadBalancedServiceInstanceChooser chooser = new DefaultLoadBalancedServiceInstanceChooser(
+                serviceId -> Arrays.asList(new ServiceInstance(URI_8080), new ServiceInstance(URI_8081),
+                        new ServiceInstance(URI_8082)),
+                new RoundRobinLoadBalancer());
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(new ServiceChooseInterceptor(chooser, outlierDetector))
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl("http://user/api/user/")
+                .callFactory(methodMetadataCallFactory(applicationContext, ChooserOkHttpUserService.class, okHttpClient))
+                .addCallAdapterFactory(BodyCallAdapterFactory.INSTANCE)
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(ChooserOkHttpUserService.class);
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.BodyCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.DefaultLoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.LeastOutstandingLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class RetryOnDifferentInstanceTest extends MockWebServerTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private static final ServiceInstance INSTANCE_8080 = new ServiceInstance(URI.create("http://localhost:8080"));
+
+    private static final ServiceInstance INSTANCE_8081 = new ServiceInstance(URI.create("http://localhost:8081"));
+
+    @Autowired
+    private RetryInterceptor retryInterceptor;
+
+    @Autowired
+    private ErrorDecoderInterceptor errorDecoderInterceptor;
+
+    private MockWebServer server8081;
+
+    @Before
+    public void startServer8081() throws IOException {
+        // 8080一直失败，8081一直成功
+        server.setDispatcher(dispatcher(ERROR_CODE));
+        server8081 = new MockWebServer();
+        server8081.setDispatcher(dispatcher(SUCCESS_CODE));
+        server8081.start(8081);
+    }
+
+    @After
+    public void closeServer8081() throws IOException {
+        server8081.close();
+    }
+
+    @Test
+    public void retryOnDifferentInstance() {
+        ServiceChooseInterceptor serviceChooseInterceptor =
+                createServiceChooseInterceptor(Arrays.asList(INSTANCE_8080, INSTANCE_8081));
+        RetryServiceIdUserService userService = createUserService(serviceChooseInterceptor);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(MIKE, userService.getUser(Long100).getName());
+        }
+        // 第一次选中8080的请求都在8081上重试成功，且只重试一次
+        assertEquals(10, server8081.getRequestCount());
+        assertEquals(server.getRequestCount(), serviceChooseInterceptor.getReselectCount());
+        assertEquals(0, serviceChooseInterceptor.getReselectTriedCount());
+    }
+
+    @Test
+    public void interceptorSeesResolvedUrl() {
+        ServiceChooseInterceptor serviceChooseInterceptor =
+                createServiceChooseInterceptor(Arrays.asList(INSTANCE_8080, INSTANCE_8081));
+        List<HttpUrl> urls = new CopyOnWriteArrayList<>();
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(serviceChooseInterceptor.getUrlResolvingInterceptor())
+                .addInterceptor(chain -> {
+                    urls.add(chain.request().url());
+                    return chain.proceed(chain.request());
+                })
+                .addInterceptor(retryInterceptor)
+                .addInterceptor(serviceChooseInterceptor)
+                .build();
+        RetryServiceIdUserService userService = createUserService(okHttpClient, null);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(MIKE, userService.getUser(Long100).getName());
+        }
+        // 自定义拦截器看到的是实例地址，重试仍然换到8081
+        assertEquals(10, urls.size());
+        for (HttpUrl url : urls) {
+            assertEquals("localhost", url.host());
+        }
+        assertEquals(10, server8081.getRequestCount());
+        assertEquals(0, serviceChooseInterceptor.getReselectTriedCount());
+    }
+
+    @Test
+    public void asyncRetryOnDifferentInstance() throws Exception {
+        ServiceChooseInterceptor serviceChooseInterceptor =
+                createServiceChooseInterceptor(Arrays.asList(INSTANCE_8080, INSTANCE_8081));
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(serviceChooseInterceptor.getUrlResolvingInterceptor())
+                .addInterceptor(retryInterceptor)
+                .addInterceptor(serviceChooseInterceptor)
+                .build();
+        RetryServiceIdUserService userService = createUserService(okHttpClient,
+                new RetryCallAdapterFactory(retryInterceptor, errorDecoderInterceptor));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(MIKE, userService.getUserReturnFuture(Long100).get(2, TimeUnit.SECONDS).getName());
+        }
+        // 异步重试克隆的请求同样避开已经尝试过的8080
+        assertEquals(10, server8081.getRequestCount());
+        assertEquals(server.getRequestCount(), serviceChooseInterceptor.getReselectCount());
+        assertEquals(0, serviceChooseInterceptor.getReselectTriedCount());
+    }
+
+    @Test
+    public void retrySameInstanceWhenNoOther() {
+        ServiceChooseInterceptor serviceChooseInterceptor =
+                createServiceChooseInterceptor(Collections.singletonList(INSTANCE_8080));
+        RetryServiceIdUserService userService = createUserService(serviceChooseInterceptor);
+        try {
+            userService.getUser(Long100);
+        } catch (RuntimeException ignored) {
+            // 所有重试都失败
+        }
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, serviceChooseInterceptor.getReselectTriedCount());
+    }
+
+    private ServiceChooseInterceptor createServiceChooseInterceptor(List<ServiceInstance> instances) {
+        return new ServiceChooseInterceptor(
+                new DefaultLoadBalancedServiceInstanceChooser(serviceId -> instances,
+                        new LeastOutstandingLoadBalancer()));
+    }
+
+    private Dispatcher dispatcher(int responseCode) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setResponseCode(responseCode)
+                        .addHeader("Content-Type", "application/json; charset=utf-8")
+                        .setBody(writeValueAsString(USER_MIKE));
+            }
+        };
+    }
+
+    private RetryServiceIdUserService createUserService(ServiceChooseInterceptor serviceChooseInterceptor) {
+        // 与RetrofitFactoryBean保持一致，服务实例选择位于重试之后
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(retryInterceptor)
+                .addInterceptor(serviceChooseInterceptor)
+                .build();
+        return createUserService(okHttpClient, null);
+    }
+
+    private RetryServiceIdUserService createUserService(OkHttpClient okHttpClient,
+            CallAdapter.Factory callAdapterFactory) {
+        Retrofit.Builder builder = new Retrofit.Builder()
+                .baseUrl("http://retry-user/api/user/")
+                .callFactory(methodMetadataCallFactory(applicationContext, RetryServiceIdUserService.class, okHttpClient));
+        if (callAdapterFactory != null) {
+            builder.addCallAdapterFactory(callAdapterFactory);
+        }
+        return builder
+                .addCallAdapterFactory(BodyCallAdapterFactory.INSTANCE)
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(RetryServiceIdUserService.class);
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(serviceId = "retry-user", path = "/api/user")
+@Retry(intervalMs = 10, maxRetries = 2, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+public interface RetryServiceIdUserService {
+
+    /**
+     * 根据id查询用户信息，失败时换一个实例重试
+     */
+    @GET("getUser")
+    User getUser(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，异步重试时同样换一个实例
+     */
+    @GET("getUser")
+    CompletableFuture<User> getUserReturnFuture(@Query("id") Long id);
+}
@@ -0,0 +1,28 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.RouteKey;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(serviceId = "route-user", path = "/api/user")
+public interface RouteKeyUserService {
+
+    /**
+     * 根据id查询用户信息，相同id的请求发往同一个实例
+     */
+    @GET("getUser")
+    User getUser(@RouteKey @Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，从请求头获取路由key
+     */
+    @GET("getUser")
+    User getUserByHeader(@Query("id") Long id, @Header("X-Route-Key") String routeKey);
+}
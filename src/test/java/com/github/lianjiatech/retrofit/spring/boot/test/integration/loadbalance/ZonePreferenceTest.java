@@ -0,0 +1,80 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.loadbalance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.DefaultLoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.RoundRobinLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalance.ZonePreference;
+
+/**
+ * @author 陈添明
+ */
+public class ZonePreferenceTest {
+
+    private static final String SERVICE_ID = "user";
+
+    private static final ServiceInstance A1 = new ServiceInstance(URI.create("http://10.0.0.1:8080"), 1, "zone-a");
+
+    private static final ServiceInstance A2 = new ServiceInstance(URI.create("http://10.0.0.2:8080"), 1,
+            Collections.singletonMap(ServiceInstance.ZONE_METADATA_KEY, "zone-a"));
+
+    private static final ServiceInstance B1 = new ServiceInstance(URI.create("http://10.0.1.1:8080"), 1, "zone-b");
+
+    private static final ServiceInstance B2 = new ServiceInstance(URI.create("http://10.0.1.2:8080"), 1, "zone-b");
+
+    private static final List<ServiceInstance> INSTANCES = Arrays.asList(A1, A2, B1, B2);
+
+    @Test
+    public void preferLocalZone() {
+        ZonePreference zonePreference = new ZonePreference("zone-a", 0.5);
+        DefaultLoadBalancedServiceInstanceChooser chooser = createChooser(zonePreference);
+        for (int i = 0; i < 20; i++) {
+            assertEquals("zone-a", chooser.chooseInstance(SERVICE_ID, Collections.emptySet()).getZone());
+        }
+        // 本地可用区还有一半实例可用，不溢出
+        for (int i = 0; i < 20; i++) {
+            assertEquals(A2, chooser.chooseInstance(SERVICE_ID, Collections.singleton(A1.getUri())));
+        }
+        assertEquals(40, zonePreference.getLocalCount());
+        assertEquals(0, zonePreference.getSpilloverCount());
+    }
+
+    @Test
+    public void spillOverWhenLocalCapacityIsLow() {
+        ZonePreference zonePreference = new ZonePreference("zone-a", 0.75);
+        DefaultLoadBalancedServiceInstanceChooser chooser = createChooser(zonePreference);
+        Set<String> zones = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            zones.add(chooser.chooseInstance(SERVICE_ID, Collections.singleton(A1.getUri())).getZone());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("zone-a", "zone-b")), zones);
+        assertEquals(20, zonePreference.getSpilloverCount());
+    }
+
+    @Test
+    public void noLocalInstance() {
+        ZonePreference zonePreference = new ZonePreference("zone-c", 0.5);
+        DefaultLoadBalancedServiceInstanceChooser chooser = createChooser(zonePreference);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(INSTANCES.contains(chooser.chooseInstance(SERVICE_ID, Collections.emptySet())));
+        }
+        assertEquals(0, zonePreference.getLocalCount());
+        assertEquals(0, zonePreference.getSpilloverCount());
+    }
+
+    private DefaultLoadBalancedServiceInstanceChooser createChooser(ZonePreference zonePreference) {
+        return new DefaultLoadBalancedServiceInstanceChooser(serviceId -> INSTANCES, new RoundRobinLoadBalancer(),
+                zonePreference);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.pool;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface SharedPoolUserService {
+
+    /**
+     * 根据id查询用户信息
+     */
+    @GET("getUser")
+    User getUser(@Query("id") Long id);
+}
@@ -0,0 +1,62 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ConnectionPoolRegistry;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.base.UserService;
+
+import lombok.SneakyThrows;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class}, properties = {"retrofit.global-connection-pool.enable=true"})
+@RunWith(SpringRunner.class)
+public class SharedPoolUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private SharedPoolUserService sharedPoolUserService;
+
+    @Autowired
+    private IsolatedPoolUserService isolatedPoolUserService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ConnectionPoolRegistry connectionPoolRegistry;
+
+    @Test
+    @SneakyThrows
+    public void sharedConnection() {
+        mockServerReturnObject(USER_MIKE);
+        mockServerReturnObject(USER_MIKE);
+        assertNotNull(sharedPoolUserService.getUser(Long100));
+        server.takeRequest();
+        assertNotNull(userService.getUser(Long100));
+        // 不同接口访问同一个host，复用同一个连接
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertNotNull(connectionPoolRegistry.getAll().get("localhost:8080"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void isolatedConnection() {
+        mockServerReturnObject(USER_MIKE);
+        mockServerReturnObject(USER_MIKE);
+        assertNotNull(sharedPoolUserService.getUser(Long100));
+        server.takeRequest();
+        assertNotNull(isolatedPoolUserService.getUser(Long100));
+        // 独立连接池，新建连接
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+    }
+}
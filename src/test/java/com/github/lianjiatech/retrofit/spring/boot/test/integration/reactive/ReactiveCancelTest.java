@@ -0,0 +1,137 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.reactive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.MonoCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava2CompletableCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava2SingleCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava3CompletableCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava3SingleCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import reactor.core.publisher.Mono;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * 订阅取消时取消OkHttp Call，释放连接和调度器名额
+ *
+ * @author 陈添明
+ */
+public class ReactiveCancelTest extends MockWebServerTest {
+
+    interface CancelUserService {
+
+        @GET("getUser")
+        Mono<User> getUserMono(@Query("id") Long id);
+
+        @GET("getUser")
+        io.reactivex.Single<User> getUserSingle2(@Query("id") Long id);
+
+        @GET("getUser")
+        io.reactivex.Completable getUserCompletable2(@Query("id") Long id);
+
+        @GET("getUser")
+        io.reactivex.rxjava3.core.Single<User> getUserSingle3(@Query("id") Long id);
+
+        @GET("getUser")
+        io.reactivex.rxjava3.core.Completable getUserCompletable3(@Query("id") Long id);
+    }
+
+    private OkHttpClient client;
+
+    private CancelUserService cancelUserService;
+
+    @Before
+    public void createService() {
+        client = new OkHttpClient();
+        cancelUserService = new Retrofit.Builder()
+                .baseUrl("http://localhost:8080/api/user/")
+                .client(client)
+                .addCallAdapterFactory(MonoCallAdapterFactory.INSTANCE)
+                .addCallAdapterFactory(Rxjava2SingleCallAdapterFactory.INSTANCE)
+                .addCallAdapterFactory(Rxjava2CompletableCallAdapterFactory.INSTANCE)
+                .addCallAdapterFactory(Rxjava3SingleCallAdapterFactory.INSTANCE)
+                .addCallAdapterFactory(Rxjava3CompletableCallAdapterFactory.INSTANCE)
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(CancelUserService.class);
+    }
+
+    @Test
+    public void monoTimeoutCancelsCall() throws Exception {
+        mockSlowServer();
+        try {
+            cancelUserService.getUserMono(Long100).timeout(Duration.ofMillis(200)).block();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertCallReleased();
+    }
+
+    @Test
+    public void rxjava2TimeoutCancelsCall() throws Exception {
+        mockSlowServer();
+        cancelUserService.getUserSingle2(Long100).timeout(200, TimeUnit.MILLISECONDS)
+                .test().await().assertError(TimeoutException.class);
+        assertCallReleased();
+        mockSlowServer();
+        cancelUserService.getUserCompletable2(Long100).timeout(200, TimeUnit.MILLISECONDS)
+                .test().await().assertError(TimeoutException.class);
+        assertCallReleased();
+    }
+
+    @Test
+    public void rxjava3TimeoutCancelsCall() throws Exception {
+        mockSlowServer();
+        cancelUserService.getUserSingle3(Long100).timeout(200, TimeUnit.MILLISECONDS)
+                .test().await().assertError(TimeoutException.class);
+        assertCallReleased();
+        mockSlowServer();
+        cancelUserService.getUserCompletable3(Long100).timeout(200, TimeUnit.MILLISECONDS)
+                .test().await().assertError(TimeoutException.class);
+        assertCallReleased();
+    }
+
+    @Test
+    public void resubscribe() {
+        mockServerReturnObject(USER_MIKE);
+        mockServerReturnObject(USER_MIKE);
+        Mono<User> mono = cancelUserService.getUserMono(Long100);
+        assertEquals(USER_MIKE, mono.block());
+        // 每次订阅都会clone一个新的Call
+        assertEquals(USER_MIKE, mono.block());
+    }
+
+    private void mockSlowServer() {
+        server.enqueue(new MockResponse()
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setHeadersDelay(3, TimeUnit.SECONDS)
+                .setBody(writeValueAsString(USER_MIKE)));
+    }
+
+    /**
+     * 服务端3s之后才返回，超时取消之后调用应该很快结束，连接被关闭而不是放回连接池
+     */
+    private void assertCallReleased() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (client.dispatcher().runningCallsCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.dispatcher().runningCallsCount());
+        assertEquals(0, client.connectionPool().connectionCount());
+    }
+}
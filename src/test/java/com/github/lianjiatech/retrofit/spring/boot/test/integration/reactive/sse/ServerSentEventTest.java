@@ -0,0 +1,137 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.reactive.sse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.reactive.ServerSentEventCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.sse.ServerSentEvent;
+import com.github.lianjiatech.retrofit.spring.boot.sse.SseProperty;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import reactor.core.publisher.Flux;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+import retrofit2.http.GET;
+
+/**
+ * @author 陈添明
+ */
+public class ServerSentEventTest extends MockWebServerTest {
+
+    interface SseUserService {
+
+        @GET("events")
+        Flux<ServerSentEvent<String>> events();
+
+        @GET("users")
+        Flux<ServerSentEvent<User>> users();
+    }
+
+    private OkHttpClient client;
+
+    private SseUserService sseUserService;
+
+    @Before
+    public void createService() {
+        client = new OkHttpClient();
+        SseProperty sseProperty = new SseProperty();
+        sseProperty.setReconnectDelayMs(10);
+        sseProperty.setMaxReconnectAttempts(1);
+        sseUserService = new Retrofit.Builder()
+                .baseUrl("http://localhost:8080/api/user/")
+                .client(client)
+                .addCallAdapterFactory(new ServerSentEventCallAdapterFactory(sseProperty))
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(SseUserService.class);
+    }
+
+    @Test
+    public void parseEvents() throws Exception {
+        mockServerReturnEvents(": comment\n"
+                + "id: 1\nevent: greeting\ndata: hello\ndata: world\n\n"
+                + "event: ignored\n\n"
+                + "data:no space\n\n");
+        List<ServerSentEvent<String>> events = sseUserService.events().take(2).collectList().block();
+        assertEquals(Arrays.asList(new ServerSentEvent<>("1", "greeting", "hello\nworld", null),
+                new ServerSentEvent<>("1", null, "no space", null)), events);
+        assertEquals("text/event-stream", server.takeRequest().getHeader("Accept"));
+    }
+
+    @Test
+    public void convertData() {
+        mockServerReturnEvents("data: " + writeValueAsString(USER_MIKE) + "\n\n"
+                + "data: " + writeValueAsString(USER_EMMA) + "\n\n");
+        List<User> users = sseUserService.users().take(2).map(ServerSentEvent::getData).collectList().block();
+        assertEquals(Arrays.asList(USER_MIKE, USER_EMMA), users);
+    }
+
+    @Test
+    public void reconnectWithLastEventId() throws Exception {
+        mockServerReturnEvents("id: 7\nretry: 20\ndata: first\n\n");
+        mockServerReturnEvents("data: second\n\n");
+        server.enqueue(new MockResponse().setResponseCode(204));
+        List<ServerSentEvent<String>> events = sseUserService.events().collectList().block();
+        assertEquals(Arrays.asList(new ServerSentEvent<>("7", null, "first", 20L),
+                new ServerSentEvent<>("7", null, "second", null)), events);
+        assertNull(server.takeRequest().getHeader("Last-Event-ID"));
+        assertEquals("7", server.takeRequest().getHeader("Last-Event-ID"));
+        assertEquals("7", server.takeRequest().getHeader("Last-Event-ID"));
+    }
+
+    @Test
+    public void stopAfterMaxReconnectAttempts() {
+        mockServerReturnEvents("data: first\n\n");
+        mockServerReturnEvents("");
+        mockServerReturnEvents("data: never\n\n");
+        List<String> data = sseUserService.events().map(ServerSentEvent::getData).collectList().block();
+        assertEquals(Arrays.asList("first"), data);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test(expected = RetrofitException.class)
+    public void errorStatusNotReconnected() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        sseUserService.events().blockLast();
+    }
+
+    @Test
+    public void cancelClosesConnection() throws Exception {
+        // 第一个事件之后服务端持续缓慢发送注释，取消订阅时阻塞的读取需要立即中断
+        Buffer body = new Buffer().writeUtf8("data: first\n\n");
+        for (int i = 0; i < 1000; i++) {
+            body.writeUtf8(": keep-alive\n");
+        }
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(body)
+                .throttleBody(16, 1, TimeUnit.SECONDS));
+        assertEquals("first", sseUserService.events().blockFirst().getData());
+        long deadline = System.currentTimeMillis() + 1000;
+        while (client.connectionPool().connectionCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.connectionPool().connectionCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/api/user/events", request.getPath());
+    }
+
+    private void mockServerReturnEvents(String events) {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(events));
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.reactive.sse;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.log.LogStrategy;
+import com.github.lianjiatech.retrofit.spring.boot.log.Logging;
+import com.github.lianjiatech.retrofit.spring.boot.sse.ServerSentEvent;
+
+import reactor.core.publisher.Flux;
+import retrofit2.http.GET;
+
+/**
+ * 接口读超时很短，事件流仍然可以长时间空闲
+ *
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}", readTimeoutMs = 200)
+public interface SseUserService {
+
+    /**
+     * 订阅事件流
+     */
+    @GET("events")
+    Flux<ServerSentEvent<String>> events();
+
+    /**
+     * 订阅事件流，打印响应体的日志不能读取整个事件流
+     */
+    @GET("events")
+    @Logging(logStrategy = LogStrategy.BODY)
+    Flux<ServerSentEvent<String>> eventsWithBodyLogging();
+}
@@ -0,0 +1,60 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.reactive.sse;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.sse.ServerSentEvent;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+import okhttp3.mockwebserver.MockResponse;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class SseUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private SseUserService sseUserService;
+
+    @Test
+    public void idleStreamNotTimedOut() {
+        // 两个事件之间空闲500ms，超过接口200ms的读超时
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody("data: first\n\ndata: second\n\n")
+                .throttleBody(13, 500, TimeUnit.MILLISECONDS));
+        List<String> data = sseUserService.events()
+                .map(ServerSentEvent::getData)
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(2));
+        assertEquals(Arrays.asList("first", "second"), data);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void bodyLoggingDoesNotBufferStream() {
+        // 第二个事件3秒后才发送，日志读取整个事件流时第一个事件也无法及时收到
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody("data: first\n\ndata: second\n\n")
+                .throttleBody(13, 3, TimeUnit.SECONDS));
+        String data = sseUserService.eventsWithBodyLogging()
+                .map(ServerSentEvent::getData)
+                .blockFirst(Duration.ofSeconds(1));
+        assertEquals("first", data);
+    }
+}
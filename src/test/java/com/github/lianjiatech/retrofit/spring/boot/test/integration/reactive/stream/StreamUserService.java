@@ -0,0 +1,31 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.reactive.stream;
+
+import java.util.List;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import reactor.core.publisher.Flux;
+import retrofit2.http.GET;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface StreamUserService {
+
+    @GET("listUser")
+    Flux<User> listUser();
+
+    @GET("listUserGroup")
+    Flux<List<User>> listUserGroup();
+
+    @GET("listName")
+    Flux<String> listName();
+
+    @GET("listUser")
+    io.reactivex.Flowable<User> listUserRxjava2();
+
+    @GET("listUser")
+    io.reactivex.rxjava3.core.Flowable<User> listUserRxjava3();
+}
@@ -0,0 +1,102 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.reactive.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.mockwebserver.MockResponse;
+import okio.Buffer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class StreamUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private StreamUserService streamUserService;
+
+    @Test
+    public void ndjson() {
+        mockServerReturnString(writeValueAsString(USER_MIKE) + "\n" + writeValueAsString(USER_EMMA) + "\n");
+        List<User> users = streamUserService.listUser().collectList().block();
+        assertEquals(Arrays.asList(USER_MIKE, USER_EMMA), users);
+    }
+
+    @Test
+    public void jsonArray() {
+        mockServerReturnObject(Arrays.asList(USER_MIKE, USER_EMMA));
+        List<User> users = streamUserService.listUser().collectList().block();
+        assertEquals(Arrays.asList(USER_MIKE, USER_EMMA), users);
+    }
+
+    @Test
+    public void ndjsonOfArrays() {
+        // 元素本身是集合时，顶层数组不展开
+        mockServerReturnString(writeValueAsString(Arrays.asList(USER_MIKE, USER_EMMA)) + "\n"
+                + writeValueAsString(Arrays.asList(USER_EMMA)));
+        List<List<User>> groups = streamUserService.listUserGroup().collectList().block();
+        assertEquals(Arrays.asList(Arrays.asList(USER_MIKE, USER_EMMA), Arrays.asList(USER_EMMA)), groups);
+    }
+
+    @Test
+    public void strings() {
+        mockServerReturnString("[\"mike\", \"emma\"]");
+        assertEquals(Arrays.asList(MIKE, EMMA), streamUserService.listName().collectList().block());
+    }
+
+    @Test
+    public void emptyBody() {
+        mockServerReturnString("");
+        assertEquals(0, streamUserService.listUser().count().block().longValue());
+    }
+
+    @Test(expected = RetrofitException.class)
+    public void errorStatus() {
+        mockServerReturnObject(USER_MIKE, 0, 400);
+        streamUserService.listUser().blockLast();
+    }
+
+    @Test
+    public void readOnDemand() {
+        // 响应体约1MB，服务端每秒只发送32KB。按需读取时，取前两个元素不需要等待整个响应体
+        Buffer body = new Buffer().writeUtf8("[");
+        for (int i = 0; i < 10000; i++) {
+            User user = new User().setId((long)i).setName(MIKE + i).setAge(INT20).setMale(true);
+            body.writeUtf8(i == 0 ? "" : ",").writeUtf8(writeValueAsString(user));
+        }
+        body.writeUtf8("]");
+        server.enqueue(new MockResponse()
+                .addHeader("Content-Type", "application/json")
+                .throttleBody(32 * 1024, 1, TimeUnit.SECONDS)
+                .setBody(body));
+        long start = System.nanoTime();
+        List<User> users = streamUserService.listUser().take(2).collectList().block();
+        assertEquals(2, users.size());
+        assertEquals(MIKE + 1, users.get(1).getName());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+    }
+
+    @Test
+    public void flowable() {
+        mockServerReturnObject(Arrays.asList(USER_MIKE, USER_EMMA));
+        assertEquals(Arrays.asList(USER_MIKE, USER_EMMA), streamUserService.listUserRxjava2().toList().blockingGet());
+        mockServerReturnString(writeValueAsString(USER_MIKE) + "\n" + writeValueAsString(USER_EMMA));
+        assertEquals(Arrays.asList(USER_MIKE, USER_EMMA), streamUserService.listUserRxjava3().toList().blockingGet());
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import io.reactivex.Single;
+import reactor.core.publisher.Mono;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@Retry(intervalMs = 50, maxRetries = 2,
+        retryRules = {RetryRule.RESPONSE_STATUS_NOT_2XX, RetryRule.OCCUR_IO_EXCEPTION})
+public interface AsyncRetryUserService {
+
+    /**
+     * 根据id查询用户信息，返回Mono，非阻塞重试
+     */
+    @GET("getUser")
+    Mono<User> getUserReturnMono(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，返回CompletableFuture，非阻塞重试
+     */
+    @GET("getUser")
+    CompletableFuture<User> getUserReturnFuture(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，返回Single，非阻塞重试
+     */
+    @GET("getUser")
+    Single<User> getUserReturnSingle(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，返回CompletableFuture，重试间隔较长
+     */
+    @GET("getUser")
+    @Retry(intervalMs = 1000, maxRetries = 2, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    CompletableFuture<User> getUserReturnFutureWithLongInterval(@Query("id") Long id);
+}
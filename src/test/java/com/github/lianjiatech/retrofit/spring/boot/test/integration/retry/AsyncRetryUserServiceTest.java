@@ -0,0 +1,201 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.OkHttpClient;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class AsyncRetryUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private AsyncRetryUserService asyncRetryUserService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private RetryInterceptor retryInterceptor;
+
+    @Autowired
+    private ErrorDecoderInterceptor errorDecoderInterceptor;
+
+    @Test
+    public void getUserReturnMono() {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        User user = asyncRetryUserService.getUserReturnMono(Long100).block();
+        assertNotNull(user);
+        assertEquals(MIKE, user.getName());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void getUserReturnMonoExhausted() {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        try {
+            asyncRetryUserService.getUserReturnMono(Long100).block();
+            fail();
+        } catch (RetrofitException e) {
+            // 重试结束之后才交给错误解码器解码
+            assertTrue(e.getMessage().contains("invalid Response"));
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void getUserReturnFuture() throws Exception {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        CompletableFuture<User> future = asyncRetryUserService.getUserReturnFuture(Long100);
+        User user = future.get(5, TimeUnit.SECONDS);
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void getUserReturnSingle() {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        User user = asyncRetryUserService.getUserReturnSingle(Long100).blockingGet();
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void cancelDuringBackoff() throws Exception {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+        AtomicReference<Call<?>> calls = new AtomicReference<>();
+        AsyncRetryUserService service = createUserService(new CallAdapter.Factory() {
+            @Override
+            public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+                return new FutureCallAdapter(getParameterUpperBound(0, (ParameterizedType)returnType)) {
+                    @Override
+                    public CompletableFuture<Object> adapt(Call<Object> call) {
+                        calls.set(call);
+                        call.enqueue(new Callback<Object>() {
+                            @Override
+                            public void onResponse(Call<Object> call, Response<Object> response) {
+                                results.add(response);
+                            }
+
+                            @Override
+                            public void onFailure(Call<Object> call, Throwable t) {
+                                results.add(t);
+                            }
+                        });
+                        return new CompletableFuture<>();
+                    }
+                };
+            }
+        });
+        service.getUserReturnFutureWithLongInterval(Long100);
+        // 等待第一次请求完成，进入退避等待
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        calls.get().cancel();
+        Object result = results.poll(5, TimeUnit.SECONDS);
+        assertTrue(result instanceof IOException);
+        assertEquals("Canceled", ((IOException)result).getMessage());
+        assertTrue(calls.get().isCanceled());
+        // 超过重试间隔之后，第二次请求仍然没有发出
+        Thread.sleep(1000);
+        assertEquals(1, server.getRequestCount());
+        assertNull(results.poll());
+    }
+
+    @Test
+    public void retryOnExecute() {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        // 同步执行的CallAdapter，例如RxJava2CallAdapterFactory.createSynchronous()
+        AsyncRetryUserService service = createUserService(new CallAdapter.Factory() {
+            @Override
+            public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+                return new FutureCallAdapter(getParameterUpperBound(0, (ParameterizedType)returnType)) {
+                    @Override
+                    public CompletableFuture<Object> adapt(Call<Object> call) {
+                        try {
+                            return CompletableFuture.completedFuture(call.execute().body());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+            }
+        });
+        User user = (User)service.getUserReturnFuture(Long100).join();
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private AsyncRetryUserService createUserService(CallAdapter.Factory futureCallAdapterFactory) {
+        return new Retrofit.Builder()
+                .baseUrl("http://localhost:8080/api/user/")
+                .callFactory(methodMetadataCallFactory(applicationContext, AsyncRetryUserService.class,
+                        new OkHttpClient()))
+                .addCallAdapterFactory(new RetryCallAdapterFactory(retryInterceptor, errorDecoderInterceptor))
+                .addCallAdapterFactory(futureCallAdapterFactory)
+                .addConverterFactory(JacksonConverterFactory.create(OBJECT_MAPPER))
+                .build()
+                .create(AsyncRetryUserService.class);
+    }
+
+    private abstract static class FutureCallAdapter implements CallAdapter<Object, CompletableFuture<Object>> {
+
+        private final Type responseType;
+
+        FutureCallAdapter(Type responseType) {
+            this.responseType = responseType;
+        }
+
+        @Override
+        public Type responseType() {
+            return responseType;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Jitter;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@Retry(intervalMs = 5, multiplier = 2, maxIntervalMs = 20, jitter = Jitter.FULL, maxRetries = 3,
+        retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+public interface BackoffRetryUserService {
+
+    /**
+     * 根据id查询用户信息，指数退避重试
+     */
+    @GET("getUser")
+    User getUser(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，使用自定义重试策略
+     */
+    @GET("getUser")
+    @Retry(maxRetries = 3, retryStrategy = MyRetryStrategy.class, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    User getUserWithCustomStrategy(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，重试间隔较长
+     */
+    @GET("getUser")
+    @Retry(intervalMs = 5000, maxRetries = 3, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    User getUserWithLongInterval(@Query("id") Long id);
+}
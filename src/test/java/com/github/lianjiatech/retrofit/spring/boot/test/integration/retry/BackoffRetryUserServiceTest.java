@@ -0,0 +1,101 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.retry.BackoffRetryStrategy;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Jitter;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class BackoffRetryUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private BackoffRetryUserService backoffRetryUserService;
+
+    @Test
+    public void getUser() {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        User user = backoffRetryUserService.getUser(Long100);
+        assertNotNull(user);
+        assertEquals(MIKE, user.getName());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void getUserWithCustomStrategy() {
+        int before = MyRetryStrategy.getCount().get();
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        User user = backoffRetryUserService.getUserWithCustomStrategy(Long100);
+        assertNotNull(user);
+        assertEquals(before + 2, MyRetryStrategy.getCount().get());
+    }
+
+    @Test
+    public void interruptDuringBackoff() throws Exception {
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        AtomicReference<Thread> caller = new AtomicReference<>();
+        CompletableFuture<User> future = CompletableFuture.supplyAsync(() -> {
+            caller.set(Thread.currentThread());
+            return backoffRetryUserService.getUserWithLongInterval(Long100);
+        });
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        // 等待进入重试间隔
+        Thread.sleep(200);
+        caller.get().interrupt();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause != null && !(cause instanceof InterruptedIOException)) {
+                cause = cause.getCause();
+            }
+            assertNotNull(cause);
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void backoff() {
+        BackoffRetryStrategy exponential = new BackoffRetryStrategy(100, 2, 500, Jitter.NONE);
+        assertEquals(100, exponential.nextIntervalMs(1, 0));
+        assertEquals(200, exponential.nextIntervalMs(2, 100));
+        assertEquals(400, exponential.nextIntervalMs(3, 200));
+        assertEquals(500, exponential.nextIntervalMs(4, 400));
+
+        BackoffRetryStrategy equal = new BackoffRetryStrategy(100, 2, 0, Jitter.EQUAL);
+        long interval = equal.nextIntervalMs(2, 100);
+        assertTrue(interval >= 100 && interval <= 200);
+
+        BackoffRetryStrategy decorrelated = new BackoffRetryStrategy(100, 1, 1000, Jitter.DECORRELATED);
+        interval = decorrelated.nextIntervalMs(2, 200);
+        assertTrue(interval >= 100 && interval <= 600);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodMetadata;
+import com.github.lianjiatech.retrofit.spring.boot.retry.GlobalRetryProperty;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * 覆盖旧版本重试方法的子类
+ *
+ * @author 陈添明
+ */
+public class LegacyRetryInterceptorTest extends MockWebServerTest {
+
+    @SuppressWarnings("deprecation")
+    private static final class LegacyRetryInterceptor extends RetryInterceptor {
+
+        private final AtomicInteger retryInterceptCount = new AtomicInteger();
+
+        private final AtomicInteger shouldThrowExCount = new AtomicInteger();
+
+        LegacyRetryInterceptor(GlobalRetryProperty globalRetryProperty) {
+            super(globalRetryProperty);
+        }
+
+        @Override
+        protected Response retryIntercept(int maxRetries, int intervalMs, RetryRule[] retryRules, Chain chain) {
+            retryInterceptCount.incrementAndGet();
+            return super.retryIntercept(maxRetries, intervalMs, retryRules, chain);
+        }
+
+        @Override
+        protected boolean shouldThrowEx(HashSet<RetryRule> retryRuleSet, Exception e) {
+            shouldThrowExCount.incrementAndGet();
+            return super.shouldThrowEx(retryRuleSet, e);
+        }
+    }
+
+    @Test
+    public void legacyOverridesAreCalled() throws IOException {
+        GlobalRetryProperty globalRetryProperty = new GlobalRetryProperty();
+        globalRetryProperty.setEnable(true);
+        globalRetryProperty.setIntervalMs(10);
+        LegacyRetryInterceptor retryInterceptor = new LegacyRetryInterceptor(globalRetryProperty);
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .addInterceptor(retryInterceptor)
+                .build();
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        server.enqueue(new MockResponse().setBody("ok"));
+        Request request = new Request.Builder()
+                .url(server.url("/api/user/getUser"))
+                .tag(MethodMetadata.class, new MethodMetadata())
+                .build();
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, retryInterceptor.retryInterceptCount.get());
+        assertTrue(retryInterceptor.shouldThrowExCount.get() > 0);
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryStrategy;
+
+import lombok.Getter;
+
+/**
+ * 自定义重试策略，固定等待5ms，并记录调用次数
+ *
+ * @author 陈添明
+ */
+@Component
+public class MyRetryStrategy implements RetryStrategy {
+
+    @Getter
+    private static final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public long nextIntervalMs(int retryCount, long lastIntervalMs) {
+        count.incrementAndGet();
+        return 5;
+    }
+}
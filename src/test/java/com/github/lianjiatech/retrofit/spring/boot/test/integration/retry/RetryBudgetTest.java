@@ -0,0 +1,83 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudget;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudgetProperty;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+/**
+ * 全局重试预算在同一个Spring容器内共享，其它测试类的重试会消耗预算，因此这里使用独立的容器配置。
+ *
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class},
+        properties = {"retrofit.retry-budget.enable=true", "retrofit.retry-budget.min-retries-per-second=100"})
+@RunWith(SpringRunner.class)
+public class RetryBudgetTest extends MockWebServerTest {
+
+    @Autowired
+    private BackoffRetryUserService backoffRetryUserService;
+
+    @Autowired
+    private RetryInterceptor retryInterceptor;
+
+    @Test
+    public void budgetMetrics() {
+        RetryBudget retryBudget = retryInterceptor.resolveRetryBudget(BackoffRetryUserService.class);
+        assertNotNull(retryBudget);
+        long requestCount = retryBudget.getRequestCount();
+        long retryCount = retryBudget.getRetryCount();
+        long globalRetryCount = retryInterceptor.getGlobalRetryBudget().getRetryCount();
+        mockServerReturnObject(USER_MIKE, 0, ERROR_CODE);
+        mockServerReturnObject(USER_MIKE, 0, SUCCESS_CODE);
+        backoffRetryUserService.getUser(Long100);
+        assertEquals(requestCount + 1, retryBudget.getRequestCount());
+        assertEquals(retryCount + 1, retryBudget.getRetryCount());
+        assertEquals(globalRetryCount + 1, retryInterceptor.getGlobalRetryBudget().getRetryCount());
+    }
+
+    @Test
+    public void budgetExhausted() {
+        RetryBudgetProperty property = new RetryBudgetProperty();
+        property.setMinRetriesPerSecond(0);
+        property.setRetryRatio(0.5);
+        RetryBudget global = new RetryBudget(property);
+        RetryBudget retryBudget = new RetryBudget(property, global);
+        // 没有请求时没有预算
+        assertFalse(retryBudget.tryWithdraw());
+        retryBudget.deposit();
+        retryBudget.deposit();
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+        assertEquals(2, global.getRequestCount());
+        assertEquals(1, global.getRetryCount());
+        assertEquals(2, retryBudget.getRejectedCount());
+    }
+
+    @Test
+    public void returnOriginalFailureWhenExhausted() {
+        RetryBudgetProperty property = new RetryBudgetProperty();
+        property.setMinRetriesPerSecond(0);
+        RetryBudget global = new RetryBudget(property);
+        RetryBudget retryBudget = new RetryBudget(property, global);
+        for (int i = 0; i < 10; i++) {
+            retryBudget.deposit();
+        }
+        // 10个请求 * 0.1 = 1次重试
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+        assertEquals(0, retryBudget.getBalance(), 0.0001);
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import reactor.core.publisher.Mono;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@Retry(intervalMs = 5000, maxRetries = 2, maxRetryAfterMs = 200, retryRules = RetryRule.RESPONSE_STATUS_RETRYABLE)
+public interface StatusRetryUserService {
+
+    /**
+     * 根据id查询用户信息，只有429、502、503、504才重试
+     */
+    @GET("getUser")
+    User getUser(@Query("id") Long id);
+
+    /**
+     * 根据id查询用户信息，返回Mono，只有429、502、503、504才重试
+     */
+    @GET("getUser")
+    Mono<User> getUserReturnMono(@Query("id") Long id);
+}
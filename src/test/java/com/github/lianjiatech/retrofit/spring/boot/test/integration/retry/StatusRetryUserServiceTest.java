@@ -0,0 +1,81 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+import okhttp3.mockwebserver.MockResponse;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class StatusRetryUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private StatusRetryUserService statusRetryUserService;
+
+    @Test
+    public void retryAfterSeconds() {
+        // Retry-After为100秒，被限制为200ms，代替5000ms的重试间隔
+        server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "100"));
+        mockServerReturnObject(USER_MIKE);
+        long start = System.currentTimeMillis();
+        User user = statusRetryUserService.getUser(Long100);
+        long cost = System.currentTimeMillis() - start;
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+        assertTrue(cost >= 200 && cost < 4000);
+    }
+
+    @Test
+    public void retryAfterHttpDate() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(10));
+        server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", date));
+        mockServerReturnObject(USER_MIKE);
+        long start = System.currentTimeMillis();
+        User user = statusRetryUserService.getUser(Long100);
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+        assertTrue(System.currentTimeMillis() - start < 4000);
+    }
+
+    @Test
+    public void notRetryClientError() {
+        mockServerReturnObject(USER_MIKE, 0, 400);
+        mockServerReturnObject(USER_MIKE);
+        try {
+            statusRetryUserService.getUser(Long100);
+            fail();
+        } catch (RetrofitException e) {
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void retryAfterReturnMono() {
+        server.enqueue(new MockResponse().setResponseCode(502).addHeader("Retry-After", "0"));
+        mockServerReturnObject(USER_MIKE);
+        long start = System.currentTimeMillis();
+        User user = statusRetryUserService.getUserReturnMono(Long100).block();
+        assertEquals(MIKE, user.getName());
+        assertEquals(2, server.getRequestCount());
+        assertTrue(System.currentTimeMillis() - start < 4000);
+    }
+}
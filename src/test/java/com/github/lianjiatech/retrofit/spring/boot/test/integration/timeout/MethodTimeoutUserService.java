@@ -0,0 +1,35 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.timeout;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+import com.github.lianjiatech.retrofit.spring.boot.timeout.Timeout;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}", readTimeoutMs = 1000)
+public interface MethodTimeoutUserService {
+
+    /**
+     * 使用接口配置的读超时时间
+     */
+    @GET("getUser")
+    User getUser(@Query("id") Long id);
+
+    /**
+     * 慢接口，单独放宽读超时时间
+     */
+    @GET("getUser")
+    @Timeout(readTimeoutMs = 3000)
+    User getUserSlow(@Query("id") Long id);
+
+    /**
+     * 读超时时间足够，但是调用超时时间较短
+     */
+    @GET("getUser")
+    @Timeout(readTimeoutMs = 3000, callTimeoutMs = 500)
+    User getUserWithCallTimeout(@Query("id") Long id);
+}
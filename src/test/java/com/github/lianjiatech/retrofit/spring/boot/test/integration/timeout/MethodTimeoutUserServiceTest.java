@@ -0,0 +1,46 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.timeout;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.entity.User;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class})
+@RunWith(SpringRunner.class)
+public class MethodTimeoutUserServiceTest extends MockWebServerTest {
+
+    @Autowired
+    private MethodTimeoutUserService methodTimeoutUserService;
+
+    @Test(expected = RetrofitException.class)
+    public void getUser() {
+        // 接口读超时时间为1s，服务端2s才返回
+        mockServerReturnObject(USER_MIKE, 2);
+        methodTimeoutUserService.getUser(Long100);
+    }
+
+    @Test
+    public void getUserSlow() {
+        // 方法读超时时间为3s，同一个client下不会超时
+        mockServerReturnObject(USER_MIKE, 2);
+        User user = methodTimeoutUserService.getUserSlow(Long100);
+        Assert.assertEquals(USER_MIKE, user);
+    }
+
+    @Test(expected = RetrofitException.class)
+    public void getUserWithCallTimeout() {
+        // 方法调用超时时间为500ms，服务端1s才返回
+        mockServerReturnObject(USER_MIKE, 1);
+        methodTimeoutUserService.getUserWithCallTimeout(Long100);
+    }
+}
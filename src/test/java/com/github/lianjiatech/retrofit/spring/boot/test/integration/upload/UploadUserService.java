@@ -0,0 +1,52 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.upload;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.log.LogStrategy;
+import com.github.lianjiatech.retrofit.spring.boot.log.Logging;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+
+import io.reactivex.rxjava3.core.Flowable;
+import reactor.core.publisher.Flux;
+import retrofit2.http.Body;
+import retrofit2.http.Headers;
+import retrofit2.http.Multipart;
+import retrofit2.http.POST;
+import retrofit2.http.Part;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface UploadUserService {
+
+    @POST("upload")
+    Void uploadPath(@Body Path path);
+
+    @POST("upload")
+    @Headers("Content-Type: text/csv")
+    Void uploadFile(@Body File file);
+
+    @POST("upload")
+    @Retry(maxRetries = 2, intervalMs = 10)
+    @Logging(logStrategy = LogStrategy.BODY)
+    Void uploadStream(@Body InputStream inputStream);
+
+    @Multipart
+    @POST("upload")
+    @Retry(maxRetries = 2, intervalMs = 10)
+    @Logging(logStrategy = LogStrategy.BODY)
+    Void uploadMultipartStream(@Part("file") InputStream inputStream);
+
+    @POST("upload")
+    Void uploadFlux(@Body Flux<DataBuffer> data);
+
+    @POST("upload")
+    Void uploadFlowable(@Body Flowable<ByteBuffer> data);
+}
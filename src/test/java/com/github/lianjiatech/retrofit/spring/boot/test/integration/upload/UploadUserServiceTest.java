@@ -0,0 +1,181 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.integration.upload;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ConnectionPoolRegistry;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.MockWebServerTest;
+import com.github.lianjiatech.retrofit.spring.boot.test.integration.RetrofitBootApplication;
+
+import io.reactivex.rxjava3.core.Flowable;
+import okhttp3.ConnectionPool;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import reactor.core.publisher.Flux;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = {RetrofitBootApplication.class}, properties = {"retrofit.global-connection-pool.enable=true"})
+@RunWith(SpringRunner.class)
+public class UploadUserServiceTest extends MockWebServerTest {
+
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadUserService uploadUserService;
+
+    @Autowired
+    private ConnectionPoolRegistry connectionPoolRegistry;
+
+    /**
+     * 只能发送一次的请求体在复用的连接失效时不会被OkHttp重试，每个用例都使用新的MockWebServer，需要清理上一个用例留下的连接
+     */
+    @Before
+    public void evictConnections() {
+        connectionPoolRegistry.getAll().values().forEach(ConnectionPool::evictAll);
+    }
+
+    @Test
+    public void uploadPath() throws Exception {
+        byte[] content = randomContent();
+        Path path = Files.createTempFile("upload", ".bin");
+        try {
+            Files.write(path, content);
+            mockServerReturnString("");
+            uploadUserService.uploadPath(path);
+            RecordedRequest request = server.takeRequest();
+            assertEquals(String.valueOf(FILE_SIZE), request.getHeader("Content-Length"));
+            assertEquals("application/octet-stream", request.getHeader("Content-Type"));
+            assertArrayEquals(content, request.getBody().readByteArray());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void uploadFileWithContentType() throws Exception {
+        byte[] content = randomContent();
+        Path path = Files.createTempFile("upload", ".csv");
+        try {
+            Files.write(path, content);
+            mockServerReturnString("");
+            uploadUserService.uploadFile(path.toFile());
+            RecordedRequest request = server.takeRequest();
+            assertEquals("text/csv", request.getHeader("Content-Type"));
+            assertArrayEquals(content, request.getBody().readByteArray());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void uploadInputStream() throws Exception {
+        byte[] content = randomContent();
+        mockServerReturnString("");
+        // BODY级别的日志不能提前消费只能发送一次的请求体
+        uploadUserService.uploadStream(new ByteArrayInputStream(content));
+        RecordedRequest request = server.takeRequest();
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        assertNull(request.getHeader("Content-Length"));
+        assertArrayEquals(content, request.getBody().readByteArray());
+    }
+
+    @Test
+    public void oneShotBodyNotRetried() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        try {
+            uploadUserService.uploadStream(new ByteArrayInputStream(randomContent()));
+            fail();
+        } catch (RetrofitException e) {
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void uploadMultipartInputStream() throws Exception {
+        byte[] content = randomContent();
+        mockServerReturnString("");
+        // multipart中的InputStream part同样只能发送一次，BODY级别的日志不能提前消费
+        uploadUserService.uploadMultipartStream(new ByteArrayInputStream(content));
+        RecordedRequest request = server.takeRequest();
+        assertTrue(request.getBody().size() > content.length);
+    }
+
+    @Test
+    public void multipartOneShotPartNotRetried() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        try {
+            uploadUserService.uploadMultipartStream(new ByteArrayInputStream(randomContent()));
+            fail();
+        } catch (RetrofitException e) {
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void uploadDataBufferFlux() throws Exception {
+        byte[] content = randomContent();
+        mockServerReturnString("");
+        Flux<DataBuffer> data = Flux.range(0, FILE_SIZE / CHUNK_SIZE)
+                .map(i -> DefaultDataBufferFactory.sharedInstance
+                        .wrap(Arrays.copyOfRange(content, i * CHUNK_SIZE, (i + 1) * CHUNK_SIZE)));
+        uploadUserService.uploadFlux(data);
+        RecordedRequest request = server.takeRequest();
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        assertArrayEquals(content, request.getBody().readByteArray());
+    }
+
+    @Test
+    public void uploadByteBufferFlowable() throws Exception {
+        byte[] content = randomContent();
+        mockServerReturnString("");
+        Flowable<ByteBuffer> data = Flowable.range(0, FILE_SIZE / CHUNK_SIZE)
+                .map(i -> ByteBuffer.wrap(content, i * CHUNK_SIZE, CHUNK_SIZE));
+        uploadUserService.uploadFlowable(data);
+        assertArrayEquals(content, server.takeRequest().getBody().readByteArray());
+    }
+
+    @Test
+    public void publisherErrorFailsRequest() {
+        mockServerReturnString("");
+        try {
+            uploadUserService.uploadFlowable(Flowable.concat(Flowable.just(ByteBuffer.wrap(new byte[CHUNK_SIZE])),
+                    Flowable.error(new IllegalStateException("broken source"))));
+            fail();
+        } catch (RetrofitException e) {
+            assertEquals(IOException.class, e.getCause().getClass());
+        }
+    }
+
+    private static byte[] randomContent() {
+        byte[] content = new byte[FILE_SIZE];
+        new Random(FILE_SIZE).nextBytes(content);
+        return content;
+    }
+}